@@ -0,0 +1,302 @@
+package syntaxeditor;
+
+import java.util.Arrays;
+
+/*
+ * finds any number of literals in one pass over the text
+ *
+ * the trie edges live in one open addressing table keyed by node and char, failure links are
+ * followed on a miss; matches are taken leftmost first, then longest, and never overlap
+ */
+public class AhoCorasick
+{
+    private final String[] replacements;
+    private final boolean matchCase;
+    private final boolean wholeWord;
+    private int nodes = 1; // node 0 is the root
+    private int[] depth;
+    private int[] rule; // rule spelled by the path to the node, -1 if none
+    private int[] output; // nearest node down the failure chain that ends a rule, 0 if none
+    private int[] fail;
+    private long[] edgeKeys;
+    private int[] edgeTargets;
+    private int mask;
+
+    // finds[i] is replaced by replacements[i]; empty finds are ignored and a repeated find keeps its first rule
+    public AhoCorasick(String[] finds, String[] replacements, boolean matchCase, boolean wholeWord)
+    {
+        this.replacements = replacements;
+        this.matchCase = matchCase;
+        this.wholeWord = wholeWord;
+
+        int capacity = 1;
+
+        for (String find : finds)
+        {
+            capacity += find.length();
+        }
+
+        depth = new int[capacity];
+        rule = new int[capacity];
+        output = new int[capacity];
+        fail = new int[capacity];
+        Arrays.fill(rule, -1);
+
+        // the table is sized for every edge the trie could need and kept at most half full
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) << 1;
+        edgeKeys = new long[tableSize];
+        edgeTargets = new int[tableSize];
+        mask = tableSize - 1;
+        Arrays.fill(edgeKeys, -1);
+
+        for (int i = 0; i < finds.length; i++)
+        {
+            insert(finds[i], i);
+        }
+
+        buildFailureLinks();
+    }
+
+    public boolean isEmpty()
+    {
+        return nodes == 1;
+    }
+
+    private char fold(char c)
+    {
+        return matchCase ? c : LiteralMatcher.foldCase(c);
+    }
+
+    private void insert(String find, int index)
+    {
+        if (find.isEmpty())
+        {
+            return;
+        }
+
+        int node = 0;
+
+        for (int i = 0; i < find.length(); i++)
+        {
+            char c = fold(find.charAt(i));
+            int next = child(node, c);
+
+            if (next < 0)
+            {
+                next = nodes++;
+                depth[next] = depth[node] + 1;
+                addEdge(node, c, next);
+            }
+
+            node = next;
+        }
+
+        if (rule[node] < 0)
+        {
+            rule[node] = index;
+        }
+    }
+
+    private static long key(int node, char c)
+    {
+        return ((long) node << 16) | c;
+    }
+
+    private int slot(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    private int child(int node, char c)
+    {
+        long key = key(node, c);
+
+        for (int i = slot(key);; i = (i + 1) & mask)
+        {
+            if (edgeKeys[i] == key)
+            {
+                return edgeTargets[i];
+            }
+
+            if (edgeKeys[i] < 0)
+            {
+                return -1;
+            }
+        }
+    }
+
+    private void addEdge(int node, char c, int target)
+    {
+        long key = key(node, c);
+        int i = slot(key);
+
+        while (edgeKeys[i] >= 0)
+        {
+            i = (i + 1) & mask;
+        }
+
+        edgeKeys[i] = key;
+        edgeTargets[i] = target;
+    }
+
+    // breadth first, so every node's failure target is done before the node itself
+    private void buildFailureLinks()
+    {
+        int[] parent = new int[nodes];
+        char[] label = new char[nodes];
+
+        for (int i = 0; i < edgeKeys.length; i++)
+        {
+            if (edgeKeys[i] >= 0)
+            {
+                parent[edgeTargets[i]] = (int) (edgeKeys[i] >>> 16);
+                label[edgeTargets[i]] = (char) edgeKeys[i];
+            }
+        }
+
+        // counting sort by depth, node numbers follow insertion order
+        int maxDepth = 0;
+
+        for (int i = 0; i < nodes; i++)
+        {
+            maxDepth = Math.max(maxDepth, depth[i]);
+        }
+
+        int[] next = new int[maxDepth + 2];
+        int[] order = new int[nodes];
+
+        for (int i = 0; i < nodes; i++)
+        {
+            next[depth[i] + 1]++;
+        }
+
+        for (int d = 1; d <= maxDepth; d++)
+        {
+            next[d] += next[d - 1];
+        }
+
+        for (int i = 0; i < nodes; i++)
+        {
+            order[next[depth[i]]++] = i;
+        }
+
+        for (int i = 1; i < nodes; i++)
+        {
+            int node = order[i];
+            int f = (depth[node] == 1) ? 0 : step(fail[parent[node]], label[node]);
+
+            fail[node] = f;
+            output[node] = (rule[f] >= 0) ? f : output[f];
+        }
+    }
+
+    private int step(int state, char c)
+    {
+        while (true)
+        {
+            int next = child(state, c);
+
+            if (next >= 0)
+            {
+                return next;
+            }
+
+            if (state == 0)
+            {
+                return 0;
+            }
+
+            state = fail[state];
+        }
+    }
+
+    // text with every match replaced, as a single edit spanning the first match to the last; null if nothing matched
+    public Edit replace(CharSequence text)
+    {
+        StringBuilder result = new StringBuilder();
+        int length = text.length();
+        int first = -1;
+        int copied = 0;
+        int count = 0;
+        int state = 0;
+        int bestStart = -1;
+        int bestEnd = -1;
+        int bestRule = -1;
+
+        for (int i = 0; i < length; i++)
+        {
+            state = step(state, fold(text.charAt(i)));
+
+            for (int node = (rule[state] >= 0) ? state : output[state]; node != 0; node = output[node])
+            {
+                int end = i + 1;
+                int start = end - depth[node];
+
+                if (((bestRule < 0) || (start < bestStart) || ((start == bestStart) && (end > bestEnd)))
+                        && (!wholeWord || SearchPattern.isWholeWord(text, start, end)))
+                {
+                    bestStart = start;
+                    bestEnd = end;
+                    bestRule = rule[node];
+                }
+            }
+
+            // once no partial match reaches back to the best start, nothing better can turn up
+            if ((bestRule >= 0) && ((i + 1 - depth[state] > bestStart) || (i + 1 == length)))
+            {
+                if (first < 0)
+                {
+                    first = copied = bestStart;
+                }
+
+                result.append(text, copied, bestStart).append(replacements[bestRule]);
+                copied = bestEnd;
+                count++;
+
+                i = bestEnd - 1;
+                state = 0;
+                bestRule = -1;
+            }
+        }
+
+        return (count == 0) ? null : new Edit(first, copied, result.toString(), count);
+    }
+
+    // text between start and end becomes replacement
+    public static class Edit
+    {
+        private final int start;
+        private final int end;
+        private final String replacement;
+        private final int count;
+
+        Edit(int start, int end, String replacement, int count)
+        {
+            this.start = start;
+            this.end = end;
+            this.replacement = replacement;
+            this.count = count;
+        }
+
+        public int getStart()
+        {
+            return start;
+        }
+
+        public int getEnd()
+        {
+            return end;
+        }
+
+        public String getReplacement()
+        {
+            return replacement;
+        }
+
+        public int getCount()
+        {
+            return count;
+        }
+    }
+}
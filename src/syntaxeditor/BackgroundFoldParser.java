@@ -0,0 +1,375 @@
+package syntaxeditor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
+import org.fife.ui.rsyntaxtextarea.folding.CurlyFoldParser;
+import org.fife.ui.rsyntaxtextarea.folding.Fold;
+import org.fife.ui.rsyntaxtextarea.folding.FoldParser;
+import org.fife.ui.rsyntaxtextarea.folding.FoldParserManager;
+import org.fife.ui.rsyntaxtextarea.folding.FoldType;
+
+/*
+ * curly brace folding worked out on the tokenizer thread instead of the edt
+ *
+ * while a tab's TokenCache tokenizes a line it also keeps the line's marks, the braces, comments and
+ * imports a CurlyFoldParser would react to; once every line is up to date the folds are built from
+ * the marks alone and the fold manager is asked to reparse, which just hands it the finished list.
+ * the rules are those of CurlyFoldParser, so the folds come out the same. a Fold holds document
+ * positions, which may only be made on the edt, so the background builds plain offsets and the edt
+ * turns them into folds just before the reparse
+ */
+public class BackgroundFoldParser implements FoldParser
+{
+    // a mark is the offset in its line << 3 | kind
+    private static final int COMMENT_START = 0; // a comment that goes on past its line
+    private static final int COMMENT_END = 1; // offset of the last char of a comment ending in */
+    private static final int COMMENT = 2; // any other comment
+    private static final int LEFT_CURLY = 3;
+    private static final int RIGHT_CURLY = 4;
+    private static final int IMPORT = 5;
+    private static final int SEMICOLON = 6;
+
+    private static final char[] KEYWORD_IMPORT = "import".toCharArray();
+    private static final char[] COMMENT_CLOSE = "*/".toCharArray();
+
+    private final CurlyFoldParser parser; // for documents without a TokenCache
+    private final boolean isJava;
+
+    private BackgroundFoldParser(CurlyFoldParser parser, boolean isJava)
+    {
+        this.parser = parser;
+        this.isJava = isJava;
+    }
+
+    // takes over from every plain CurlyFoldParser, before any text area picks one
+    public static void install()
+    {
+        FoldParserManager manager = FoldParserManager.get();
+
+        for (String syntax : TokenMakerFactory.getDefaultInstance().keySet())
+        {
+            FoldParser parser = manager.getFoldParser(syntax);
+
+            if ((parser != null) && (parser.getClass() == CurlyFoldParser.class))
+            {
+                manager.addFoldParserMapping(syntax, new BackgroundFoldParser((CurlyFoldParser) parser,
+                        syntax.equals(SyntaxConstants.SYNTAX_STYLE_JAVA)));
+            }
+        }
+    }
+
+    // edt, the latest folds built in the background; an out of date list is kept until the new one is ready
+    @Override
+    public List<Fold> getFolds(RSyntaxTextArea textArea)
+    {
+        TokenCache cache = (TokenCache) textArea.getDocument().getProperty(TokenCache.class);
+
+        if (cache == null)
+        {
+            return parser.getFolds(textArea);
+        }
+
+        return cache.getFolds(textArea, isJava, parser.getFoldableMultiLineComments());
+    }
+
+    // the marks of one tokenized line, null if it has none
+    static int[] mark(Token first, int start)
+    {
+        int[] marks = null;
+        int count = 0;
+
+        for (Token t = first; (t != null) && t.isPaintable(); t = t.getNextToken())
+        {
+            int offset = t.getOffset() - start;
+            int kind;
+
+            if (t.isComment())
+            {
+                if (t.endsWith(COMMENT_CLOSE))
+                {
+                    kind = COMMENT_END;
+                    offset = t.getEndOffset() - 1 - start;
+                }
+                else
+                {
+                    kind = (t.getType() != Token.COMMENT_EOL) ? COMMENT_START : COMMENT;
+                }
+            }
+            else if (t.isLeftCurly())
+            {
+                kind = LEFT_CURLY;
+            }
+            else if (t.isRightCurly())
+            {
+                kind = RIGHT_CURLY;
+            }
+            else if (t.is(Token.RESERVED_WORD, KEYWORD_IMPORT))
+            {
+                kind = IMPORT;
+            }
+            else if (t.isIdentifier() && t.isSingleChar(';'))
+            {
+                kind = SEMICOLON;
+            }
+            else
+            {
+                continue;
+            }
+
+            if (marks == null)
+            {
+                marks = new int[4];
+            }
+            else if (count == marks.length)
+            {
+                marks = Arrays.copyOf(marks, count * 2);
+            }
+
+            marks[count++] = (offset << 3) | kind;
+        }
+
+        return (marks == null) ? null : Arrays.copyOf(marks, count);
+    }
+
+    // read lock held, marks[line] for every line of the document
+    static List<Node> build(Element root, int[][] marks, boolean isJava, boolean foldsComments)
+    {
+        Builder builder = new Builder(root, isJava);
+
+        for (int line = 0; line < root.getElementCount(); line++)
+        {
+            if (marks[line] == null)
+            {
+                continue;
+            }
+
+            int start = root.getElement(line).getStartOffset();
+
+            for (int mark : marks[line])
+            {
+                int kind = mark & 7;
+                int offset = start + (mark >> 3);
+
+                if (kind <= COMMENT)
+                {
+                    if (foldsComments)
+                    {
+                        builder.comment(kind, offset);
+                    }
+                }
+                else if (kind == LEFT_CURLY)
+                {
+                    builder.leftCurly(line, offset);
+                }
+                else if (kind == RIGHT_CURLY)
+                {
+                    builder.rightCurly(line, offset);
+                }
+                else if (isJava && (kind == IMPORT))
+                {
+                    builder.importKeyword(line, offset);
+                }
+                else if (isJava && (kind == SEMICOLON))
+                {
+                    builder.semicolon(offset);
+                }
+            }
+        }
+
+        return builder.folds;
+    }
+
+    // edt, with the text unchanged since nodes were built
+    static List<Fold> toFolds(RSyntaxTextArea textArea, List<Node> nodes) throws BadLocationException
+    {
+        List<Fold> folds = new ArrayList<>(nodes.size());
+
+        for (Node node : nodes)
+        {
+            Fold fold = new Fold(node.type, textArea, node.start);
+
+            setEnd(fold, node);
+            addChildren(fold, node);
+            folds.add(fold);
+        }
+
+        return folds;
+    }
+
+    private static void addChildren(Fold fold, Node node) throws BadLocationException
+    {
+        for (Node child : node.children)
+        {
+            Fold childFold = fold.createChild(child.type, child.start);
+
+            setEnd(childFold, child);
+            addChildren(childFold, child);
+        }
+    }
+
+    // a fold left open runs to the end of the document
+    private static void setEnd(Fold fold, Node node) throws BadLocationException
+    {
+        if (node.end != Integer.MAX_VALUE)
+        {
+            fold.setEndOffset(node.end);
+        }
+    }
+
+    // a fold as offsets, Integer.MAX_VALUE for an end never seen
+    static class Node
+    {
+        private final int type;
+        private final int start;
+        private int end = Integer.MAX_VALUE;
+        private final Node parent;
+        private final List<Node> children = new ArrayList<>(0);
+
+        Node(int type, int start, Node parent)
+        {
+            this.type = type;
+            this.start = start;
+            this.parent = parent;
+        }
+    }
+
+    // the state CurlyFoldParser carries from token to token
+    private static class Builder
+    {
+        private final Element root;
+        private final boolean isJava;
+        private final List<Node> folds = new ArrayList<>();
+        private Node current;
+        private boolean isInComment;
+        private int commentStart;
+        private int importStartLine = -1;
+        private int lastImportLine = -1;
+        private int importStart = -1;
+        private int importEnd = -1;
+        private Node closed; // ended on lastRightCurlyLine, reopened by "} else {"
+        private int lastRightCurlyLine = -1;
+
+        Builder(Element root, boolean isJava)
+        {
+            this.root = root;
+            this.isJava = isJava;
+        }
+
+        private Node open(int type, int offset)
+        {
+            Node node = new Node(type, offset, current);
+
+            if (current == null)
+            {
+                folds.add(node);
+            }
+            else
+            {
+                current.children.add(node);
+            }
+
+            return node;
+        }
+
+        private void endImports()
+        {
+            if (isJava && (importStartLine > -1))
+            {
+                if (lastImportLine > importStartLine)
+                {
+                    open(FoldType.IMPORTS, importStart).end = importEnd;
+                }
+
+                importStartLine = lastImportLine = importStart = importEnd = -1;
+            }
+        }
+
+        void comment(int kind, int offset)
+        {
+            endImports();
+
+            if (isInComment)
+            {
+                if (kind == COMMENT_END)
+                {
+                    open(FoldType.COMMENT, commentStart).end = offset;
+                    isInComment = false;
+                    commentStart = 0;
+                }
+            }
+            else if (kind == COMMENT_START)
+            {
+                isInComment = true;
+                commentStart = offset;
+            }
+        }
+
+        void leftCurly(int line, int offset)
+        {
+            endImports();
+
+            if ((closed != null) && (line == lastRightCurlyLine))
+            {
+                current = closed;
+                closed = null;
+                lastRightCurlyLine = -1;
+            }
+            else
+            {
+                current = open(FoldType.CODE, offset);
+            }
+        }
+
+        void rightCurly(int line, int offset)
+        {
+            if (current == null)
+            {
+                return;
+            }
+
+            current.end = offset;
+            Node parent = current.parent;
+
+            // a block on one line gets no fold
+            if (root.getElementIndex(current.start) == line)
+            {
+                List<Node> siblings = (parent != null) ? parent.children : folds;
+                siblings.remove(siblings.size() - 1);
+            }
+            else
+            {
+                lastRightCurlyLine = line;
+                closed = current;
+            }
+
+            current = parent;
+        }
+
+        void importKeyword(int line, int offset)
+        {
+            if (importStartLine == -1)
+            {
+                importStartLine = line;
+                importStart = offset;
+                importEnd = offset;
+            }
+
+            lastImportLine = line;
+        }
+
+        void semicolon(int offset)
+        {
+            if (importStartLine > -1)
+            {
+                importEnd = offset;
+            }
+        }
+    }
+}
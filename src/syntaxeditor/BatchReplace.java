@@ -0,0 +1,466 @@
+package syntaxeditor;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.SwingWorker;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+
+// applies a list of literal find -> replace rules in one pass per document
+public class BatchReplace extends JFrame
+{
+    private static final String[] SCOPES = { "Current Tab", "All Open Tabs", "Files in Folder..." };
+    private static final long MAX_FILE = 64L << 20; // bytes, larger files are left alone
+
+    private final Supplier<Tab> currentTab;
+    private final Supplier<List<Tab>> tabs;
+    private final JTextArea rulesArea = new JTextArea();
+    private final JCheckBox matchCaseCB = new JCheckBox("Match Case", true);
+    private final JCheckBox wholeWordCB = new JCheckBox("Whole Word");
+    private final JComboBox<String> scopeBox = new JComboBox<>(SCOPES);
+    private final JButton replaceButton = new JButton("Replace All");
+    private final JButton cancelButton = new JButton("Cancel");
+    private final JLabel statusLabel = new JLabel(" ");
+    private File lastFolder;
+    private Worker worker; // null when idle
+
+    public BatchReplace(Supplier<Tab> currentTab, Supplier<List<Tab>> tabs)
+    {
+        super("Batch Replace");
+        this.currentTab = currentTab;
+        this.tabs = tabs;
+
+        rulesArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        rulesArea.setTabSize(24);
+
+        replaceButton.addActionListener((ActionEvent e) ->
+        {
+            replaceAll();
+        });
+
+        // stops between files, whatever was already replaced stays
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener((ActionEvent e) ->
+        {
+            if (worker != null)
+            {
+                worker.stop();
+                statusLabel.setText("Cancelling...");
+            }
+        });
+
+        JPanel options = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        options.add(matchCaseCB);
+        options.add(wholeWordCB);
+        options.add(scopeBox);
+        options.add(replaceButton);
+        options.add(cancelButton);
+
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(options, BorderLayout.NORTH);
+        south.add(statusLabel, BorderLayout.SOUTH);
+
+        add(new JLabel(" One rule per line: the text to find, a tab, then its replacement"), BorderLayout.NORTH);
+        add(new JScrollPane(rulesArea), BorderLayout.CENTER);
+        add(south, BorderLayout.SOUTH);
+        setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+        setSize(600, 400);
+    }
+
+    private void replaceAll()
+    {
+        List<String> finds = new ArrayList<>();
+        List<String> replacements = new ArrayList<>();
+
+        for (String line : rulesArea.getText().split("\n"))
+        {
+            int tab = line.indexOf('\t');
+
+            if (tab > 0)
+            {
+                finds.add(line.substring(0, tab));
+                replacements.add(line.substring(tab + 1));
+            }
+            else if (!line.trim().isEmpty())
+            {
+                statusLabel.setText("No tab in rule '" + line + "'");
+                return;
+            }
+        }
+
+        if (finds.isEmpty())
+        {
+            statusLabel.setText("No rules");
+            return;
+        }
+
+        AhoCorasick rules = new AhoCorasick(finds.toArray(new String[0]), replacements.toArray(new String[0]),
+                matchCaseCB.isSelected(), wholeWordCB.isSelected());
+
+        switch (scopeBox.getSelectedIndex())
+        {
+            case 0:
+                List<Tab> current = new ArrayList<>();
+                current.add(currentTab.get());
+                start(new Worker(rules, current, null));
+                break;
+            case 1:
+                start(new Worker(rules, tabs.get(), null));
+                break;
+            default:
+                JFileChooser chooser = new JFileChooser(lastFolder);
+                chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+                chooser.setDialogTitle("Replace in Folder");
+
+                if ((chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION)
+                        || (JOptionPane.showConfirmDialog(this, "Replace in every text file under "
+                                + chooser.getSelectedFile() + "?\nFiles are saved right away and cannot be undone.",
+                                "Batch Replace", JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION))
+                {
+                    return;
+                }
+
+                lastFolder = chooser.getSelectedFile();
+                start(new Worker(rules, tabs.get(), lastFolder.toPath()));
+                break;
+        }
+    }
+
+    private void start(Worker worker)
+    {
+        this.worker = worker;
+        replaceButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        statusLabel.setText("Replacing...");
+        worker.start();
+    }
+
+    // tabs are scanned off the edt and each gets one atomic edit; files are rewritten in place
+    // the last chunk published carries the file totals, so the tabs are released after every edit is in
+    private class Worker extends SwingWorker<Void, Object[]>
+    {
+        private final AhoCorasick rules;
+        private final List<RSyntaxTextArea> textAreas = new ArrayList<>();
+        private final Set<Path> openFiles = new HashSet<>(); // real paths
+        private final Set<Path> visited = new HashSet<>(); // real paths, a file reached twice is replaced once
+        private final Path folder; // null for tabs
+        private volatile boolean stopping;
+        // background thread only
+        private int fileReplaced;
+        private int fileDocuments;
+        private int skipped;
+        // edt only
+        private int replaced;
+        private int documents;
+
+        Worker(AhoCorasick rules, List<Tab> tabs, Path folder)
+        {
+            this.rules = rules;
+            this.folder = (folder != null) ? realPath(folder) : null; // a linked folder is walked too
+
+            for (Tab tab : tabs)
+            {
+                if (folder == null)
+                {
+                    textAreas.add(tab.getTextArea());
+                }
+                else if (tab.getPath() != null)
+                {
+                    openFiles.add(realPath(Paths.get(tab.getPath())));
+                }
+            }
+        }
+
+        void start()
+        {
+            // every scanned tab must stay as it was until its edit is applied
+            for (RSyntaxTextArea textArea : textAreas)
+            {
+                textArea.setEditable(false);
+            }
+
+            execute();
+        }
+
+        // stops between documents, whatever was already scanned is still applied
+        void stop()
+        {
+            stopping = true;
+        }
+
+        @Override
+        protected Void doInBackground()
+        {
+            Throwable failure = null;
+
+            try
+            {
+                replaceAll();
+            }
+            catch (IOException | RuntimeException ex)
+            {
+                failure = ex;
+            }
+
+            publish(new Object[] { null, new int[] { fileReplaced, fileDocuments, skipped }, failure });
+            return null;
+        }
+
+        private void replaceAll() throws IOException
+        {
+            if (folder == null)
+            {
+                for (RSyntaxTextArea textArea : textAreas)
+                {
+                    if (stopping)
+                    {
+                        break;
+                    }
+
+                    Document doc = textArea.getDocument();
+                    AhoCorasick.Edit[] edit = new AhoCorasick.Edit[1];
+
+                    doc.render(()
+                            -> 
+                            {
+                                try
+                                {
+                                    edit[0] = rules.replace(new DocumentCharSequence(doc));
+                                }
+                                catch (BadLocationException ex)
+                                {
+                                    Logger.getLogger(BatchReplace.class.getName()).log(Level.SEVERE, null, ex);
+                                }
+                    });
+
+                    if (edit[0] != null)
+                    {
+                        publish(new Object[] { textArea, edit[0] });
+                    }
+                }
+
+                return;
+            }
+
+            MultiSearch.walkFolder(folder, (Path file, BasicFileAttributes attrs) ->
+            {
+                Path target = realPath(file);
+
+                if (!visited.add(target))
+                {
+                    return;
+                }
+
+                // an open file could have unsaved edits, those are left to the tab
+                if ((attrs.size() > MAX_FILE) || openFiles.contains(target) || !Files.isWritable(target))
+                {
+                    skipped++;
+                    return;
+                }
+
+                replaceInFile(target);
+            }, () -> stopping);
+        }
+
+        // the file a link points to, so the link itself is kept
+        private Path realPath(Path file)
+        {
+            try
+            {
+                return file.toRealPath();
+            }
+            catch (IOException ex)
+            {
+                return file.toAbsolutePath().normalize();
+            }
+        }
+
+        // file is a real path
+        private void replaceInFile(Path file)
+        {
+            Path part = null;
+
+            try
+            {
+                byte[] bytes = Files.readAllBytes(file);
+
+                for (int i = 0; i < Math.min(bytes.length, 8192); i++)
+                {
+                    if (bytes[i] == 0)
+                    {
+                        skipped++;
+                        return;
+                    }
+                }
+
+                // only text that round trips is touched
+                CharBuffer text = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPORT)
+                        .onUnmappableCharacter(CodingErrorAction.REPORT)
+                        .decode(ByteBuffer.wrap(bytes));
+                AhoCorasick.Edit edit = rules.replace(text);
+
+                if (edit == null)
+                {
+                    return;
+                }
+
+                StringBuilder result = new StringBuilder(text.length() + edit.getReplacement().length());
+                result.append(text, 0, edit.getStart()).append(edit.getReplacement()).append(text, edit.getEnd(), text.length());
+
+                // a fresh name next to the file, so the move stays atomic and no other file is overwritten
+                part = Files.createTempFile(file.getParent(), "." + file.getFileName(), ".part");
+                Files.write(part, result.toString().getBytes(StandardCharsets.UTF_8));
+                copyAttributes(file, part);
+                Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                part = null;
+
+                fileReplaced += edit.getCount();
+                fileDocuments++;
+            }
+            catch (CharacterCodingException ex)
+            {
+                skipped++;
+            }
+            catch (IOException ex)
+            {
+                skipped++;
+                Logger.getLogger(BatchReplace.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            finally
+            {
+                if (part != null)
+                {
+                    try
+                    {
+                        Files.deleteIfExists(part);
+                    }
+                    catch (IOException ex)
+                    {
+                        Logger.getLogger(BatchReplace.class.getName()).log(Level.WARNING, null, ex);
+                    }
+                }
+            }
+        }
+
+        // a temp file is created private to its owner, the replaced file keeps its permissions and group
+        private void copyAttributes(Path file, Path part) throws IOException
+        {
+            PosixFileAttributeView view = Files.getFileAttributeView(part, PosixFileAttributeView.class);
+
+            if (view == null)
+            {
+                return;
+            }
+
+            PosixFileAttributes attrs = Files.readAttributes(file, PosixFileAttributes.class);
+            view.setPermissions(attrs.permissions());
+
+            try
+            {
+                view.setGroup(attrs.group());
+            }
+            catch (IOException ex)
+            {
+                // not a member of the group, it stays the user's own
+            }
+        }
+
+        @Override
+        protected void process(List<Object[]> edits)
+        {
+            for (Object[] pending : edits)
+            {
+                if (pending[0] == null)
+                {
+                    finish((int[]) pending[1], (Throwable) pending[2]);
+                    continue;
+                }
+
+                RSyntaxTextArea textArea = (RSyntaxTextArea) pending[0];
+                AhoCorasick.Edit edit = (AhoCorasick.Edit) pending[1];
+
+                textArea.beginAtomicEdit();
+
+                try
+                {
+                    textArea.replaceRange(edit.getReplacement(), edit.getStart(), edit.getEnd());
+                }
+                finally
+                {
+                    textArea.endAtomicEdit();
+                }
+
+                textArea.setEditable(true);
+                replaced += edit.getCount();
+                documents++;
+            }
+        }
+
+        private void finish(int[] totals, Throwable failure)
+        {
+            for (RSyntaxTextArea textArea : textAreas)
+            {
+                textArea.setEditable(true);
+            }
+
+            worker = null;
+            replaceButton.setEnabled(true);
+            cancelButton.setEnabled(false);
+            replaced += totals[0];
+            documents += totals[1];
+
+            String summary = replaced + ((replaced == 1) ? " replacement in " : " replacements in ") + documents
+                    + ((documents == 1) ? " document" : " documents");
+
+            if (failure != null)
+            {
+                statusLabel.setText("Batch replace failed after " + summary);
+                Logger.getLogger(BatchReplace.class.getName()).log(Level.SEVERE, null, failure);
+            }
+            else if (stopping)
+            {
+                statusLabel.setText("Cancelled after " + summary);
+            }
+            else
+            {
+                statusLabel.setText(summary
+                        + ((totals[2] > 0) ? ", " + totals[2] + " skipped (open, binary, too large or not UTF-8)" : ""));
+            }
+        }
+    }
+}
@@ -3,10 +3,14 @@ package syntaxeditor;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import static syntaxeditor.SyntaxEditor.THEME_COUNT;
@@ -17,6 +21,7 @@ public class Database
     private Connection connection;
     private Statement statement;
     private ResultSet result;
+    private boolean fts5 = true;
     
     public void open()
     {
@@ -48,6 +53,8 @@ public class Database
                         + "('dark', 1);";
                 statement.executeUpdate(sql);
             }
+
+            createIndexTables();
         }
         catch (ClassNotFoundException | SQLException e)
         {
@@ -56,6 +63,69 @@ public class Database
         }
     }
     
+    // older databases only have History and Themes, so these are created on every open
+    private void createIndexTables() throws SQLException
+    {
+        statement = connection.createStatement();
+        statement.executeUpdate("pragma busy_timeout = 2000;");
+        statement.executeUpdate("create table if not exists Recent "
+                + "(Path text primary key, "
+                + "Count int not null, "
+                + "Accessed int not null)");
+
+        try
+        {
+            statement.executeUpdate("create virtual table if not exists Content "
+                    + "using fts5(Path unindexed, Body)");
+
+            // a Content table made by an older SQLite is still fts4 and is moved over
+            if (!getContentModule().contains("fts5"))
+                migrateContent();
+        }
+        catch (SQLException ex)
+        {
+            // bundled SQLite predates FTS5
+            statement.executeUpdate("create virtual table if not exists Content "
+                    + "using fts4(Path, Body, notindexed=Path)");
+        }
+
+        // the queries depend on the table that is there, not the one asked for
+        fts5 = getContentModule().contains("fts5");
+    }
+
+    private String getContentModule() throws SQLException
+    {
+        try (ResultSet rs = statement.executeQuery(
+                "select sql from sqlite_master where type = 'table' and name = 'Content';"))
+        {
+            return rs.next() ? rs.getString(1).toLowerCase() : "";
+        }
+    }
+
+    private void migrateContent()
+    {
+        try
+        {
+            connection.setAutoCommit(false);
+            statement.executeUpdate("create virtual table ContentNew "
+                    + "using fts5(Path unindexed, Body)");
+            statement.executeUpdate("insert into ContentNew (path, body) select path, body from content;");
+            statement.executeUpdate("drop table Content;");
+            statement.executeUpdate("alter table ContentNew rename to Content;");
+            connection.commit();
+        }
+        catch (SQLException ex)
+        {
+            // the fts4 table is left as it was
+            rollback();
+            Logger.getLogger(Database.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        finally
+        {
+            setAutoCommit();
+        }
+    }
+
     public void insertFile(String path, int status)
     {
         try
@@ -70,6 +140,37 @@ public class Database
         }
     }
     
+    // the history of the last session is kept until this one has committed its own
+    public void replaceHistory(LinkedHashMap<String, Integer> files)
+    {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into history (path, status) values (?, ?);"))
+        {
+            connection.setAutoCommit(false);
+            statement = connection.createStatement();
+            statement.executeUpdate("delete from history;");
+
+            for (Map.Entry<String, Integer> entry : files.entrySet())
+            {
+                insert.setString(1, entry.getKey());
+                insert.setInt(2, entry.getValue());
+                insert.addBatch();
+            }
+
+            insert.executeBatch();
+            connection.commit();
+        }
+        catch (SQLException ex)
+        {
+            rollback();
+            Logger.getLogger(Database.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        finally
+        {
+            setAutoCommit();
+        }
+    }
+
     public void clearHistory()
     {
         try
@@ -84,6 +185,83 @@ public class Database
         }
     }
     
+    public void touchRecent(String path)
+    {
+        try (PreparedStatement update = connection.prepareStatement(
+                "update recent set count = count + 1, accessed = ? where path = ?;"))
+        {
+            long now = System.currentTimeMillis();
+
+            update.setLong(1, now);
+            update.setString(2, path);
+
+            if (update.executeUpdate() == 0)
+            {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "insert into recent (path, count, accessed) values (?, 1, ?);"))
+                {
+                    insert.setString(1, path);
+                    insert.setLong(2, now);
+                    insert.executeUpdate();
+                }
+            }
+        }
+        catch (SQLException ex)
+        {
+            Logger.getLogger(Database.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    public void indexContent(String path, String body)
+    {
+        try (PreparedStatement delete = connection.prepareStatement(
+                "delete from content where path = ?;");
+                PreparedStatement insert = connection.prepareStatement(
+                        "insert into content (path, body) values (?, ?);"))
+        {
+            connection.setAutoCommit(false);
+            delete.setString(1, path);
+            delete.executeUpdate();
+            insert.setString(1, path);
+            insert.setString(2, body);
+            insert.executeUpdate();
+            connection.commit();
+        }
+        catch (SQLException ex)
+        {
+            rollback();
+            Logger.getLogger(Database.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        finally
+        {
+            setAutoCommit();
+        }
+    }
+
+    private void rollback()
+    {
+        try
+        {
+            connection.rollback();
+        }
+        catch (SQLException ex)
+        {
+            Logger.getLogger(Database.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    private void setAutoCommit()
+    {
+        try
+        {
+            connection.setAutoCommit(true);
+        }
+        catch (SQLException ex)
+        {
+            Logger.getLogger(Database.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
     // setters
     public void setTheme(String title)
     {
@@ -127,6 +305,61 @@ public class Database
         return null;
     }
     
+    public List<String> getRecent(int limit)
+    {
+        List<String> list = new ArrayList<>();
+
+        try (PreparedStatement query = connection.prepareStatement(
+                "select path from recent order by accessed desc limit ?;"))
+        {
+            query.setInt(1, limit);
+
+            try (ResultSet rs = query.executeQuery())
+            {
+                while (rs.next())
+                    list.add(rs.getString("Path"));
+            }
+        }
+        catch (SQLException ex)
+        {
+            Logger.getLogger(Database.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        return list;
+    }
+
+    // path -> snippet with matches wrapped in [ ]
+    public LinkedHashMap<String, String> searchContent(String text, int limit)
+    {
+        LinkedHashMap<String, String> map = new LinkedHashMap<>();
+        String sql;
+
+        if (fts5)
+            sql = "select path, snippet(content, 1, '[', ']', '...', 12) as Snippet "
+                    + "from content where content match ? order by rank limit ?;";
+        else
+            sql = "select path, snippet(content, '[', ']', '...', 1, 12) as Snippet "
+                    + "from content where body match ? limit ?;";
+
+        try (PreparedStatement query = connection.prepareStatement(sql))
+        {
+            query.setString(1, '"' + text.replace("\"", "\"\"") + '"'); // phrase query
+            query.setInt(2, limit);
+
+            try (ResultSet rs = query.executeQuery())
+            {
+                while (rs.next())
+                    map.put(rs.getString("Path"), rs.getString("Snippet"));
+            }
+        }
+        catch (SQLException ex)
+        {
+            Logger.getLogger(Database.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        return map;
+    }
+
     public String getSelectedTheme()
     {
         try
@@ -171,8 +404,12 @@ public class Database
     {
         try
         {
-            statement.close();
-            result.close();
+            if (statement != null)
+                statement.close();
+
+            if (result != null)
+                result.close();
+
             connection.close();
         }
         catch (SQLException ex)
@@ -0,0 +1,578 @@
+package syntaxeditor;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipFile;
+import org.fife.com.swabunga.spell.engine.SpellDictionary;
+import org.fife.com.swabunga.spell.engine.Word;
+
+/*
+ * an immutable word list kept as a minimal automaton, shared by every spelling parser of the jvm
+ *
+ * words with a common prefix share the path spelling it and words with a common suffix the path
+ * spelling that, so the english lists take a few hundred kb instead of tens of mb of strings and
+ * phonetic codes. the automaton is an int array of transitions, two ints each: the char with a flag
+ * for a word ending there and one for the last transition of its state, then the index of the first
+ * transition of the state it leads to. it is written to a file next to the database the first time
+ * and mapped from there afterwards, so it takes no heap at all
+ *
+ * suggestions are the words within the threshold edit cost of the misspelled one, found by walking the
+ * automaton with a row of the edit distance table per char and leaving every path the row has grown too
+ * far on
+ */
+public class DawgDictionary implements SpellDictionary
+{
+    private static final int MAGIC = 0x44415747; // DAWG
+    private static final int VERSION = 1;
+    private static final int HEADER = 24; // bytes, magic, version, stamp, root, transitions
+    private static final int FINAL = 1 << 16; // a word ends with this transition
+    private static final int LAST = 1 << 17; // of its state
+    private static final int NONE = -1; // state without transitions
+    private static final int EDIT_DELETE = 95; // costs of the swabunga engine configuration, for its thresholds
+    private static final int EDIT_SWAP = 90;
+    private static final int EDIT_CHANGE = 100;
+    private static final int EDIT_CASE = 10;
+    private static final Map<String, DawgDictionary> DICTIONARIES = new HashMap<>();
+
+    private final IntBuffer transitions;
+    private final int root;
+
+    private DawgDictionary(IntBuffer transitions, int root)
+    {
+        this.transitions = transitions;
+        this.root = root;
+    }
+
+    // the english word lists of the dictionary zip, american or british spellings, loaded once per jvm
+    public static synchronized DawgDictionary english(File zip, boolean isAmerican) throws IOException
+    {
+        String variant = isAmerican ? "us" : "gb";
+        String key = zip.getCanonicalPath() + ":" + variant;
+        DawgDictionary dictionary = DICTIONARIES.get(key);
+
+        if (dictionary == null)
+        {
+            File file = new File(SyntaxEditor.DIRECTORY + "english_" + variant + ".dawg");
+            long stamp = zip.lastModified() ^ (zip.length() << 32);
+
+            dictionary = map(file, stamp);
+
+            if (dictionary == null)
+            {
+                dictionary = build(readEnglish(zip, isAmerican));
+                write(dictionary, file, stamp);
+            }
+
+            DICTIONARIES.put(key, dictionary);
+        }
+
+        return dictionary;
+    }
+
+    // words sorted and without repeats
+    public static DawgDictionary build(TreeSet<String> words)
+    {
+        Builder builder = new Builder();
+
+        for (String word : words)
+        {
+            builder.add(word);
+        }
+
+        return builder.finish();
+    }
+
+    private static TreeSet<String> readEnglish(File zip, boolean isAmerican) throws IOException
+    {
+        String[] lists = isAmerican ? new String[] { "eng_com", "color", "labeled", "center", "ize", "yze" }
+                : new String[] { "eng_com", "colour", "labelled", "centre", "ise", "yse" };
+        TreeSet<String> words = new TreeSet<>();
+
+        try (ZipFile file = new ZipFile(zip))
+        {
+            for (String list : lists)
+            {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(file.getEntry(list + ".dic")))))
+                {
+                    for (String line = reader.readLine(); line != null; line = reader.readLine())
+                    {
+                        line = line.trim();
+
+                        if (!line.isEmpty())
+                        {
+                            words.add(line);
+                        }
+                    }
+                }
+            }
+        }
+
+        return words;
+    }
+
+    // the dictionary in file, null if there is none or it was made from another zip
+    private static DawgDictionary map(File file, long stamp)
+    {
+        if (!file.isFile())
+        {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+
+            while (header.hasRemaining() && (channel.read(header) >= 0))
+            {
+            }
+
+            // checked before mapping, so a stale or broken file is never mapped and can be written over
+            if ((header.position() < HEADER) || (header.getInt(0) != MAGIC) || (header.getInt(4) != VERSION)
+                    || (header.getLong(8) != stamp) || (channel.size() != HEADER + header.getInt(20) * 8L))
+            {
+                return null;
+            }
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            buffer.position(HEADER);
+            return new DawgDictionary(buffer.slice().asIntBuffer(), buffer.getInt(16));
+        }
+        catch (IOException ex)
+        {
+            Logger.getLogger(DawgDictionary.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+
+    // best effort, the dictionary works as well from the heap
+    private static void write(DawgDictionary dictionary, File file, long stamp)
+    {
+        File temp = new File(file.getPath() + ".tmp");
+
+        try
+        {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp))))
+            {
+                int count = dictionary.transitions.limit() / 2;
+
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(stamp);
+                out.writeInt(dictionary.root);
+                out.writeInt(count);
+
+                for (int i = 0; i < count * 2; i++)
+                {
+                    out.writeInt(dictionary.transitions.get(i));
+                }
+            }
+
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException ex)
+        {
+            Logger.getLogger(DawgDictionary.class.getName()).log(Level.SEVERE, null, ex);
+            temp.delete();
+        }
+    }
+
+    // lookups
+    @Override
+    public boolean addWord(String word)
+    {
+        return false; // immutable
+    }
+
+    // as written or in lower case, as SpellDictionaryHashMap has it; names written in lower case are wrong
+    @Override
+    public boolean isCorrect(String word)
+    {
+        if (word.isEmpty())
+        {
+            return false;
+        }
+
+        if (contains(word))
+        {
+            return true;
+        }
+
+        String lower = word.toLowerCase();
+        return !lower.equals(word) && contains(lower);
+    }
+
+    private boolean contains(String word)
+    {
+        int state = root;
+
+        for (int i = 0; i < word.length(); i++)
+        {
+            int transition = find(state, word.charAt(i));
+
+            if (transition < 0)
+            {
+                return false;
+            }
+
+            if (i == word.length() - 1)
+            {
+                return (transitions.get(transition) & FINAL) != 0;
+            }
+
+            state = transitions.get(transition + 1);
+        }
+
+        return false;
+    }
+
+    // the transition of state on c, -1 if there is none
+    private int find(int state, char c)
+    {
+        if (state == NONE)
+        {
+            return -1;
+        }
+
+        for (int i = state;; i += 2)
+        {
+            int label = transitions.get(i);
+
+            if ((char) label == c)
+            {
+                return i;
+            }
+
+            if (((char) label > c) || ((label & LAST) != 0))
+            {
+                return -1;
+            }
+        }
+    }
+
+    // the words within threshold edit cost, the closest first
+    @Override
+    public List<Word> getSuggestions(String word, int threshold)
+    {
+        if (word.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+
+        String lower = word.toLowerCase();
+        Search search = new Search(lower, threshold);
+        int[] row = new int[lower.length() + 1];
+
+        for (int i = 0; i <= lower.length(); i++)
+        {
+            row[i] = i * EDIT_DELETE;
+        }
+
+        search.walk(root, row, null, (char) 0, 0);
+
+        // capitalized words keep their capital
+        boolean isCapitalized = Character.isUpperCase(word.charAt(0));
+        List<Word> suggestions = new ArrayList<>(search.found.size());
+
+        Collections.sort(search.found, (Word a, Word b) ->
+        {
+            if (a.getCost() != b.getCost())
+            {
+                return a.getCost() - b.getCost();
+            }
+
+            // a word starting differently is less likely to be meant
+            boolean isSameStartA = Character.toLowerCase(a.getWord().charAt(0)) == lower.charAt(0);
+            boolean isSameStartB = Character.toLowerCase(b.getWord().charAt(0)) == lower.charAt(0);
+
+            return (isSameStartA != isSameStartB) ? (isSameStartA ? -1 : 1) : a.getWord().compareTo(b.getWord());
+        });
+
+        for (Word found : search.found)
+        {
+            String suggestion = found.getWord();
+
+            if (isCapitalized && Character.isLowerCase(suggestion.charAt(0)))
+            {
+                suggestion = Character.toUpperCase(suggestion.charAt(0)) + suggestion.substring(1);
+            }
+
+            if (!suggestion.equals(word) && !contains(suggestions, suggestion))
+            {
+                suggestions.add(new Word(suggestion, found.getCost()));
+            }
+        }
+
+        return suggestions;
+    }
+
+    @Override
+    public List<Word> getSuggestions(String word, int threshold, int[][] matrix)
+    {
+        return getSuggestions(word, threshold);
+    }
+
+    private static boolean contains(List<Word> words, String word)
+    {
+        for (Word w : words)
+        {
+            if (w.getWord().equals(word))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // a depth first walk of the automaton, one row of the distance table per char of the path
+    private class Search
+    {
+        private final String word; // in lower case
+        private final int threshold;
+        private final List<Word> found = new ArrayList<>();
+        private final StringBuilder path = new StringBuilder();
+
+        Search(String word, int threshold)
+        {
+            this.word = word;
+            this.threshold = threshold;
+        }
+
+        // row is the cost of the path so far to every prefix of word, previous that of the path without before
+        void walk(int state, int[] row, int[] previous, char before, int depth)
+        {
+            if (state == NONE)
+            {
+                return;
+            }
+
+            int rowBest = Integer.MAX_VALUE;
+
+            for (int cost : row)
+            {
+                rowBest = Math.min(rowBest, cost);
+            }
+
+            for (int i = state;; i += 2)
+            {
+                int label = transitions.get(i);
+                char c = (char) label;
+                char lower = Character.toLowerCase(c);
+                int[] next = new int[row.length];
+                int best = next[0] = row[0] + EDIT_DELETE;
+
+                for (int j = 1; j < row.length; j++)
+                {
+                    char w = word.charAt(j - 1);
+                    int change = (c == w) ? 0 : (lower == w) ? EDIT_CASE : EDIT_CHANGE;
+
+                    next[j] = Math.min(Math.min(next[j - 1], row[j]) + EDIT_DELETE, row[j - 1] + change);
+
+                    if ((previous != null) && (j > 1) && (lower == word.charAt(j - 2))
+                            && (Character.toLowerCase(before) == w))
+                    {
+                        next[j] = Math.min(next[j], previous[j - 2] + EDIT_SWAP);
+                    }
+
+                    best = Math.min(best, next[j]);
+                }
+
+                // a swap two chars on reaches back over next to row, so a path past the threshold can come back
+                if ((best <= threshold) || (rowBest + EDIT_SWAP <= threshold))
+                {
+                    path.append(c);
+
+                    if (((label & FINAL) != 0) && (next[row.length - 1] <= threshold))
+                    {
+                        found.add(new Word(path.toString(), next[row.length - 1]));
+                    }
+
+                    walk(transitions.get(i + 1), next, row, c, depth + 1);
+                    path.setLength(depth);
+                }
+
+                if ((label & LAST) != 0)
+                {
+                    return;
+                }
+            }
+        }
+    }
+
+    /*
+     * builds the minimal automaton from words added in order: once a word is added, the states of the
+     * previous one past their common prefix can no longer change, and each is replaced by an equal state
+     * met before if there is one, then written out below the states it leads to
+     */
+    private static class Builder
+    {
+        private final Map<State, Integer> written = new HashMap<>(); // state to index of its first transition
+        private final List<State> path = new ArrayList<>(); // states of the last word added, root first
+        private int[] transitions = new int[1 << 16];
+        private int size;
+        private String last = "";
+
+        Builder()
+        {
+            path.add(new State());
+        }
+
+        void add(String word)
+        {
+            int common = 0;
+
+            while ((common < word.length()) && (common < last.length()) && (word.charAt(common) == last.charAt(common)))
+            {
+                common++;
+            }
+
+            minimize(common);
+
+            for (int i = common; i < word.length(); i++)
+            {
+                State state = new State();
+
+                path.get(i).add(word.charAt(i));
+                path.add(state);
+            }
+
+            path.get(word.length()).isFinal = true;
+            last = word;
+        }
+
+        DawgDictionary finish()
+        {
+            minimize(0);
+
+            int root = write(path.get(0));
+            return new DawgDictionary(IntBuffer.wrap(Arrays.copyOf(transitions, size)), root);
+        }
+
+        // writes out the states of the path below depth, deepest first
+        private void minimize(int depth)
+        {
+            for (int i = path.size() - 1; i > depth; i--)
+            {
+                State state = path.remove(i);
+                State parent = path.get(i - 1);
+
+                parent.targets[parent.count - 1] = write(state);
+                parent.finals[parent.count - 1] = state.isFinal;
+            }
+        }
+
+        // the index of the first transition of state, written out unless an equal one already is
+        private int write(State state)
+        {
+            if (state.count == 0)
+            {
+                return NONE;
+            }
+
+            Integer index = written.get(state);
+
+            if (index != null)
+            {
+                return index;
+            }
+
+            if (size + state.count * 2 > transitions.length)
+            {
+                transitions = Arrays.copyOf(transitions, Math.max(transitions.length * 2, size + state.count * 2));
+            }
+
+            int start = size;
+
+            for (int i = 0; i < state.count; i++)
+            {
+                transitions[size++] = state.labels[i] | (state.finals[i] ? FINAL : 0) | ((i == state.count - 1) ? LAST : 0);
+                transitions[size++] = state.targets[i];
+            }
+
+            written.put(state, start);
+            return start;
+        }
+    }
+
+    // a state of the builder, equal to another with the same transitions once its targets are written
+    private static class State
+    {
+        private char[] labels = new char[2];
+        private int[] targets = new int[2];
+        private boolean[] finals = new boolean[2];
+        private int count;
+        private boolean isFinal;
+
+        void add(char c)
+        {
+            if (count == labels.length)
+            {
+                labels = Arrays.copyOf(labels, count * 2);
+                targets = Arrays.copyOf(targets, count * 2);
+                finals = Arrays.copyOf(finals, count * 2);
+            }
+
+            labels[count++] = c;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof State))
+            {
+                return false;
+            }
+
+            State other = (State) o;
+
+            if (other.count != count)
+            {
+                return false;
+            }
+
+            for (int i = 0; i < count; i++)
+            {
+                if ((other.labels[i] != labels[i]) || (other.targets[i] != targets[i]) || (other.finals[i] != finals[i]))
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = count;
+
+            for (int i = 0; i < count; i++)
+            {
+                hash = 31 * (31 * (31 * hash + labels[i]) + targets[i]) + (finals[i] ? 1 : 0);
+            }
+
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package syntaxeditor;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+// read-only view of a document's gap buffer, valid until the document is next edited
+public class DocumentCharSequence implements CharSequence
+{
+    private final Segment head; // text before the gap
+    private final Segment tail; // text after it
+    private final int start;
+    private final int length;
+
+    public DocumentCharSequence(Document doc) throws BadLocationException
+    {
+        int docLength = doc.getLength();
+
+        head = new Segment();
+        tail = new Segment();
+        head.setPartialReturn(true);
+        doc.getText(0, docLength, head);
+
+        if (head.count < docLength)
+        {
+            doc.getText(head.count, docLength - head.count, tail);
+        }
+
+        start = 0;
+        length = docLength;
+    }
+
+    private DocumentCharSequence(Segment head, Segment tail, int start, int length)
+    {
+        this.head = head;
+        this.tail = tail;
+        this.start = start;
+        this.length = length;
+    }
+
+    @Override
+    public int length()
+    {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        if ((index < 0) || (index >= length))
+        {
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+
+        int position = start + index;
+
+        if (position < head.count)
+        {
+            return head.array[head.offset + position];
+        }
+
+        return tail.array[tail.offset + position - head.count];
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to)
+    {
+        if ((from < 0) || (to > length) || (from > to))
+        {
+            throw new IndexOutOfBoundsException(from + ", " + to);
+        }
+
+        return new DocumentCharSequence(head, tail, start + from, to - from);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder(length);
+        int from = start;
+        int to = start + length;
+
+        if (from < head.count)
+        {
+            text.append(head.array, head.offset + from, Math.min(to, head.count) - from);
+        }
+
+        if (to > head.count)
+        {
+            int tailFrom = Math.max(from, head.count) - head.count;
+            text.append(tail.array, tail.offset + tailFrom, to - head.count - tailFrom);
+        }
+
+        return text.toString();
+    }
+}
@@ -0,0 +1,207 @@
+package syntaxeditor;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+
+/*
+ * the words of one document, counted line by line in the WordIndex shared by all tabs
+ *
+ * each line keeps the ids of the words it was counted with, so an edit takes back the words of the
+ * lines it replaced and counts those of the new ones without looking at the rest of the document.
+ * an edit bringing in many lines at once, as opening a file does, leaves them to a background pass
+ * that counts them a chunk at a time; lines longer than TokenCache.MAX_LINE are never counted
+ */
+public class DocumentWords implements DocumentListener
+{
+    private static final int CHUNK = 2000; // lines counted per read lock
+    private static final int MAX_EDIT = 100; // lines an edit counts itself, more are left to the background
+    private static final int[] NONE = new int[0]; // counted, without words
+    private static final ExecutorService COUNTER = Executors.newSingleThreadExecutor((Runnable r) ->
+    {
+        Thread thread = new Thread(r, "Words");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final AbstractDocument doc;
+    private final WordIndex index;
+    private final Segment segment = new Segment();
+    private int[][] words = new int[0][]; // per line, null until counted
+    private int lines;
+    private int next; // every line before this one is counted
+    private boolean isRunning;
+    private boolean isClosed;
+
+    public DocumentWords(AbstractDocument doc, WordIndex index)
+    {
+        this.doc = doc;
+        this.index = index;
+
+        lines = doc.getDefaultRootElement().getElementCount();
+        words = new int[lines][];
+        doc.addDocumentListener(this);
+        schedule();
+    }
+
+    public synchronized void close()
+    {
+        doc.removeDocumentListener(this);
+        isClosed = true;
+
+        for (int line = 0; line < lines; line++)
+        {
+            if (words[line] != null)
+            {
+                index.remove(words[line]);
+            }
+        }
+
+        words = new int[0][];
+        lines = 0;
+    }
+
+    // edits
+    @Override
+    public void insertUpdate(DocumentEvent e)
+    {
+        edited(e);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e)
+    {
+        edited(e);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e)
+    {
+    }
+
+    // write lock held
+    private synchronized void edited(DocumentEvent e)
+    {
+        Element root = doc.getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+        int first = (change != null) ? change.getIndex() : root.getElementIndex(e.getOffset());
+        int removed = (change != null) ? change.getChildrenRemoved().length : 1;
+        int added = (change != null) ? change.getChildrenAdded().length : 1;
+        int count = root.getElementCount();
+
+        for (int line = first; (line < first + removed) && (line < lines); line++)
+        {
+            if (words[line] != null)
+            {
+                index.remove(words[line]);
+            }
+        }
+
+        if (count > words.length)
+        {
+            words = Arrays.copyOf(words, Math.max(count, words.length + (words.length >> 1)));
+        }
+
+        // the lines below move up or down
+        System.arraycopy(words, first + removed, words, first + added, Math.max(0, lines - first - removed));
+
+        if (count < lines)
+        {
+            Arrays.fill(words, count, lines, null);
+        }
+
+        lines = count;
+
+        if (added > MAX_EDIT)
+        {
+            Arrays.fill(words, first, first + added, null);
+            next = Math.min(next, first);
+            schedule();
+            return;
+        }
+
+        for (int line = first; line < first + added; line++)
+        {
+            words[line] = count(root.getElement(line));
+        }
+
+        // lines waiting below may have moved above the pass
+        if (change != null)
+        {
+            next = Math.min(next, first);
+        }
+    }
+
+    private int[] count(Element element)
+    {
+        int start = element.getStartOffset();
+        int length = element.getEndOffset() - 1 - start;
+
+        if (length > TokenCache.MAX_LINE)
+        {
+            return NONE;
+        }
+
+        try
+        {
+            doc.getText(start, length, segment);
+        }
+        catch (BadLocationException ex)
+        {
+            Logger.getLogger(DocumentWords.class.getName()).log(Level.SEVERE, null, ex);
+            return NONE;
+        }
+
+        int[] ids = index.add(segment.array, segment.offset, segment.count);
+        return (ids != null) ? ids : NONE;
+    }
+
+    // background pass
+    private synchronized void schedule()
+    {
+        if (!isRunning && !isClosed && (next < lines))
+        {
+            isRunning = true;
+            COUNTER.execute(this::run);
+        }
+    }
+
+    private void run()
+    {
+        doc.render(this::countChunk);
+
+        synchronized (this)
+        {
+            isRunning = false;
+        }
+
+        schedule();
+    }
+
+    // read lock held
+    private synchronized void countChunk()
+    {
+        Element root = doc.getDefaultRootElement();
+        int line = next;
+
+        for (int done = 0; (done < CHUNK) && (line < lines) && !isClosed; line++)
+        {
+            if (words[line] == null)
+            {
+                words[line] = count(root.getElement(line));
+                done++;
+            }
+        }
+
+        next = line;
+    }
+}
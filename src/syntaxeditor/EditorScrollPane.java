@@ -0,0 +1,91 @@
+package syntaxeditor;
+
+import java.awt.Container;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import javax.swing.JScrollBar;
+import javax.swing.ScrollPaneLayout;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rtextarea.RTextScrollPane;
+
+// scroll pane with a minimap beside the text, whose vertical scroll bar shows where the find bar matches are
+public class EditorScrollPane extends RTextScrollPane
+{
+    private final Minimap minimap;
+    private boolean[] marks; // one flag per slice of the document's lines
+
+    public EditorScrollPane(RSyntaxTextArea textArea)
+    {
+        super(textArea);
+
+        minimap = new Minimap(textArea, getViewport());
+        add(minimap);
+        setLayout(new MinimapLayout());
+    }
+
+    public void setMarks(boolean[] marks)
+    {
+        this.marks = marks;
+        getVerticalScrollBar().repaint();
+    }
+
+    @Override
+    public JScrollBar createVerticalScrollBar()
+    {
+        return new MarkedScrollBar();
+    }
+
+    // the usual layout, then the right edge of the viewport is given to the minimap
+    private class MinimapLayout extends ScrollPaneLayout
+    {
+        @Override
+        public void layoutContainer(Container parent)
+        {
+            super.layoutContainer(parent);
+
+            Rectangle bounds = viewport.getBounds();
+            int width = Math.min(Minimap.WIDTH, bounds.width / 4);
+
+            viewport.setBounds(bounds.x, bounds.y, bounds.width - width, bounds.height);
+            minimap.setBounds(bounds.x + bounds.width - width, bounds.y, width, bounds.height);
+        }
+    }
+
+    private class MarkedScrollBar extends ScrollBar
+    {
+        MarkedScrollBar()
+        {
+            super(JScrollBar.VERTICAL);
+        }
+
+        @Override
+        public void paint(Graphics g)
+        {
+            super.paint(g);
+
+            if (marks == null)
+            {
+                return;
+            }
+
+            // leave the arrow buttons alone, they are about as tall as the bar is wide
+            int top = getWidth();
+            int track = getHeight() - 2 * top;
+
+            if (track <= 0)
+            {
+                return;
+            }
+
+            g.setColor(((RSyntaxTextArea) getTextArea()).getMarkAllHighlightColor().darker());
+
+            for (int i = 0; i < marks.length; i++)
+            {
+                if (marks[i])
+                {
+                    g.fillRect(2, top + (int) ((long) i * track / marks.length), getWidth() - 4, 2);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package syntaxeditor;
+
+import java.awt.event.ActionEvent;
+import javax.swing.JComponent;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Element;
+import javax.swing.text.View;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextAreaUI;
+import org.fife.ui.rtextarea.RTextAreaUI;
+
+/*
+ * the text area of a tab, switching to LongLineView once any line grows past TokenCache.MAX_LINE
+ *
+ * the switch is made while the edit that brought the long line is still being announced, before
+ * the old view gets to lay it out; folding, bracket matching and marked occurrences would go over
+ * whole lines, so they are turned off with it. once edits stop, the lines are looked over again,
+ * and with no long line left the usual view and those settings come back
+ */
+public class EditorTextArea extends RSyntaxTextArea
+{
+    private static final int RECHECK_DELAY = 500; // ms without edits before long line mode is reconsidered
+
+    private UI ui;
+    private boolean isLongLineMode;
+    private final Timer recheckTimer;
+    private boolean wasFolding; // settings from before long line mode
+    private boolean wasMarking;
+    private boolean wasMatching;
+
+    public EditorTextArea()
+    {
+        recheckTimer = new Timer(RECHECK_DELAY, (ActionEvent e) ->
+        {
+            recheck();
+        });
+        recheckTimer.setRepeats(false);
+
+        // notified ahead of the ui, which was listening first
+        getDocument().addDocumentListener(new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                checkLines(e.getOffset(), e.getOffset() + e.getLength());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e)
+            {
+                checkLines(e.getOffset(), e.getOffset());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e)
+            {
+            }
+        });
+    }
+
+    @Override
+    protected RTextAreaUI createRTextAreaUI()
+    {
+        ui = new UI(this);
+        return ui;
+    }
+
+    public boolean isLongLineMode()
+    {
+        return isLongLineMode;
+    }
+
+    private void checkLines(int start, int end)
+    {
+        if (isLongLineMode)
+        {
+            // the long lines may be the ones just edited or removed
+            recheckTimer.restart();
+            return;
+        }
+
+        Element root = getDocument().getDefaultRootElement();
+
+        for (int line = root.getElementIndex(start); line <= root.getElementIndex(end); line++)
+        {
+            if (isLong(root.getElement(line)))
+            {
+                isLongLineMode = true;
+                wasFolding = isCodeFoldingEnabled();
+                wasMarking = getMarkOccurrences();
+                wasMatching = isBracketMatchingEnabled();
+                setCodeFoldingEnabled(false);
+                setMarkOccurrences(false);
+                setBracketMatchingEnabled(false);
+                ui.modelChanged();
+                return;
+            }
+        }
+    }
+
+    // edt, outside any edit; only element offsets are read, no text
+    private void recheck()
+    {
+        Element root = getDocument().getDefaultRootElement();
+
+        for (int line = 0; line < root.getElementCount(); line++)
+        {
+            if (isLong(root.getElement(line)))
+            {
+                return;
+            }
+        }
+
+        isLongLineMode = false;
+        ui.modelChanged();
+        setCodeFoldingEnabled(wasFolding);
+        setMarkOccurrences(wasMarking);
+        setBracketMatchingEnabled(wasMatching);
+    }
+
+    private static boolean isLong(Element element)
+    {
+        return element.getEndOffset() - element.getStartOffset() > TokenCache.MAX_LINE;
+    }
+
+    private class UI extends RSyntaxTextAreaUI
+    {
+        UI(JComponent textArea)
+        {
+            super(textArea);
+        }
+
+        @Override
+        public View create(Element elem)
+        {
+            return isLongLineMode ? new LongLineView(elem) : super.create(elem);
+        }
+
+        // here for the text area, which is in this package
+        @Override
+        protected void modelChanged()
+        {
+            super.modelChanged();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package syntaxeditor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// headless batch mode: SyntaxEditor --export <output dir> [--theme <name>] <file or folder>...
+public class Exporter
+{
+    private static final int BATCH = 4; // files per fork-join leaf
+    private static final int BINARY_CHECK = 8192; // leading bytes checked for NUL
+
+    private final HtmlRenderer renderer;
+    private final File outputDir;
+    private final List<File> files = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final Set<String> usedNames = new HashSet<>(); // lower case, as output folders may ignore case
+    private final AtomicInteger failed = new AtomicInteger();
+    private final ThreadLocal<StringBuilder> builders = ThreadLocal.withInitial(() -> new StringBuilder(1 << 16));
+
+    public Exporter(HtmlRenderer renderer, File outputDir)
+    {
+        this.renderer = renderer;
+        this.outputDir = outputDir;
+    }
+
+    public void add(File file)
+    {
+        if (file.isDirectory())
+        {
+            addFolder(file, getUniqueName(file.getName()) + File.separator);
+        }
+        else if (file.isFile())
+        {
+            files.add(file);
+            names.add(getUniqueName(file.getName()));
+        }
+    }
+
+    private void addFolder(File folder, String prefix)
+    {
+        File[] entries = folder.listFiles();
+
+        if (entries == null)
+        {
+            return;
+        }
+
+        for (File entry : entries)
+        {
+            if (entry.isDirectory())
+            {
+                // .git, .svn and the like
+                if (!entry.getName().startsWith("."))
+                {
+                    addFolder(entry, prefix + entry.getName() + File.separator);
+                }
+            }
+            else
+            {
+                files.add(entry);
+                names.add(getUniqueName(prefix + entry.getName()));
+            }
+        }
+    }
+
+    // inputs of the same name from different places get a number, Foo.java then Foo-2.java
+    private String getUniqueName(String name)
+    {
+        int dot = name.lastIndexOf('.');
+        int slash = name.lastIndexOf(File.separatorChar);
+        String base = (dot > slash + 1) ? name.substring(0, dot) : name;
+        String extension = (dot > slash + 1) ? name.substring(dot) : "";
+        String unique = name;
+
+        for (int n = 2; !usedNames.add(unique.toLowerCase()); n++)
+        {
+            unique = base + "-" + n + extension;
+        }
+
+        return unique;
+    }
+
+    // returns the number of files that could not be exported
+    public int run()
+    {
+        new ForkJoinPool().invoke(new ExportTask(0, files.size()));
+        return failed.get();
+    }
+
+    private void export(int index)
+    {
+        File file = files.get(index);
+        File target = new File(outputDir, names.get(index) + ".html");
+
+        try
+        {
+            byte[] content = Files.readAllBytes(file.toPath());
+
+            if (isBinary(content))
+            {
+                return;
+            }
+
+            CharBuffer chars = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(content));
+            StringBuilder out = builders.get();
+
+            out.setLength(0);
+            out.append("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>");
+            HtmlRenderer.appendEscaped(out, names.get(index));
+            out.append("</title><style>\n").append(renderer.getStyleSheet()).append("</style></head><body>\n");
+            renderer.render(chars.array(), chars.limit(), Languages.detect(file.getName(), chars).getSyntax(), out);
+            out.append("\n</body></html>\n");
+
+            target.getParentFile().mkdirs();
+
+            try (Writer writer = new OutputStreamWriter(Files.newOutputStream(target.toPath()), StandardCharsets.UTF_8))
+            {
+                writer.append(out);
+            }
+        }
+        catch (IOException ex)
+        {
+            failed.incrementAndGet();
+            Logger.getLogger(Exporter.class.getName()).log(Level.SEVERE, file.getPath(), ex);
+        }
+    }
+
+    private static boolean isBinary(byte[] content)
+    {
+        for (int i = 0; i < Math.min(content.length, BINARY_CHECK); i++)
+        {
+            if (content[i] == 0)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private class ExportTask extends RecursiveAction
+    {
+        private final int start;
+        private final int end;
+
+        ExportTask(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (end - start <= BATCH)
+            {
+                for (int i = start; i < end; i++)
+                {
+                    export(i);
+                }
+            }
+            else
+            {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ExportTask(start, middle), new ExportTask(middle, end));
+            }
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        String theme = "light";
+        List<File> inputs = new ArrayList<>();
+        int i = 1; // args[0] is --export
+
+        if (args.length < 3)
+        {
+            System.err.println("Usage: SyntaxEditor --export <output dir> [--theme <name>] <file or folder>...");
+            System.exit(1);
+        }
+
+        File outputDir = new File(args[i++]);
+
+        if ((i + 1 < args.length) && args[i].equals("--theme"))
+        {
+            theme = args[i + 1];
+            i += 2;
+        }
+
+        for (; i < args.length; i++)
+        {
+            inputs.add(new File(args[i]));
+        }
+
+        try
+        {
+            Exporter exporter = new Exporter(new HtmlRenderer(theme), outputDir);
+            inputs.forEach(exporter::add);
+            System.exit(exporter.run() == 0 ? 0 : 2);
+        }
+        catch (IOException ex)
+        {
+            Logger.getLogger(Exporter.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        }
+    }
+}
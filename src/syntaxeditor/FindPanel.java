@@ -1,28 +1,59 @@
 package syntaxeditor;
 
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ItemEvent;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rtextarea.SearchContext;
 import org.fife.ui.rtextarea.SearchEngine;
 
 public class FindPanel extends JFrame implements ActionListener
 {
+    private static final int MAX_CACHED = 1 << 20; // matches, more are searched for on every Previous
+
     private RSyntaxTextArea textArea;
     private final JTextField searchField;
     private final JTextField replaceField;
     private final JCheckBox regexCB;
     private final JCheckBox matchCaseCB;
     private final JCheckBox wholeWordCB;
+    private final IncrementalSearch incrementalSearch;
+    private final MarkAll marker;
+    private LiteralMatcher literalMatcher;
+    private Pattern pattern;
+    private String searchKey;
+    private Document markedDoc;
+    private RegexWorker regexWorker;
+    private final DocumentListener editListener;
+    private Document cacheDoc; // listened to while matches of it are cached or being found
+    private int cacheEdits; // bumped by every edit of cacheDoc
+    private Pattern cachePattern;
+    private int[] cachedMatches; // start, end of every match of cachePattern in cacheDoc, null if not known
 
     public FindPanel(RSyntaxTextArea textArea, JTextField searchField, JTextField replaceField,
             JButton nextButton, JButton prevButton, JButton replaceButton, 
             JButton replaceAllButton, JCheckBox regexCB, JCheckBox matchCaseCB,
-            JCheckBox wholeWordCB)
+            JCheckBox wholeWordCB, JLabel matchCountLabel)
     {
         this.textArea = textArea;
         this.searchField = searchField;
@@ -36,6 +67,22 @@ public class FindPanel extends JFrame implements ActionListener
             nextButton.doClick(0);
         });
 
+        incrementalSearch = new IncrementalSearch(this, searchField);
+        marker = new MarkAll(matchCountLabel);
+
+        for (JCheckBox checkBox : new JCheckBox[] { regexCB, matchCaseCB, wholeWordCB })
+        {
+            checkBox.addItemListener((ItemEvent e) ->
+            {
+                incrementalSearch.reset();
+
+                if (searchField.isShowing())
+                {
+                    markAll();
+                }
+            });
+        }
+
         nextButton.setActionCommand("FindNext");
         nextButton.addActionListener(this);
         prevButton.setActionCommand("FindPrev");
@@ -44,6 +91,26 @@ public class FindPanel extends JFrame implements ActionListener
         replaceButton.addActionListener(this);
         replaceAllButton.setActionCommand("ReplaceAll");
         replaceAllButton.addActionListener(this);
+
+        editListener = new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                dropMatches();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e)
+            {
+                dropMatches();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e)
+            {
+            }
+        };
     }
 
     @Override
@@ -72,41 +139,537 @@ public class FindPanel extends JFrame implements ActionListener
             
             if ("ReplaceNext".equals(command))
             {
-                if (SearchEngine.replace(textArea, context).getMatchRange() == null)
+                if (prepare(context))
+                    replaceNext(replaceText);
+            }
+            else
+            {
+                try
+                {
+                    new ReplaceAllWorker(textArea, createPattern(), replaceText, isRegex()).start();
+                }
+                catch (PatternSyntaxException ex)
                 {
-                    textArea.setCaretPosition(0);
-                    SearchEngine.replace(textArea, context);
+                    UIManager.getLookAndFeel().provideErrorFeedback(searchField);
                 }
             }
+        }
+        else if (prepare(context))
+        {
+            find(forward);
+        }
+    }
+
+    // compiles the query and marks all occurrences once per change, not on every Next
+    private boolean prepare(SearchContext context)
+    {
+        String key = context.getSearchFor() + '\0' + context.getMatchCase() + context.getWholeWord()
+                + context.isRegularExpression();
+        Document doc = textArea.getDocument();
+
+        if (!key.equals(searchKey) || (markedDoc != doc))
+        {
+            try
+            {
+                pattern = context.isRegularExpression() ? createPattern() : null;
+                literalMatcher = context.isRegularExpression() ? null
+                        : new LiteralMatcher(context.getSearchFor(), context.getMatchCase(), context.getWholeWord());
+            }
+            catch (PatternSyntaxException ex)
+            {
+                searchKey = null;
+                UIManager.getLookAndFeel().provideErrorFeedback(searchField);
+                return false;
+            }
+
+            searchKey = key;
+            markedDoc = doc;
+            marker.start(textArea, pattern, literalMatcher);
+        }
+
+        return true;
+    }
+
+    private void find(boolean forward)
+    {
+        if (pattern != null)
+        {
+            watch(textArea.getDocument());
+            startWorker(new RegexWorker(forward, null));
+            return;
+        }
+
+        try
+        {
+            int[] match = locate(literalMatcher, null, new DocumentCharSequence(textArea.getDocument()), forward,
+                    textArea.getSelectionStart(), textArea.getSelectionEnd());
+
+            if (match != null)
+                select(textArea, match[0], match[1]);
             else
-                SearchEngine.replaceAll(textArea, context);
+                UIManager.getLookAndFeel().provideErrorFeedback(searchField);
+        }
+        catch (BadLocationException ex)
+        {
+            Logger.getLogger(FindPanel.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    // replaces the first match at or after the selection start, wrapping around once
+    private void replaceNext(String replaceText)
+    {
+        if (pattern != null)
+        {
+            startWorker(new RegexWorker(true, replaceText));
+            return;
+        }
+
+        try
+        {
+            CharSequence text = new DocumentCharSequence(textArea.getDocument());
+            int from = textArea.getSelectionStart();
+            int[] match;
+
+            if (((match = search(literalMatcher, null, text, from, true)) == null)
+                    && ((match = search(literalMatcher, null, text, 0, true)) == null))
+            {
+                UIManager.getLookAndFeel().provideErrorFeedback(searchField);
+                return;
+            }
+
+            replace(textArea, match, replaceText);
         }
-        else if (SearchEngine.find(textArea, context).getMatchRange() == null)
+        catch (BadLocationException ex)
         {
-            if (forward)
-                textArea.setCaretPosition(0);
+            Logger.getLogger(FindPanel.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    private static void replace(RSyntaxTextArea textArea, int[] match, String replacement)
+    {
+        textArea.beginAtomicEdit();
+
+        try
+        {
+            textArea.replaceRange(replacement, match[0], match[1]);
+        }
+        finally
+        {
+            textArea.endAtomicEdit();
+        }
+
+        textArea.setCaretPosition(match[0] + replacement.length());
+    }
+
+    private void startWorker(RegexWorker worker)
+    {
+        cancelWorker();
+        regexWorker = worker;
+        worker.start();
+    }
+
+    // the cancelled worker's done() runs later, maybe after a newer one has started, so it is put back here
+    private void cancelWorker()
+    {
+        if (regexWorker != null)
+        {
+            regexWorker.cancel(true);
+            regexWorker.restore();
+            regexWorker = null;
+        }
+    }
+
+    // a regex can only be run forward, so going backward every match of the pattern is kept until the next edit
+    private void watch(Document doc)
+    {
+        if (cacheDoc != doc)
+        {
+            if (cacheDoc != null)
+            {
+                cacheDoc.removeDocumentListener(editListener);
+            }
+
+            cacheDoc = doc;
+            cacheDoc.addDocumentListener(editListener);
+            dropMatches();
+        }
+    }
+
+    private void dropMatches()
+    {
+        cachedMatches = null;
+        cachePattern = null;
+        cacheEdits++;
+    }
+
+    // start, end of every match in order, null if there are more than MAX_CACHED
+    private static int[] findAll(Pattern pattern, GuardedCharSequence text)
+    {
+        Matcher regex = pattern.matcher(text);
+        int[] matches = new int[64];
+        int count = 0;
+
+        while (regex.find())
+        {
+            if (count == matches.length)
+            {
+                if (count >= MAX_CACHED * 2)
+                {
+                    return null;
+                }
+
+                matches = Arrays.copyOf(matches, count * 2);
+            }
+
+            matches[count++] = regex.start();
+            matches[count++] = regex.end();
+        }
+
+        return Arrays.copyOf(matches, count);
+    }
+
+    // the last match starting at or before from, wrapping around to the last one of all, as locate goes backward
+    private static int[] previous(int[] matches, int from)
+    {
+        int low = 0;
+        int high = matches.length / 2 - 1;
+        int found = -1;
+
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (matches[middle * 2] <= from)
+            {
+                found = middle;
+                low = middle + 1;
+            }
             else
-                textArea.setCaretPosition(textArea.getText().length());
+            {
+                high = middle - 1;
+            }
+        }
 
-            SearchEngine.find(textArea, context);
+        if (found < 0)
+        {
+            found = matches.length / 2 - 1;
         }
+
+        return (found < 0) ? null : new int[] { matches[found * 2], matches[found * 2 + 1] };
     }
-    
+
+    // the match after the selection, or before it going backward, wrapping around once
+    private static int[] locate(LiteralMatcher literal, Pattern pattern, CharSequence text, boolean forward,
+            int selectionStart, int selectionEnd)
+    {
+        int[] match;
+
+        if (forward)
+        {
+            match = search(literal, pattern, text, selectionEnd, true);
+
+            // step over an empty match that is already selected
+            if ((match != null) && (match[0] == match[1]) && (match[0] == selectionStart)
+                    && (selectionEnd < text.length()))
+                match = search(literal, pattern, text, selectionEnd + 1, true);
+
+            if (match == null)
+                match = search(literal, pattern, text, 0, true);
+        }
+        else
+        {
+            match = search(literal, pattern, text, selectionStart - 1, false);
+
+            if (match == null)
+                match = search(literal, pattern, text, text.length(), false);
+        }
+
+        return match;
+    }
+
+    // {start, end} of the first match at or after from, or of the last one starting at or before it;
+    // literal is used instead of pattern when not null
+    private static int[] search(LiteralMatcher literal, Pattern pattern, CharSequence text, int from, boolean forward)
+    {
+        if (literal != null)
+        {
+            int start = forward ? literal.indexOf(text, from) : literal.lastIndexOf(text, from);
+            return (start < 0) ? null : new int[] { start, start + literal.length() };
+        }
+
+        Matcher regex = pattern.matcher(text);
+
+        if (forward)
+        {
+            return regex.find(from) ? new int[] { regex.start(), regex.end() } : null;
+        }
+
+        int start = -1;
+        int end = -1;
+
+        while (regex.find() && (regex.start() <= from))
+        {
+            start = regex.start();
+            end = regex.end();
+        }
+
+        return (start < 0) ? null : new int[] { start, end };
+    }
+
+    static void select(RSyntaxTextArea textArea, int start, int end)
+    {
+        try
+        {
+            textArea.select(start, end);
+            Rectangle rect = textArea.modelToView(start);
+
+            if (rect != null)
+            {
+                textArea.scrollRectToVisible(rect);
+            }
+        }
+        catch (BadLocationException ex)
+        {
+            Logger.getLogger(FindPanel.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
     public void endSearch()
     {
-        SearchContext context = new SearchContext();
-        context.setSearchFor("");
-        SearchEngine.find(textArea, context);
+        cancelWorker();
+        searchKey = null;
+        marker.clear();
+
+        if (cacheDoc != null)
+        {
+            cacheDoc.removeDocumentListener(editListener);
+            cacheDoc = null;
+            dropMatches();
+        }
     }
     
+    Pattern createPattern() throws PatternSyntaxException
+    {
+        return SearchPattern.compile(searchField.getText(), regexCB.isSelected(),
+                matchCaseCB.isSelected(), wholeWordCB.isSelected());
+    }
+
+    // restarts counting and marking for the current query, options and tab
+    void markAll()
+    {
+        try
+        {
+            if (searchField.getText().isEmpty())
+            {
+                marker.clear();
+            }
+            else
+            {
+                marker.start(textArea, regexCB.isSelected() ? createPattern() : null, createLiteralMatcher());
+            }
+        }
+        catch (PatternSyntaxException ex)
+        {
+            marker.clear();
+        }
+    }
+
+    // null in regex mode
+    LiteralMatcher createLiteralMatcher()
+    {
+        if (regexCB.isSelected())
+        {
+            return null;
+        }
+
+        return new LiteralMatcher(searchField.getText(), matchCaseCB.isSelected(), wholeWordCB.isSelected());
+    }
+
     // setters, getters
     public void setTextArea(RSyntaxTextArea textArea)
     {
+        cancelWorker();
         this.textArea = textArea;
+        incrementalSearch.reset();
+
+        if (searchField.isShowing())
+        {
+            markAll();
+        }
     }
     
     public RSyntaxTextArea getTextArea()
     {
         return this.textArea;
     }
+
+    public boolean isRegex()
+    {
+        return regexCB.isSelected();
+    }
+
+    public boolean isWholeWord()
+    {
+        return wholeWordCB.isSelected();
+    }
+
+    // a regex can backtrack for ages, so Next, Previous and Replace run it here within GuardedCharSequence.BUDGET
+    private class RegexWorker extends SwingWorker<int[], Void>
+    {
+        private final RSyntaxTextArea textArea = FindPanel.this.textArea;
+        private final Document doc = textArea.getDocument();
+        private final Pattern pattern = FindPanel.this.pattern;
+        private final boolean forward;
+        private final String replaceText; // null when only finding
+        private final int selectionStart = textArea.getSelectionStart();
+        private final int selectionEnd = textArea.getSelectionEnd();
+        private final int edits = cacheEdits;
+        private int[] matches = ((cacheDoc == doc) && (cachePattern == pattern)) ? cachedMatches : null;
+        private boolean isNewMatches; // found here, to be cached if the text is still the same
+        private int[] match;
+        private String replacement;
+
+        RegexWorker(boolean forward, String replaceText)
+        {
+            this.forward = forward;
+            this.replaceText = replaceText;
+        }
+
+        void start()
+        {
+            // the match must still be there when it is replaced
+            if (replaceText != null)
+            {
+                textArea.setEditable(false);
+            }
+
+            execute();
+        }
+
+        void restore()
+        {
+            if (replaceText != null)
+            {
+                textArea.setEditable(true);
+            }
+        }
+
+        @Override
+        protected int[] doInBackground()
+        {
+            // searched in a copy, so typing is not held up by the read lock while the regex runs
+            String[] copy = new String[1];
+
+            doc.render(()
+                    -> 
+                    {
+                        try
+                        {
+                            copy[0] = doc.getText(0, doc.getLength());
+                        }
+                        catch (BadLocationException ex)
+                        {
+                            Logger.getLogger(FindPanel.class.getName()).log(Level.SEVERE, null, ex);
+                        }
+            });
+
+            if (copy[0] == null)
+            {
+                return null;
+            }
+
+            // one budget for the whole search, however many matches it goes over
+            GuardedCharSequence text = new GuardedCharSequence(copy[0]);
+
+            if (!forward && (replaceText == null))
+            {
+                if (matches == null)
+                {
+                    matches = findAll(pattern, text);
+                    isNewMatches = matches != null;
+                }
+
+                if (matches != null)
+                {
+                    match = previous(matches, selectionStart - 1);
+                    return match;
+                }
+            }
+
+            if (replaceText == null)
+            {
+                match = locate(null, pattern, text, forward, selectionStart, selectionEnd);
+                return match;
+            }
+
+            Matcher matcher = pattern.matcher(text);
+            boolean isFound = matcher.find(selectionStart);
+
+            if (!isFound && (selectionStart > 0))
+            {
+                isFound = matcher.find(0);
+            }
+
+            if (isFound)
+            {
+                match = new int[] { matcher.start(), matcher.end() };
+                replacement = SearchEngine.getReplacementText(matcher, replaceText);
+            }
+
+            return match;
+        }
+
+        @Override
+        protected void done()
+        {
+            // cancelled, cancelWorker has already put things back
+            if (this != regexWorker)
+            {
+                return;
+            }
+
+            regexWorker = null;
+            restore();
+
+            if (isCancelled() || (textArea != FindPanel.this.textArea))
+            {
+                return;
+            }
+
+            if (isNewMatches && (cacheDoc == doc) && (cacheEdits == edits))
+            {
+                cachePattern = pattern;
+                cachedMatches = matches;
+            }
+
+            try
+            {
+                get();
+
+                if (match == null)
+                    UIManager.getLookAndFeel().provideErrorFeedback(searchField);
+                else if (replaceText == null)
+                    select(textArea, match[0], match[1]);
+                else
+                    replace(textArea, match, replacement);
+            }
+            catch (ExecutionException ex)
+            {
+                if (ex.getCause() instanceof GuardedCharSequence.BudgetExceededException)
+                {
+                    JOptionPane.showMessageDialog(searchField, "The regular expression took longer than "
+                            + GuardedCharSequence.BUDGET + " ms on this document and was stopped.\n"
+                            + "Try a more specific pattern.", "Find", JOptionPane.WARNING_MESSAGE);
+                }
+                else
+                {
+                    Logger.getLogger(FindPanel.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                Logger.getLogger(FindPanel.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
 }
@@ -21,39 +21,74 @@ import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.PatternSyntaxException;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
 import javax.swing.JRadioButtonMenuItem;
+import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import org.fife.com.swabunga.spell.engine.SpellDictionary;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
 import org.fife.ui.rsyntaxtextarea.Theme;
-import org.fife.ui.rsyntaxtextarea.spell.SpellingParser;
 import org.fife.ui.rtextarea.RTextScrollPane;
+import syntaxeditor.Languages.Language;
 import static syntaxeditor.SyntaxEditor.DICTIONARY_DIR;
 import static syntaxeditor.SyntaxEditor.DIRECTORY;
 import static syntaxeditor.SyntaxEditor.THEME_DIR;
 
 public class Frame extends JFrame
 {
+    private static final long EXIT_TIMEOUT = 800; // ms
+    private static final int MAX_INDEXED = 1 << 20; // chars of a file kept in the history index
+
     private Tab currentTab;
     private Database db;
     private LinkedHashMap<RTextScrollPane, Tab> tabMap;
     private LinkedHashMap<String, String> themeMap;
+    private final Map<Language, JRadioButtonMenuItem> syntaxButtons = new HashMap<>();
     private FindPanel panel;
     private String currentTheme;
-    private SpellingParser parser;
+    private SpellDictionary dictionary; // shared by the spelling parsers of all tabs
     private File lastSavePath;
     private File lastOpenPath;
-    private boolean isDictionary = true;
+    private Database indexDb;
+    private SearchResults searchResults;
+    private BatchReplace batchReplace;
+    private Outline outline;
+    private GoToSymbol goToSymbol;
+    private final WordIndex wordIndex = new WordIndex(); // words of all tabs, for completion
+    private final ExecutorService indexService = Executors.newSingleThreadExecutor((Runnable r)
+            -> 
+            {
+                Thread thread = new Thread(r, "Index");
+                thread.setDaemon(true);
+                return thread;
+    });
+    private final AtomicBoolean isFlushed = new AtomicBoolean();
+    private final List<String> lastBuffers = new ArrayList<>(); // untitled buffers the history started with
 
     // performance testing
     long startTime;
@@ -64,29 +99,44 @@ public class Frame extends JFrame
         try
         {
             LinkedHashMap<String, Integer> history;
-            ArrayList<File> deleteList = new ArrayList();
             tabMap = new LinkedHashMap();
             themeMap = new LinkedHashMap();
             db = new Database();
 
             db.open();
+            BackgroundFoldParser.install();
             initComponents();
             findPanel.setVisible(false);
             replacePanel.setVisible(false);
 
+            // Syntax menu items are matched to their language by name
+            for (Component item : syntaxMenu.getMenuComponents())
+            {
+                if (item instanceof JRadioButtonMenuItem)
+                {
+                    JRadioButtonMenuItem button = (JRadioButtonMenuItem) item;
+                    Language language = Languages.forName(button.getText());
+
+                    if (language != null)
+                    {
+                        syntaxButtons.put(language, button);
+                    }
+                }
+            }
+
             File dic = new File(DICTIONARY_DIR);
 
             if (dic.exists())
             {
-                parser = SpellingParser.createEnglishSpellingParser(dic, false);
+                dictionary = DawgDictionary.english(dic, false);
             }
             else
             {
                 englishSpellingMenuItem.setEnabled(false);
-                isDictionary = false;
             }
 
             enableDragAndDrop(this);
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "Shutdown"));
             tabbedPane.setFocusable(false);
 
             for (String title : db.getThemeTitles())
@@ -97,6 +147,17 @@ public class Frame extends JFrame
             currentTheme = db.getSelectedTheme();
             updateThemeMenu();
             history = db.getHistory();
+            deleteParts();
+
+            // buffers of the last session are deleted on exit, once the new history no longer needs them
+            for (Map.Entry<String, Integer> entry : history.entrySet())
+            {
+                if (entry.getValue() == 0)
+                {
+                    lastBuffers.add(entry.getKey());
+                }
+            }
+
             createTab();
 
             if (!history.isEmpty())
@@ -125,6 +186,7 @@ public class Frame extends JFrame
                             {
                                 if (!firstFile)
                                 {
+                                    tabMap.values().forEach(Tab::close);
                                     tabMap.clear();
                                     createTab();
                                     tabbedPane.remove(tabbedPane.getSelectedIndex() - 1);
@@ -135,9 +197,10 @@ public class Frame extends JFrame
                                     createTab();
                                 }
 
-                                deleteList.add(file);
                                 String content = new String(Files.readAllBytes(Paths.get(entry.getKey())), StandardCharsets.UTF_8);
                                 fillText(content);
+                                currentTab.setPath(entry.getKey()); // written over on exit
+
                             }
                             catch (IOException ex)
                             {
@@ -154,14 +217,8 @@ public class Frame extends JFrame
                         panel = new FindPanel(currentTab.getTextArea(), findTextField,
                                 replaceTextField, findNextButton, findPreviousButton,
                                 replaceButton, replaceAllButton, regexCB, matchCaseCB,
-                                wholeWordCB);
-
-                        for (int i = 0; i < deleteList.size(); i++)
-                        {
-                            deleteList.get(i).delete();
-                        }
+                                wholeWordCB, matchCountLabel);
 
-                        db.clearHistory();
                         db.close();
             });
         }
@@ -176,8 +233,8 @@ public class Frame extends JFrame
     {
         try
         {
-            RSyntaxTextArea textArea = new RSyntaxTextArea();
-            Tab tab = new Tab(textArea);
+            RSyntaxTextArea textArea = new EditorTextArea();
+            Tab tab = new Tab(textArea, wordIndex);
             InputStream in = getClass().getResourceAsStream(themeMap.get(currentTheme));
             Theme theme = Theme.load(in);
 
@@ -186,7 +243,7 @@ public class Frame extends JFrame
             enableDragAndDrop(textArea);
 
             theme.apply(textArea);
-            RTextScrollPane sp = new RTextScrollPane(textArea);
+            RTextScrollPane sp = new EditorScrollPane(textArea);
 
             tab.setPath(DIRECTORY + "history/" + Long.toString(System.currentTimeMillis()) + ".txt");
             tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_NONE);
@@ -201,188 +258,12 @@ public class Frame extends JFrame
         }
     }
 
-    private void initTab(Tab tab, String title, String path)
+    private void initTab(Tab tab, String title, String path, String text)
     {
-        String[] tokens = title.split("\\.(?=[^\\.]+$)");
-        String extension = tokens[tokens.length - 1];
-
         tab.setTitle(title);
         tab.setPath(path);
         tab.setStatus(true);
-
-        switch (extension)
-        {
-            case "as":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_ACTIONSCRIPT);
-                break;
-            case "asm":
-            case "inc":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_ASSEMBLER_X86);
-                break;
-            case "bat":
-            case "cmd":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_WINDOWS_BATCH);
-                break;
-            case "c":
-            case "h":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_C);
-                break;
-            case "cs":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_CSHARP);
-                break;
-            case "cpp":
-            case "cc":
-            case "cxx":
-            case "c++":
-            case "hpp":
-            case "hh":
-            case "hxx":
-            case "h++":
-            case "inl":
-            case "ipp":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_CPLUSPLUS);
-                break;
-            case "css":
-            case "csserb":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_CSS);
-                break;
-            case "dpr":
-            case "lpr":
-            case "pp":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_DELPHI);
-                break;
-            case "html":
-            case "htm":
-            case "shtml":
-            case "xhtml":
-            case "tpml":
-            case "tpl":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_HTML);
-                break;
-            case "java":
-            case "bsh":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_JAVA);
-                break;
-            case "js":
-            case "htc":
-            case "jsx":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_JAVASCRIPT);
-                break;
-            case "json":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_JSON);
-                break;
-            case "tex":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_LATEX);
-                break;
-            case "lisp":
-            case "cl":
-            case "l":
-            case "mud":
-            case "el":
-            case "scm":
-            case "ss":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_LISP);
-                break;
-            case "lua":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_LUA);
-                break;
-            case "make":
-            case "GNUmakefile":
-            case "makefile":
-            case "Makefile":
-            case "OCamIMakefile":
-            case "mak":
-            case "mk":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_MAKEFILE);
-                break;
-            case "pl":
-            case "pm":
-            case "pod":
-            case "t":
-            case "PL":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_PERL);
-                break;
-            case "php":
-            case "php3":
-            case "php4":
-            case "php5":
-            case "php7":
-            case "phpt":
-            case "phtml":
-            case "aw":
-            case "ctp":
-            case "install":
-            case "module":
-            case "profile":
-            case "php_cs":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_PHP);
-                break;
-            case "py":
-            case "rpy":
-            case "pyw":
-            case "cpy":
-            case "SConstruct":
-            case "Sconstruct":
-            case "sconstruct":
-            case "SConscript":
-            case "gyp":
-            case "gypi":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_PYTHON);
-                break;
-            case "rb":
-            case "rbx":
-            case "rjs":
-            case "RakeFile":
-            case "rake":
-            case "cgi":
-            case "fcgi":
-            case "gemspec":
-            case "irbrc":
-            case "capfile":
-            case "Gemfile":
-            case "Vagrantfile":
-            case "configru":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_RUBY);
-                break;
-            case "scala":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_SCALA);
-                break;
-            case "sql":
-            case "ddl":
-            case "dml":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_SQL);
-                break;
-            case "tcl":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_TCL);
-                break;
-            case "sh":
-            case "bash":
-            case "zsh":
-            case ".bash_aliases":
-            case ".bash_functions":
-            case ".bash_login":
-            case ".bash_logout":
-            case ".bash_profile":
-            case ".bash_variables":
-            case ".bashrc":
-            case ".profile":
-            case ".textmate_init":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_UNIX_SHELL);
-                break;
-            case "xml":
-            case "xsd":
-            case "tld":
-            case "dtml":
-            case "rss":
-            case "opml":
-            case "xslt":
-            case "svg":
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_XML);
-                break;
-            default:
-                tab.setSyntax(SyntaxConstants.SYNTAX_STYLE_NONE);
-                break;
-        }
+        tab.setSyntax(Languages.detect(title, text).getSyntax());
     }
 
     private void updateTab()
@@ -396,6 +277,11 @@ public class Frame extends JFrame
         updateSyntax(currentTab.getSyntax());
         updateSpellingMenu();
 
+        if (outline != null)
+        {
+            outline.setTab(currentTab);
+        }
+
         if (panel != null)
         {
             panel.setTextArea(currentTab.getTextArea());
@@ -449,9 +335,10 @@ public class Frame extends JFrame
             try
             {
                 String name = file.getName();
+                String content = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
 
                 createTab();
-                initTab(currentTab, name, file.getPath());
+                initTab(currentTab, name, file.getPath(), content);
                 int index = tabbedPane.getTabCount() - 1;
 
                 if (name.length() > 38)
@@ -462,15 +349,15 @@ public class Frame extends JFrame
                 tabbedPane.setTitleAt(index, name);
                 tabbedPane.setSelectedIndex(index);
 
-                String content = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
                 fillText(content);
+                indexFile(path, content);
 
                 if (isEmpty)
                 {
                     RTextScrollPane sp = (RTextScrollPane) tabbedPane.
                             getComponentAt(emptyIndex);
 
-                    tabMap.remove(sp);
+                    tabMap.remove(sp).close();
                     tabbedPane.remove(emptyIndex);
                 }
 
@@ -548,7 +435,7 @@ public class Frame extends JFrame
             else
             {
                 chooser.setSelectedFile(new File("Untitled."
-                        + getSuggestedExtension(currentTab.getSyntax())));
+                        + Languages.forSyntax(currentTab.getSyntax()).getExtension()));
             }
 
             if (lastSavePath != null)
@@ -565,8 +452,9 @@ public class Frame extends JFrame
                 String path = file.getPath();
 
                 lastSavePath = file.getParentFile();
-                initTab(currentTab, name, path);
+                initTab(currentTab, name, path, text);
                 save(text, path);
+                indexFile(path, text);
 
                 if (name.length() > 38)
                 {
@@ -587,6 +475,7 @@ public class Frame extends JFrame
         else
         {
             save(text, currentTab.getPath());
+            indexFile(currentTab.getPath(), text);
         }
     }
 
@@ -604,69 +493,10 @@ public class Frame extends JFrame
             deleteTemp(path);
         }
 
-        tabMap.remove(sp);
+        tabMap.remove(sp).close();
         tabbedPane.remove(tabbedPane.getSelectedIndex());
     }
 
-    private String getSuggestedExtension(String syntax)
-    {
-        switch (syntax)
-        {
-            case SyntaxConstants.SYNTAX_STYLE_ACTIONSCRIPT:
-                return "as";
-            case SyntaxConstants.SYNTAX_STYLE_ASSEMBLER_X86:
-                return "asm";
-            case SyntaxConstants.SYNTAX_STYLE_WINDOWS_BATCH:
-                return "bat";
-            case SyntaxConstants.SYNTAX_STYLE_C:
-                return "c";
-            case SyntaxConstants.SYNTAX_STYLE_CSHARP:
-                return "cs";
-            case SyntaxConstants.SYNTAX_STYLE_CPLUSPLUS:
-                return "cpp";
-            case SyntaxConstants.SYNTAX_STYLE_CSS:
-                return "css";
-            case SyntaxConstants.SYNTAX_STYLE_DELPHI:
-                return "dpr";
-            case SyntaxConstants.SYNTAX_STYLE_HTML:
-                return "html";
-            case SyntaxConstants.SYNTAX_STYLE_JAVA:
-                return "java";
-            case SyntaxConstants.SYNTAX_STYLE_JAVASCRIPT:
-                return "js";
-            case SyntaxConstants.SYNTAX_STYLE_JSON:
-                return "json";
-            case SyntaxConstants.SYNTAX_STYLE_LATEX:
-                return "tex";
-            case SyntaxConstants.SYNTAX_STYLE_LISP:
-                return "lisp";
-            case SyntaxConstants.SYNTAX_STYLE_LUA:
-                return "lua";
-            case SyntaxConstants.SYNTAX_STYLE_MAKEFILE:
-                return "make";
-            case SyntaxConstants.SYNTAX_STYLE_PERL:
-                return "pl";
-            case SyntaxConstants.SYNTAX_STYLE_PHP:
-                return "php";
-            case SyntaxConstants.SYNTAX_STYLE_PYTHON:
-                return "py";
-            case SyntaxConstants.SYNTAX_STYLE_RUBY:
-                return "rb";
-            case SyntaxConstants.SYNTAX_STYLE_SCALA:
-                return "scala";
-            case SyntaxConstants.SYNTAX_STYLE_SQL:
-                return "sql";
-            case SyntaxConstants.SYNTAX_STYLE_TCL:
-                return "tcl";
-            case SyntaxConstants.SYNTAX_STYLE_UNIX_SHELL:
-                return "sh";
-            case SyntaxConstants.SYNTAX_STYLE_XML:
-                return "xml";
-            default:
-                return "txt";
-        }
-    }
-
     private void fillText(String buffer)
     {
         currentTab.setText(buffer);
@@ -684,12 +514,18 @@ public class Frame extends JFrame
     }
 
     public void openFolder(final File folder)
+    {
+        openFiles(folder);
+        TrigramIndex.forFolder(folder).updateLater();
+    }
+
+    private void openFiles(final File folder)
     {
         for (final File fileEntry : folder.listFiles())
         {
             if (fileEntry.isDirectory())
             {
-                openFolder(fileEntry);
+                openFiles(fileEntry);
             }
             else
             {
@@ -698,10 +534,272 @@ public class Frame extends JFrame
         }
     }
 
+    // history index
+    private Database getIndexDb() // index thread only
+    {
+        if (indexDb == null)
+        {
+            indexDb = new Database();
+            indexDb.open();
+        }
+
+        return indexDb;
+    }
+
+    private void indexFile(String path, String text)
+    {
+        // only the start of a very large file is searchable
+        String indexed = (text.length() > MAX_INDEXED) ? text.substring(0, MAX_INDEXED) : text;
+
+        indexService.execute(()
+                -> 
+                {
+                    if (isFlushed.get())
+                    {
+                        return; // left to the next session's opening of the file
+                    }
+
+                    getIndexDb().touchRecent(path);
+                    getIndexDb().indexContent(path, indexed);
+        });
+    }
+
+    // queried on its own connection, so the edt never waits behind files being indexed
+    private void searchHistory()
+    {
+        String text = JOptionPane.showInputDialog(this, "Text to find in opened files "
+                + "(empty for recent files):", "Search History", JOptionPane.PLAIN_MESSAGE);
+
+        if (text == null)
+        {
+            return;
+        }
+
+        new SwingWorker<LinkedHashMap<String, String>, Object>()
+        {
+            @Override
+            protected LinkedHashMap<String, String> doInBackground()
+            {
+                Database query = new Database();
+
+                query.open();
+
+                try
+                {
+                    if (text.trim().isEmpty())
+                    {
+                        LinkedHashMap<String, String> map = new LinkedHashMap<>();
+
+                        for (String path : query.getRecent(50))
+                        {
+                            map.put(path, "");
+                        }
+
+                        return map;
+                    }
+
+                    return query.searchContent(text, 50);
+                }
+                finally
+                {
+                    query.close();
+                }
+            }
+
+            @Override
+            protected void done()
+            {
+                try
+                {
+                    showHistory(text, get());
+                }
+                catch (InterruptedException | ExecutionException ex)
+                {
+                    Logger.getLogger(Frame.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        }.execute();
+    }
+
+    private void showHistory(String text, LinkedHashMap<String, String> results)
+    {
+        if (results.isEmpty())
+        {
+            setStatusLabel("Nothing Found '" + text + "'", 5000);
+            return;
+        }
+
+        List<String> paths = new ArrayList<>(results.keySet());
+        String[] items = new String[paths.size()];
+
+        for (int i = 0; i < items.length; i++)
+        {
+            String snippet = results.get(paths.get(i)).replaceAll("\\s+", " ");
+            items[i] = snippet.isEmpty() ? paths.get(i) : paths.get(i) + "   " + snippet;
+        }
+
+        JList<String> list = new JList<>(items);
+        list.setSelectedIndex(0);
+
+        int option = JOptionPane.showConfirmDialog(this, new JScrollPane(list),
+                "Search History", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if ((option == JOptionPane.OK_OPTION) && (list.getSelectedIndex() >= 0))
+        {
+            File file = new File(paths.get(list.getSelectedIndex()));
+
+            if (file.exists())
+            {
+                open(file);
+            }
+        }
+    }
+
+    // multi-document search
+    private SearchResults getSearchResults()
+    {
+        if (searchResults == null)
+        {
+            searchResults = new SearchResults(this::openResult);
+        }
+
+        return searchResults;
+    }
+
+    // the tab with the result's path, else the file at it
+    private void openResult(SearchResults.Result result)
+    {
+        String path = result.getPath();
+        boolean isOpen = false;
+
+        for (Map.Entry<RTextScrollPane, Tab> entry : tabMap.entrySet())
+        {
+            if (path.equals(entry.getValue().getPath()))
+            {
+                tabbedPane.setSelectedComponent(entry.getKey());
+                isOpen = true;
+                break;
+            }
+        }
+
+        if (!isOpen)
+        {
+            File file = new File(path);
+
+            // an untitled tab's buffer is not a file of its own
+            if (!file.isFile() || path.startsWith(DIRECTORY + "history/"))
+            {
+                setStatusLabel("Tab Closed", 5000);
+                return;
+            }
+
+            open(file);
+        }
+
+        if (!result.isHeader())
+        {
+            RSyntaxTextArea textArea = currentTab.getTextArea();
+            int length = textArea.getDocument().getLength();
+
+            FindPanel.select(textArea, Math.min(result.getStart(), length), Math.min(result.getEnd(), length));
+        }
+
+        toFront();
+        currentTab.getTextArea().requestFocusInWindow();
+    }
+
+    // symbols of the current tab
+    private void openSymbol(Symbols.Symbol symbol)
+    {
+        RSyntaxTextArea textArea = currentTab.getTextArea();
+        Element root = textArea.getDocument().getDefaultRootElement();
+
+        if (symbol.getLine() < root.getElementCount())
+        {
+            Element line = root.getElement(symbol.getLine());
+            int start = Math.min(line.getStartOffset() + symbol.getColumn(), line.getEndOffset() - 1);
+            int end = (symbol.getKind() == Symbols.HEADING) ? start
+                    : Math.min(start + symbol.getName().length(), line.getEndOffset() - 1);
+
+            FindPanel.select(textArea, start, end);
+        }
+
+        toFront();
+        textArea.requestFocusInWindow();
+    }
+
+    private void findInTabs()
+    {
+        String text = findTextField.getText();
+
+        if (text.isEmpty())
+        {
+            findMenuItemActionPerformed(null);
+            return;
+        }
+
+        try
+        {
+            new MultiSearch(panel.createPattern(), panel.createLiteralMatcher(), getSearchResults(), text)
+                    .searchTabs(new ArrayList<>(tabMap.values()));
+        }
+        catch (PatternSyntaxException ex)
+        {
+            setStatusLabel("Invalid Regular Expression", 5000);
+        }
+    }
+
+    private void findInFiles()
+    {
+        String text = findTextField.getText();
+
+        if (text.isEmpty())
+        {
+            findMenuItemActionPerformed(null);
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        chooser.setDialogTitle("Find '" + text + "' in Folder");
+
+        if (lastOpenPath != null)
+        {
+            chooser.setCurrentDirectory(lastOpenPath);
+        }
+
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION)
+        {
+            return;
+        }
+
+        try
+        {
+            new MultiSearch(panel.createPattern(), panel.createLiteralMatcher(), getSearchResults(), text)
+                    .searchFolder(chooser.getSelectedFile());
+        }
+        catch (PatternSyntaxException ex)
+        {
+            setStatusLabel("Invalid Regular Expression", 5000);
+        }
+    }
+
+    private void showBatchReplace()
+    {
+        if (batchReplace == null)
+        {
+            batchReplace = new BatchReplace(() -> currentTab, () -> new ArrayList<>(tabMap.values()));
+            batchReplace.setLocationRelativeTo(this);
+        }
+
+        batchReplace.setVisible(true);
+        batchReplace.toFront();
+    }
+
     // syntax
     private void updateSyntax(String syntax)
     {
-        JRadioButtonMenuItem syntaxButton;
+        Language language = Languages.forSyntax(syntax);
         RSyntaxTextArea textArea = currentTab.getTextArea();
 
         currentTab.setSyntax(syntax);
@@ -717,159 +815,11 @@ public class Frame extends JFrame
             textArea.setWrapStyleWord(false);
         }
 
-        switch (syntax)
-        {
-            case SyntaxConstants.SYNTAX_STYLE_ACTIONSCRIPT:
-                syntaxLabel.setText("ActionScript");
-                syntaxButton = actionscriptMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_ASSEMBLER_X86:
-                syntaxLabel.setText("Assembly x86");
-                syntaxButton = assemblyMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_WINDOWS_BATCH:
-                syntaxLabel.setText("Batch File");
-                syntaxButton = batchfileMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_C:
-                syntaxLabel.setText("C");
-                syntaxButton = cMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_CSHARP:
-                syntaxLabel.setText("C#");
-                syntaxButton = csharpMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_CPLUSPLUS:
-                syntaxLabel.setText("C++");
-                syntaxButton = cppMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_CSS:
-                syntaxLabel.setText("CSS");
-                syntaxButton = cssMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_DELPHI:
-                syntaxLabel.setText("Delphi");
-                syntaxButton = delphiMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_HTML:
-                syntaxLabel.setText("HTML");
-                syntaxButton = htmlMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_JAVA:
-                syntaxLabel.setText("Java");
-                syntaxButton = javaMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_JAVASCRIPT:
-                syntaxLabel.setText("JavaScript");
-                syntaxButton = javascriptMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_JSON:
-                syntaxLabel.setText("JSON");
-                syntaxButton = jsonMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_LATEX:
-                syntaxLabel.setText("LaTex");
-                syntaxButton = latexMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_LISP:
-                syntaxLabel.setText("Lisp");
-                syntaxButton = lispMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_LUA:
-                syntaxLabel.setText("Lua");
-                syntaxButton = luaMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_MAKEFILE:
-                syntaxLabel.setText("Makefile");
-                syntaxButton = makefileMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_PERL:
-                syntaxLabel.setText("Perl");
-                syntaxButton = perlMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_PHP:
-                syntaxLabel.setText("PHP");
-                syntaxButton = phpMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_PYTHON:
-                syntaxLabel.setText("Python");
-                syntaxButton = pythonMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_RUBY:
-                syntaxLabel.setText("Ruby");
-                syntaxButton = rubyMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_SCALA:
-                syntaxLabel.setText("Scala");
-                syntaxButton = scalaMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_SQL:
-                syntaxLabel.setText("SQL");
-                syntaxButton = sqlMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_TCL:
-                syntaxLabel.setText("TCL");
-                syntaxButton = tclButton;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_UNIX_SHELL:
-                syntaxLabel.setText("Unix Shell");
-                syntaxButton = unixshellMenuItem;
-                break;
-            case SyntaxConstants.SYNTAX_STYLE_XML:
-                syntaxLabel.setText("XML");
-                syntaxButton = xmlMenuItem;
-                break;
-            default:
-                syntaxLabel.setText("Plain Text");
-                syntaxButton = plaintextMenuItem;
-                break;
-        }
+        syntaxLabel.setText(language.getName());
 
-        actionscriptMenuItem.setSelected(false);
-        assemblyMenuItem.setSelected(false);
-        batchfileMenuItem.setSelected(false);
-        cMenuItem.setSelected(false);
-        csharpMenuItem.setSelected(false);
-        cppMenuItem.setSelected(false);
-        cssMenuItem.setSelected(false);
-        delphiMenuItem.setSelected(false);
-        htmlMenuItem.setSelected(false);
-        javaMenuItem.setSelected(false);
-        javascriptMenuItem.setSelected(false);
-        jsonMenuItem.setSelected(false);
-        latexMenuItem.setSelected(false);
-        lispMenuItem.setSelected(false);
-        luaMenuItem.setSelected(false);
-        makefileMenuItem.setSelected(false);
-        plaintextMenuItem.setSelected(false);
-        perlMenuItem.setSelected(false);
-        phpMenuItem.setSelected(false);
-        pythonMenuItem.setSelected(false);
-        rubyMenuItem.setSelected(false);
-        scalaMenuItem.setSelected(false);
-        sqlMenuItem.setSelected(false);
-        tclButton.setSelected(false);
-        unixshellMenuItem.setSelected(false);
-        xmlMenuItem.setSelected(false);
-
-        syntaxButton.setSelected(true);
-
-        if (isDictionary)
-        {
-            if (syntaxButton != plaintextMenuItem)
-            {
-                if (!currentTab.getSpelling().equals(""))
-                {
-                    currentTab.getTextArea().removeParser(parser);
-                    currentTab.setSpelling("");
-                    updateSpellingMenu();
-                }
-                englishSpellingMenuItem.setEnabled(false);
-            }
-            else
-            {
-                englishSpellingMenuItem.setEnabled(true);
-            }
+        for (Map.Entry<Language, JRadioButtonMenuItem> entry : syntaxButtons.entrySet())
+        {
+            entry.getValue().setSelected(entry.getKey() == language);
         }
     }
 
@@ -1021,6 +971,14 @@ public class Frame extends JFrame
         }
     }
 
+    private void removeSpelling(Tab tab)
+    {
+        tab.getTextArea().removeParser(tab.getSpellingParser());
+        tab.getSpellingParser().close();
+        tab.setSpellingParser(null);
+        tab.setSpelling("");
+    }
+
     private String shortenText(String text, int length)
     {
         return text.substring(0, length - 1) + "...";
@@ -1041,27 +999,153 @@ public class Frame extends JFrame
     public void exit()
     {
         this.setVisible(false);
-        db.open();
+        flush();
+        System.exit(0);
+    }
 
-        tabMap.entrySet().stream().forEach((entry)
+    // also run from the shutdown hook, so a logout kill gets the same treatment; buffers are written
+    // within the time budget, the history always, and the last session's buffers deleted only after it
+    private void flush()
+    {
+        if (!isFlushed.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(EXIT_TIMEOUT);
+        LinkedHashMap<String, Integer> history = new LinkedHashMap<>();
+        List<Runnable> tasks = new ArrayList<>();
+
+        for (Tab tab : new ArrayList<>(tabMap.values()))
+        {
+            String path = tab.getPath();
+
+            if (tab.getTitle() != null)
+            {
+                history.put(path, 1);
+                continue;
+            }
+
+            String text = readText(tab);
+
+            if (text.length() > 0)
+            {
+                history.put(path, 0);
+                tasks.add(() -> writeBuffer(text, path));
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(tasks.size(),
+                Runtime.getRuntime().availableProcessors())), (Runnable r)
                 -> 
                 {
-                    String text = entry.getValue().getText();
+                    Thread thread = new Thread(r, "Flush");
+                    thread.setDaemon(true);
+                    return thread;
+        });
 
-                    if (entry.getValue().getTitle() != null)
-                    {
-                        db.insertFile(entry.getValue().getPath(), 1);
-                    }
-                    else if (text.length() > 0)
+        tasks.forEach(pool::execute);
+        pool.shutdown();
+
+        // indexing still queued is skipped, only the file being indexed is waited for
+        indexService.execute(()
+                -> 
+                {
+                    if (indexDb != null)
                     {
-                        save(text, entry.getValue().getPath());
-                        db.insertFile(entry.getValue().getPath(), 0);
+                        indexDb.close();
                     }
         });
+        indexService.shutdown();
+
+        try
+        {
+            if (!pool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+            {
+                Logger.getLogger(Frame.class.getName()).log(Level.WARNING,
+                        "Exit timed out, buffers not written keep their last session's text");
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(Frame.class.getName()).log(Level.SEVERE, null, ex);
+        }
 
+        // history starts no new buffer that was not written, a buffer file missing is skipped on startup
+        db.open();
+        db.replaceHistory(history);
         db.setTheme(currentTheme);
         db.close();
-        System.exit(0);
+
+        for (String path : lastBuffers)
+        {
+            if (!history.containsKey(path))
+            {
+                new File(path).delete();
+            }
+        }
+
+        try
+        {
+            indexService.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(Frame.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    // the shutdown hook runs off the edt, so the text is read under the document lock
+    private static String readText(Tab tab)
+    {
+        Document doc = tab.getTextArea().getDocument();
+        StringBuilder text = new StringBuilder();
+
+        doc.render(()
+                -> 
+                {
+                    try
+                    {
+                        text.append(doc.getText(0, doc.getLength()));
+                    }
+                    catch (BadLocationException ex)
+                    {
+                        Logger.getLogger(Frame.class.getName()).log(Level.SEVERE, null, ex);
+                    }
+        });
+
+        return text.toString();
+    }
+
+    // written next to the target and moved over it, so an interrupted write never leaves half a buffer
+    private static void writeBuffer(String text, String path)
+    {
+        try
+        {
+            Path target = Paths.get(path);
+            Path part = Paths.get(path + ".part");
+
+            Files.write(part, text.getBytes(StandardCharsets.UTF_8));
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException ex)
+        {
+            Logger.getLogger(Frame.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    // left by buffer writes an exit cut short
+    private static void deleteParts()
+    {
+        File[] parts = new File(DIRECTORY + "history/").listFiles((File dir, String name) -> name.endsWith(".part"));
+
+        if (parts != null)
+        {
+            for (File part : parts)
+            {
+                part.delete();
+            }
+        }
     }
 
     // Generated methods
@@ -1099,6 +1183,7 @@ public class Frame extends JFrame
         findPanel = new javax.swing.JPanel();
         statusLabel1 = new javax.swing.JLabel();
         findTextField = new javax.swing.JTextField();
+        matchCountLabel = new javax.swing.JLabel();
         jLabel2 = new javax.swing.JLabel();
         findNextButton = new javax.swing.JButton();
         jLabel3 = new javax.swing.JLabel();
@@ -1138,10 +1223,17 @@ public class Frame extends JFrame
         copyMenuItem = new javax.swing.JMenuItem();
         pasteMenuItem = new javax.swing.JMenuItem();
         selectAllMenuItem = new javax.swing.JMenuItem();
+        completeWordMenuItem = new javax.swing.JMenuItem();
         findMenu = new javax.swing.JMenu();
         findMenuItem = new javax.swing.JMenuItem();
         findNextMenuItem = new javax.swing.JMenuItem();
         findPreviousMenuItem = new javax.swing.JMenuItem();
+        historyMenuItem = new javax.swing.JMenuItem();
+        findTabsMenuItem = new javax.swing.JMenuItem();
+        findFilesMenuItem = new javax.swing.JMenuItem();
+        batchReplaceMenuItem = new javax.swing.JMenuItem();
+        goToSymbolMenuItem = new javax.swing.JMenuItem();
+        outlineMenuItem = new javax.swing.JMenuItem();
         jSeparator2 = new javax.swing.JPopupMenu.Separator();
         replaceMenuItem = new javax.swing.JMenuItem();
         replaceNextMenuItem = new javax.swing.JMenuItem();
@@ -1253,6 +1345,10 @@ public class Frame extends JFrame
         findPanel.add(statusLabel1);
         findPanel.add(findTextField);
 
+        matchCountLabel.setFont(new java.awt.Font("Dialog", 0, 10)); // NOI18N
+        matchCountLabel.setText(" ");
+        findPanel.add(matchCountLabel);
+
         jLabel2.setText("   ");
         findPanel.add(jLabel2);
 
@@ -1504,6 +1600,17 @@ public class Frame extends JFrame
         });
         editMenu.add(selectAllMenuItem);
 
+        completeWordMenuItem.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_SPACE, java.awt.event.InputEvent.CTRL_MASK));
+        completeWordMenuItem.setText("Complete Word");
+        completeWordMenuItem.addActionListener(new java.awt.event.ActionListener()
+        {
+            public void actionPerformed(java.awt.event.ActionEvent evt)
+            {
+                completeWordMenuItemActionPerformed(evt);
+            }
+        });
+        editMenu.add(completeWordMenuItem);
+
         jMenuBar1.add(editMenu);
 
         findMenu.setText("Find");
@@ -1540,6 +1647,71 @@ public class Frame extends JFrame
             }
         });
         findMenu.add(findPreviousMenuItem);
+
+        historyMenuItem.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_F, java.awt.event.InputEvent.SHIFT_MASK | java.awt.event.InputEvent.CTRL_MASK));
+        historyMenuItem.setText("Search History...");
+        historyMenuItem.addActionListener(new java.awt.event.ActionListener()
+        {
+            public void actionPerformed(java.awt.event.ActionEvent evt)
+            {
+                historyMenuItemActionPerformed(evt);
+            }
+        });
+        findMenu.add(historyMenuItem);
+
+        findTabsMenuItem.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_F, java.awt.event.InputEvent.ALT_MASK | java.awt.event.InputEvent.CTRL_MASK));
+        findTabsMenuItem.setText("Find in Open Tabs");
+        findTabsMenuItem.addActionListener(new java.awt.event.ActionListener()
+        {
+            public void actionPerformed(java.awt.event.ActionEvent evt)
+            {
+                findTabsMenuItemActionPerformed(evt);
+            }
+        });
+        findMenu.add(findTabsMenuItem);
+
+        findFilesMenuItem.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_F, java.awt.event.InputEvent.ALT_MASK | java.awt.event.InputEvent.SHIFT_MASK | java.awt.event.InputEvent.CTRL_MASK));
+        findFilesMenuItem.setText("Find in Files...");
+        findFilesMenuItem.addActionListener(new java.awt.event.ActionListener()
+        {
+            public void actionPerformed(java.awt.event.ActionEvent evt)
+            {
+                findFilesMenuItemActionPerformed(evt);
+            }
+        });
+        findMenu.add(findFilesMenuItem);
+
+        batchReplaceMenuItem.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_H, java.awt.event.InputEvent.CTRL_MASK));
+        batchReplaceMenuItem.setText("Batch Replace...");
+        batchReplaceMenuItem.addActionListener(new java.awt.event.ActionListener()
+        {
+            public void actionPerformed(java.awt.event.ActionEvent evt)
+            {
+                batchReplaceMenuItemActionPerformed(evt);
+            }
+        });
+        findMenu.add(batchReplaceMenuItem);
+
+        goToSymbolMenuItem.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_O, java.awt.event.InputEvent.SHIFT_MASK | java.awt.event.InputEvent.CTRL_MASK));
+        goToSymbolMenuItem.setText("Go to Symbol...");
+        goToSymbolMenuItem.addActionListener(new java.awt.event.ActionListener()
+        {
+            public void actionPerformed(java.awt.event.ActionEvent evt)
+            {
+                goToSymbolMenuItemActionPerformed(evt);
+            }
+        });
+        findMenu.add(goToSymbolMenuItem);
+
+        outlineMenuItem.setText("Outline");
+        outlineMenuItem.addActionListener(new java.awt.event.ActionListener()
+        {
+            public void actionPerformed(java.awt.event.ActionEvent evt)
+            {
+                outlineMenuItemActionPerformed(evt);
+            }
+        });
+        findMenu.add(outlineMenuItem);
         findMenu.add(jSeparator2);
 
         replaceMenuItem.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_G, java.awt.event.InputEvent.CTRL_MASK));
@@ -2125,13 +2297,16 @@ public class Frame extends JFrame
     {//GEN-HEADEREND:event_englishSpellingMenuItemActionPerformed
         if (!currentTab.getSpelling().equals("english"))
         {
-            currentTab.getTextArea().addParser(parser);
+            ViewportSpellingParser spellingParser = new ViewportSpellingParser(currentTab.getTextArea(),
+                    currentTab.getTokenCache(), dictionary);
+
+            currentTab.getTextArea().addParser(spellingParser);
+            currentTab.setSpellingParser(spellingParser);
             currentTab.setSpelling("english");
         }
         else
         {
-            currentTab.getTextArea().removeParser(parser);
-            currentTab.setSpelling("");
+            removeSpelling(currentTab);
         }
         updateSpellingMenu();
     }//GEN-LAST:event_englishSpellingMenuItemActionPerformed
@@ -2241,6 +2416,54 @@ public class Frame extends JFrame
         findPanelCloseButton.doClick();
     }//GEN-LAST:event_unmarkMenuItemActionPerformed
 
+    private void historyMenuItemActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_historyMenuItemActionPerformed
+    {//GEN-HEADEREND:event_historyMenuItemActionPerformed
+        searchHistory();
+    }//GEN-LAST:event_historyMenuItemActionPerformed
+
+    private void findTabsMenuItemActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_findTabsMenuItemActionPerformed
+    {//GEN-HEADEREND:event_findTabsMenuItemActionPerformed
+        findInTabs();
+    }//GEN-LAST:event_findTabsMenuItemActionPerformed
+
+    private void findFilesMenuItemActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_findFilesMenuItemActionPerformed
+    {//GEN-HEADEREND:event_findFilesMenuItemActionPerformed
+        findInFiles();
+    }//GEN-LAST:event_findFilesMenuItemActionPerformed
+
+    private void batchReplaceMenuItemActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_batchReplaceMenuItemActionPerformed
+    {//GEN-HEADEREND:event_batchReplaceMenuItemActionPerformed
+        showBatchReplace();
+    }//GEN-LAST:event_batchReplaceMenuItemActionPerformed
+
+    private void goToSymbolMenuItemActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_goToSymbolMenuItemActionPerformed
+    {//GEN-HEADEREND:event_goToSymbolMenuItemActionPerformed
+        if (goToSymbol == null)
+        {
+            goToSymbol = new GoToSymbol(this, this::openSymbol);
+        }
+
+        goToSymbol.open(currentTab);
+    }//GEN-LAST:event_goToSymbolMenuItemActionPerformed
+
+    private void outlineMenuItemActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_outlineMenuItemActionPerformed
+    {//GEN-HEADEREND:event_outlineMenuItemActionPerformed
+        if (outline == null)
+        {
+            outline = new Outline(this::openSymbol);
+            outline.setTab(currentTab);
+            outline.setLocationRelativeTo(this);
+        }
+
+        outline.setVisible(true);
+        outline.toFront();
+    }//GEN-LAST:event_outlineMenuItemActionPerformed
+
+    private void completeWordMenuItemActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_completeWordMenuItemActionPerformed
+    {//GEN-HEADEREND:event_completeWordMenuItemActionPerformed
+        currentTab.getCompletion().show();
+    }//GEN-LAST:event_completeWordMenuItemActionPerformed
+
     public static void main(String args[])
     {
         try
@@ -2271,10 +2494,12 @@ public class Frame extends JFrame
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JRadioButtonMenuItem actionscriptMenuItem;
     private javax.swing.JRadioButtonMenuItem assemblyMenuItem;
+    private javax.swing.JMenuItem batchReplaceMenuItem;
     private javax.swing.JRadioButtonMenuItem batchfileMenuItem;
     private javax.swing.JRadioButtonMenuItem cMenuItem;
     private javax.swing.JMenuItem closeAllMenuItem;
     private javax.swing.JMenuItem closeFileMenuItem;
+    private javax.swing.JMenuItem completeWordMenuItem;
     private javax.swing.JMenuItem copyMenuItem;
     private javax.swing.JRadioButtonMenuItem cppMenuItem;
     private javax.swing.JRadioButtonMenuItem csharpMenuItem;
@@ -2285,6 +2510,7 @@ public class Frame extends JFrame
     private javax.swing.JRadioButtonMenuItem englishSpellingMenuItem;
     private javax.swing.JMenuItem exitMenuItem;
     private javax.swing.JMenu fileMenu;
+    private javax.swing.JMenuItem findFilesMenuItem;
     private javax.swing.JMenu findMenu;
     private javax.swing.JMenuItem findMenuItem;
     private javax.swing.JButton findNextButton;
@@ -2293,7 +2519,10 @@ public class Frame extends JFrame
     private javax.swing.JButton findPanelCloseButton;
     private javax.swing.JButton findPreviousButton;
     private javax.swing.JMenuItem findPreviousMenuItem;
+    private javax.swing.JMenuItem findTabsMenuItem;
     private javax.swing.JTextField findTextField;
+    private javax.swing.JMenuItem goToSymbolMenuItem;
+    private javax.swing.JMenuItem historyMenuItem;
     private javax.swing.JRadioButtonMenuItem htmlMenuItem;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JLabel jLabel10;
@@ -2340,8 +2569,10 @@ public class Frame extends JFrame
     private javax.swing.JRadioButtonMenuItem luaMenuItem;
     private javax.swing.JRadioButtonMenuItem makefileMenuItem;
     private javax.swing.JCheckBox matchCaseCB;
+    private javax.swing.JLabel matchCountLabel;
     private javax.swing.JMenuItem newFileMenuItem;
     private javax.swing.JMenuItem openFileMenuItem;
+    private javax.swing.JMenuItem outlineMenuItem;
     private javax.swing.JMenuItem pasteMenuItem;
     private javax.swing.JRadioButtonMenuItem perlMenuItem;
     private javax.swing.JRadioButtonMenuItem phpMenuItem;
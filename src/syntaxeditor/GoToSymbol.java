@@ -0,0 +1,218 @@
+package syntaxeditor;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.AbstractAction;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+// picks a symbol of the current tab by a few chars of its name, matched in order but not necessarily together
+public class GoToSymbol extends JDialog implements TokenCache.Listener
+{
+    private static final int LIMIT = 500; // rows shown
+
+    private final JTextField queryField = new JTextField();
+    private final Outline.SymbolModel model = new Outline.SymbolModel();
+    private final JList<Symbols.Symbol> list = new JList<>(model);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final Consumer<Symbols.Symbol> opener;
+    private Tab tab;
+
+    public GoToSymbol(JFrame owner, Consumer<Symbols.Symbol> opener)
+    {
+        super(owner, "Go to Symbol");
+        this.opener = opener;
+
+        list.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        list.setFocusable(false);
+        list.setPrototypeCellValue(new Symbols.Symbol("", Symbols.FUNCTION, 0, 0)); // fixed row height
+        list.setCellRenderer(new DefaultListCellRenderer()
+        {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus)
+            {
+                Symbols.Symbol symbol = (Symbols.Symbol) value;
+                String text = String.format("%-40s %6d", symbol.getName(), symbol.getLine() + 1);
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+
+        list.addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mouseClicked(MouseEvent e)
+            {
+                if (e.getClickCount() == 2)
+                {
+                    pick();
+                }
+            }
+        });
+
+        queryField.getDocument().addDocumentListener(new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                update();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e)
+            {
+                update();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e)
+            {
+            }
+        });
+
+        // the list follows the arrow keys while typing goes on in the field
+        queryField.addKeyListener(new KeyAdapter()
+        {
+            @Override
+            public void keyPressed(KeyEvent e)
+            {
+                int index = list.getSelectedIndex();
+
+                switch (e.getKeyCode())
+                {
+                    case KeyEvent.VK_DOWN:
+                        index++;
+                        break;
+                    case KeyEvent.VK_UP:
+                        index--;
+                        break;
+                    case KeyEvent.VK_PAGE_DOWN:
+                        index += list.getVisibleRowCount();
+                        break;
+                    case KeyEvent.VK_PAGE_UP:
+                        index -= list.getVisibleRowCount();
+                        break;
+                    default:
+                        return;
+                }
+
+                select(Math.max(0, Math.min(index, model.getSize() - 1)));
+                e.consume();
+            }
+        });
+
+        queryField.addActionListener((ActionEvent e) ->
+        {
+            pick();
+        });
+
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close");
+        getRootPane().getActionMap().put("close", new AbstractAction()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                setVisible(false);
+            }
+        });
+
+        addWindowListener(new WindowAdapter()
+        {
+            @Override
+            public void windowDeactivated(WindowEvent e)
+            {
+                setVisible(false);
+            }
+        });
+
+        add(queryField, BorderLayout.NORTH);
+        add(new JScrollPane(list), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+        setDefaultCloseOperation(JDialog.HIDE_ON_CLOSE);
+        setSize(450, 400);
+    }
+
+    public void open(Tab tab)
+    {
+        this.tab = tab;
+        tab.getTokenCache().addListener(this);
+
+        queryField.selectAll();
+        update();
+        setLocationRelativeTo(getOwner());
+        setVisible(true);
+        queryField.requestFocusInWindow();
+    }
+
+    @Override
+    public void setVisible(boolean isVisible)
+    {
+        if (!isVisible && (tab != null))
+        {
+            tab.getTokenCache().removeListener(this);
+            tab = null;
+        }
+
+        super.setVisible(isVisible);
+    }
+
+    @Override
+    public void tokensChanged(int firstLine, int lastLine)
+    {
+        update();
+    }
+
+    private void update()
+    {
+        if (tab == null)
+        {
+            return;
+        }
+
+        List<Symbols.Symbol> outline = tab.getTokenCache().getOutline();
+        List<Symbols.Symbol> matches = Symbols.match(outline, queryField.getText().trim(), LIMIT);
+
+        model.set(matches);
+        select(0);
+        statusLabel.setText(matches.size() + ((matches.size() == LIMIT) ? "+" : "") + " of " + outline.size() + " symbols");
+    }
+
+    private void select(int index)
+    {
+        if (index < model.getSize())
+        {
+            list.setSelectedIndex(index);
+            list.ensureIndexIsVisible(index);
+        }
+    }
+
+    private void pick()
+    {
+        Symbols.Symbol symbol = list.getSelectedValue();
+
+        if (symbol != null)
+        {
+            setVisible(false);
+            opener.accept(symbol);
+        }
+    }
+}
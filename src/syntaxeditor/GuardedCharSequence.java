@@ -0,0 +1,73 @@
+package syntaxeditor;
+
+// lets a runaway regex be stopped: reads fail once the budget is spent or the thread is interrupted
+public class GuardedCharSequence implements CharSequence
+{
+    public static final long BUDGET = Long.getLong("syntaxeditor.regexBudget", 2000); // ms per find
+    private static final int CHECK_INTERVAL = 4096; // reads between clock checks
+
+    private final CharSequence text;
+    private final long budget; // ms, 0 to be stopped by an interrupt alone
+    private long deadline;
+    private int reads;
+
+    public GuardedCharSequence(CharSequence text)
+    {
+        this(text, BUDGET);
+    }
+
+    public GuardedCharSequence(CharSequence text, long budget)
+    {
+        this.text = text;
+        this.budget = budget;
+        reset();
+    }
+
+    // starts a new budget, call before each find
+    public void reset()
+    {
+        deadline = (budget > 0) ? System.nanoTime() + budget * 1000000 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int length()
+    {
+        return text.length();
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        if (++reads == CHECK_INTERVAL)
+        {
+            reads = 0;
+
+            if ((System.nanoTime() > deadline) || Thread.currentThread().isInterrupted())
+            {
+                throw new BudgetExceededException();
+            }
+        }
+
+        return text.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        return text.subSequence(start, end);
+    }
+
+    @Override
+    public String toString()
+    {
+        return text.toString();
+    }
+
+    public static class BudgetExceededException extends RuntimeException
+    {
+        public BudgetExceededException()
+        {
+            super("Regular expression exceeded its " + BUDGET + " ms budget");
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package syntaxeditor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import syntaxeditor.Languages.Language;
+
+/*
+ * headless mode: SyntaxEditor --daemon [port] [--theme <name>] [--root <folder>]
+ *
+ * requests, any number per connection, pipelined:
+ *   HTML <id> <syntax or file name> <bytes>\n<utf-8 text>
+ *   SPANS <id> <syntax or file name> <bytes>\n<utf-8 text>
+ *   FILE <id> <html|spans> <path>\n
+ *   STATS <id>\n
+ * FILE is only served with --root, for paths that stay inside that folder once links are resolved
+ * responses, in request order:
+ *   <id> OK|ERR <bytes>\n<utf-8 body>
+ */
+public class HighlightServer
+{
+    private static final int LATENCY_SAMPLES = 4096;
+    private static final int MAX_REQUEST = 64 << 20; // bytes, also the most buffered per connection
+    private static final int MAX_PENDING = 256; // requests answered but not yet sent, per connection
+
+    private final HtmlRenderer renderer;
+    private final Path root; // real path files are served from, null to serve none
+    private final ExecutorService workers;
+    private final long startTime = System.nanoTime();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_SAMPLES);
+    private final ThreadLocal<StringBuilder> builders = ThreadLocal.withInitial(() -> new StringBuilder(1 << 14));
+
+    public HighlightServer(HtmlRenderer renderer, Path root)
+    {
+        this.renderer = renderer;
+        this.root = root;
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    public void serve(int port) throws IOException
+    {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress()))
+        {
+            System.out.println("Listening on port " + server.getLocalPort());
+
+            while (true)
+            {
+                Socket socket = server.accept();
+                Thread thread = new Thread(() -> handle(socket), "Connection");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    // reads and dispatches requests while a writer thread sends answers back in order
+    private void handle(Socket socket)
+    {
+        BlockingQueue<Pending> pending = new LinkedBlockingQueue<>(MAX_PENDING);
+        Semaphore buffered = new Semaphore(MAX_REQUEST); // bytes of request bodies not yet answered
+        Pending end = new Pending(CompletableFuture.completedFuture(null), 0);
+
+        try (Socket s = socket)
+        {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            OutputStream out = new BufferedOutputStream(s.getOutputStream());
+            Thread reader = Thread.currentThread();
+            Thread writer = new Thread(() -> write(pending, end, buffered, out, reader), "Response");
+
+            writer.setDaemon(true);
+            writer.start();
+
+            try
+            {
+                String header;
+
+                while ((header = readLine(in)) != null)
+                {
+                    if (!header.isEmpty())
+                    {
+                        Pending request = dispatch(header, in, buffered);
+
+                        pending.put(request);
+
+                        // a body of unknown length leaves nothing to find the next request by
+                        if (request.length < 0)
+                        {
+                            break;
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                // the writer stops early when the client goes away
+                while (writer.isAlive() && !pending.offer(end, 100, TimeUnit.MILLISECONDS))
+                {
+                }
+
+                writer.join();
+            }
+        }
+        catch (IOException | InterruptedException ex)
+        {
+            Logger.getLogger(HighlightServer.class.getName()).log(Level.FINE, null, ex);
+        }
+    }
+
+    private void write(BlockingQueue<Pending> pending, Pending end, Semaphore buffered, OutputStream out,
+            Thread reader)
+    {
+        try
+        {
+            Pending next;
+
+            while ((next = pending.take()) != end)
+            {
+                out.write((next.stats != null) ? respond(next.stats, "OK", getStats()) : next.response.get());
+                buffered.release(Math.max(next.length, 0));
+
+                // flush once the pipeline drains rather than per response
+                if (pending.isEmpty())
+                {
+                    out.flush();
+                }
+            }
+
+            out.flush();
+        }
+        catch (IOException | InterruptedException | ExecutionException ex)
+        {
+            Logger.getLogger(HighlightServer.class.getName()).log(Level.FINE, null, ex);
+            reader.interrupt(); // it may be waiting for room in the queue or the buffer
+        }
+    }
+
+    private Pending dispatch(String header, DataInputStream in, Semaphore buffered) throws IOException, InterruptedException
+    {
+        long start = System.nanoTime();
+        String[] fields = header.split(" ", 4);
+        String id = (fields.length > 1) ? fields[1] : "-";
+
+        switch (fields[0])
+        {
+            case "HTML":
+            case "SPANS":
+            {
+                int length = getLength(fields);
+
+                if (length < 0)
+                {
+                    return new Pending(CompletableFuture.completedFuture(error(id, "Bad header '" + header + "'")), -1);
+                }
+
+                if (length > MAX_REQUEST)
+                {
+                    skip(in, length);
+                    return new Pending(CompletableFuture.completedFuture(error(id, "Too long " + length)), 0);
+                }
+
+                boolean isHtml = fields[0].equals("HTML");
+                String syntax = getSyntax(fields[2]);
+
+                // waits for earlier answers to be sent before buffering more
+                buffered.acquire(length);
+
+                byte[] body = new byte[length];
+
+                in.readFully(body);
+                return new Pending(CompletableFuture.supplyAsync(() -> highlight(id, body, syntax, isHtml, start), workers)
+                        .exceptionally((Throwable ex) -> error(id, getCause(ex).toString())), length);
+            }
+            case "FILE":
+            {
+                if (fields.length < 4)
+                {
+                    return new Pending(CompletableFuture.completedFuture(error(id, "Bad header '" + header + "'")), 0);
+                }
+
+                if (root == null)
+                {
+                    return new Pending(CompletableFuture.completedFuture(error(id, "No --root to serve files from")), 0);
+                }
+
+                boolean isHtml = fields[2].equals("html");
+                Path file;
+                long size;
+
+                try
+                {
+                    // links are resolved first, so none can lead out of the root
+                    file = root.resolve(fields[3]).toRealPath();
+                    size = Files.size(file);
+                }
+                catch (IOException | RuntimeException ex)
+                {
+                    return new Pending(CompletableFuture.completedFuture(error(id, "Cannot read " + fields[3])), 0);
+                }
+
+                if (!file.startsWith(root) || !Files.isRegularFile(file))
+                {
+                    return new Pending(CompletableFuture.completedFuture(error(id, "Not a file under the root " + fields[3])), 0);
+                }
+
+                if (size > MAX_REQUEST)
+                {
+                    return new Pending(CompletableFuture.completedFuture(error(id, "Too long " + size)), 0);
+                }
+
+                // held like a request body until the answer is sent
+                buffered.acquire((int) size);
+
+                return new Pending(CompletableFuture.supplyAsync(() -> highlightFile(id, file, (int) size, isHtml, start), workers)
+                        .exceptionally((Throwable ex) -> error(id, getCause(ex).toString())), (int) size);
+            }
+            case "STATS":
+                // counted by the writer, once everything requested before it has been answered
+                return new Pending(id);
+            default:
+                return new Pending(CompletableFuture.completedFuture(error(id, "Unknown request '" + fields[0] + "'")), 0);
+        }
+    }
+
+    // the body length of a request, -1 if it has none that can be read
+    private static int getLength(String[] fields)
+    {
+        if (fields.length < 4)
+        {
+            return -1;
+        }
+
+        try
+        {
+            return Integer.parseInt(fields[3]);
+        }
+        catch (NumberFormatException ex)
+        {
+            return -1;
+        }
+    }
+
+    private static void skip(InputStream in, long length) throws IOException
+    {
+        while (length > 0)
+        {
+            long skipped = in.skip(length);
+
+            if (skipped <= 0)
+            {
+                if (in.read() < 0)
+                {
+                    throw new EOFException();
+                }
+
+                skipped = 1;
+            }
+
+            length -= skipped;
+        }
+    }
+
+    private static Throwable getCause(Throwable ex)
+    {
+        return ((ex instanceof CompletionException) && (ex.getCause() != null)) ? ex.getCause() : ex;
+    }
+
+    // accepts a style such as text/java, a language name such as python, or anything with a file extension
+    private static String getSyntax(String language)
+    {
+        if (language.indexOf('/') >= 0)
+        {
+            return language;
+        }
+
+        Language found = Languages.forAlias(language);
+
+        if (found == null)
+        {
+            found = Languages.forFileName(language.indexOf('.') >= 0 ? language : "." + language);
+        }
+
+        return (found != null) ? found.getSyntax() : Languages.PLAIN_TEXT.getSyntax();
+    }
+
+    private byte[] highlight(String id, byte[] body, String syntax, boolean isHtml, long start)
+    {
+        CharBuffer chars = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(body));
+        StringBuilder out = builders.get();
+
+        out.setLength(0);
+
+        if (isHtml)
+        {
+            renderer.render(chars.array(), chars.limit(), syntax, out);
+        }
+        else
+        {
+            renderer.spans(chars.array(), chars.limit(), syntax, out);
+        }
+
+        byte[] response = respond(id, "OK", out);
+        record(start);
+        return response;
+    }
+
+    // no more than size bytes are read, the file may have grown since it was looked at
+    private byte[] highlightFile(String id, Path file, int size, boolean isHtml, long start)
+    {
+        byte[] body = new byte[size];
+        int read = 0;
+
+        try (InputStream in = Files.newInputStream(file))
+        {
+            int n;
+
+            while ((read < size) && ((n = in.read(body, read, size - read)) > 0))
+            {
+                read += n;
+            }
+
+            if ((read == size) && (in.read() >= 0))
+            {
+                return error(id, "Changed while read " + file.getFileName());
+            }
+        }
+        catch (IOException ex)
+        {
+            return error(id, ex.toString());
+        }
+
+        body = Arrays.copyOf(body, read);
+
+        String syntax = Languages.detect(file.getFileName().toString(), StandardCharsets.UTF_8.decode(
+                ByteBuffer.wrap(body, 0, Math.min(read, Languages.SNIFF_LENGTH)))).getSyntax();
+
+        return highlight(id, body, syntax, isHtml, start);
+    }
+
+    private byte[] error(String id, String message)
+    {
+        errors.incrementAndGet();
+        return respond(id, "ERR", message);
+    }
+
+    private static byte[] respond(String id, String status, CharSequence body)
+    {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] head = (id + " " + status + " " + bytes.length + "\n").getBytes(StandardCharsets.UTF_8);
+        byte[] response = Arrays.copyOf(head, head.length + bytes.length);
+
+        System.arraycopy(bytes, 0, response, head.length, bytes.length);
+        return response;
+    }
+
+    private void record(long start)
+    {
+        long count = requests.incrementAndGet();
+        latencies.set((int) ((count - 1) % LATENCY_SAMPLES), System.nanoTime() - start);
+    }
+
+    private String getStats()
+    {
+        long count = requests.get();
+        int samples = (int) Math.min(count, LATENCY_SAMPLES);
+        long[] sorted = new long[samples];
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        for (int i = 0; i < samples; i++)
+        {
+            sorted[i] = latencies.get(i);
+        }
+
+        Arrays.sort(sorted);
+
+        return "requests " + count + "\n"
+                + "errors " + errors.get() + "\n"
+                + "throughput " + String.format("%.1f", count / seconds) + "/s\n"
+                + "p50 " + percentile(sorted, 0.50) + "us\n"
+                + "p99 " + percentile(sorted, 0.99) + "us\n";
+    }
+
+    private static long percentile(long[] sorted, double rank)
+    {
+        if (sorted.length == 0)
+        {
+            return 0;
+        }
+
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(rank * sorted.length) - 1)] / 1000;
+    }
+
+    private static String readLine(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+
+        while ((b = in.read()) != '\n')
+        {
+            if (b < 0)
+            {
+                return (line.size() > 0) ? line.toString("UTF-8") : null;
+            }
+
+            line.write(b);
+        }
+
+        return line.toString("UTF-8").trim();
+    }
+
+    public static void main(String[] args)
+    {
+        String theme = "light";
+        Path root = null;
+        int port = 0;
+        int i = 1; // args[0] is --daemon
+
+        if ((i < args.length) && !args[i].startsWith("--"))
+        {
+            port = Integer.parseInt(args[i++]);
+        }
+
+        try
+        {
+            for (; i + 1 < args.length; i += 2)
+            {
+                if (args[i].equals("--theme"))
+                {
+                    theme = args[i + 1];
+                }
+                else if (args[i].equals("--root"))
+                {
+                    root = Paths.get(args[i + 1]).toRealPath();
+                }
+            }
+
+            new HighlightServer(new HtmlRenderer(theme), root).serve(port);
+        }
+        catch (IOException ex)
+        {
+            Logger.getLogger(HighlightServer.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        }
+    }
+
+    // an answer in the making, with the bytes of its request body it keeps buffered
+    private static class Pending
+    {
+        private final CompletableFuture<byte[]> response;
+        private final int length; // -1 when the stream can not go on after it
+        private final String stats; // id of a stats request
+
+        private Pending(CompletableFuture<byte[]> response, int length)
+        {
+            this.response = response;
+            this.length = length;
+            this.stats = null;
+        }
+
+        private Pending(String stats)
+        {
+            this.response = null;
+            this.length = 0;
+            this.stats = stats;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package syntaxeditor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import javax.swing.text.Segment;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.TokenMaker;
+import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
+import org.fife.ui.rsyntaxtextarea.TokenTypes;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+import static syntaxeditor.SyntaxEditor.THEME_DIR;
+
+// tokenizes with RSyntaxTextArea's token makers and writes themed html, no Swing components involved
+public class HtmlRenderer
+{
+    private final String styleSheet;
+
+    // token makers keep per-line state, so every thread gets its own
+    private final ThreadLocal<Map<String, TokenMaker>> tokenMakers = ThreadLocal.withInitial(HashMap::new);
+    private final ThreadLocal<Segment> segments = ThreadLocal.withInitial(Segment::new);
+
+    public HtmlRenderer(String theme) throws IOException
+    {
+        try (InputStream in = getClass().getResourceAsStream(THEME_DIR + theme + ".xml"))
+        {
+            if (in == null)
+            {
+                throw new IOException("Unknown theme '" + theme + "'");
+            }
+
+            styleSheet = loadStyleSheet(in);
+        }
+    }
+
+    private static String loadStyleSheet(InputStream in) throws IOException
+    {
+        try
+        {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            Document doc = builder.parse(in);
+            StringBuilder css = new StringBuilder();
+            NodeList background = doc.getElementsByTagName("background");
+            NodeList styles = doc.getElementsByTagName("style");
+
+            css.append("pre { font-family: monospace;");
+
+            if (background.getLength() > 0)
+            {
+                css.append(" background: #").append(((Element) background.item(0)).getAttribute("color")).append(';');
+            }
+
+            css.append(" }\n");
+
+            for (int i = 0; i < styles.getLength(); i++)
+            {
+                Element style = (Element) styles.item(i);
+                int type;
+
+                try
+                {
+                    type = TokenTypes.class.getField(style.getAttribute("token")).getInt(null);
+                }
+                catch (NoSuchFieldException | IllegalAccessException ex)
+                {
+                    continue;
+                }
+
+                css.append(".t").append(type).append(" {");
+                appendRule(css, "color: #", style.getAttribute("fg"));
+                appendRule(css, "background: #", style.getAttribute("bg"));
+
+                if ("true".equals(style.getAttribute("bold")))
+                {
+                    css.append(" font-weight: bold;");
+                }
+
+                if ("true".equals(style.getAttribute("italic")))
+                {
+                    css.append(" font-style: italic;");
+                }
+
+                if ("true".equals(style.getAttribute("underline")))
+                {
+                    css.append(" text-decoration: underline;");
+                }
+
+                css.append(" }\n");
+            }
+
+            return css.toString();
+        }
+        catch (ParserConfigurationException | SAXException ex)
+        {
+            throw new IOException(ex);
+        }
+    }
+
+    private static void appendRule(StringBuilder css, String rule, String value)
+    {
+        if (!value.isEmpty())
+        {
+            css.append(' ').append(rule).append(value).append(';');
+        }
+    }
+
+    public String getStyleSheet()
+    {
+        return styleSheet;
+    }
+
+    private TokenMaker getTokenMaker(String syntax)
+    {
+        return tokenMakers.get().computeIfAbsent(syntax, (String key)
+                -> TokenMakerFactory.getDefaultInstance().getTokenMaker(key));
+    }
+
+    // appends text[0, length) as a <pre> block of class-tagged spans
+    public void render(char[] text, int length, String syntax, StringBuilder out)
+    {
+        out.append("<pre>");
+        tokenize(text, length, syntax, out, true);
+        out.append("</pre>");
+    }
+
+    // appends one "offset length type" line per token
+    public void spans(char[] text, int length, String syntax, StringBuilder out)
+    {
+        tokenize(text, length, syntax, out, false);
+    }
+
+    private void tokenize(char[] text, int length, String syntax, StringBuilder out, boolean isHtml)
+    {
+        TokenMaker tokenMaker = getTokenMaker(syntax);
+        Segment segment = segments.get();
+        int lastType = TokenTypes.NULL;
+        int lineStart = 0;
+
+        while (lineStart <= length)
+        {
+            int lineEnd = lineStart;
+
+            while ((lineEnd < length) && (text[lineEnd] != '\n'))
+            {
+                lineEnd++;
+            }
+
+            int contentEnd = ((lineEnd > lineStart) && (text[lineEnd - 1] == '\r')) ? lineEnd - 1 : lineEnd;
+
+            segment.array = text;
+            segment.offset = lineStart;
+            segment.count = contentEnd - lineStart;
+
+            Token token = tokenMaker.getTokenList(segment, lastType, lineStart);
+            lastType = TokenTypes.NULL;
+
+            while ((token != null) && token.isPaintable())
+            {
+                if (isHtml)
+                {
+                    appendToken(out, token);
+                }
+                else if (token.getType() != TokenTypes.WHITESPACE)
+                {
+                    out.append(token.getOffset()).append(' ').append(token.length())
+                            .append(' ').append(token.getType()).append('\n');
+                }
+
+                lastType = token.getType();
+                token = token.getNextToken();
+            }
+
+            // internal types carry multi-line state (unclosed comments, markup)
+            if (token != null)
+            {
+                lastType = token.getType();
+            }
+
+            if (isHtml && (lineEnd < length))
+            {
+                out.append('\n');
+            }
+
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private static void appendToken(StringBuilder out, Token token)
+    {
+        char[] array = token.getTextArray();
+        int start = token.getTextOffset();
+        int end = start + token.length();
+        int type = token.getType();
+        boolean isStyled = (type > TokenTypes.NULL) && (type != TokenTypes.WHITESPACE)
+                && (type < TokenTypes.DEFAULT_NUM_TOKEN_TYPES);
+
+        if (isStyled)
+        {
+            out.append("<span class=\"t").append(type).append("\">");
+        }
+
+        for (int i = start; i < end; i++)
+        {
+            appendEscaped(out, array[i]);
+        }
+
+        if (isStyled)
+        {
+            out.append("</span>");
+        }
+    }
+
+    public static void appendEscaped(StringBuilder out, CharSequence text)
+    {
+        for (int i = 0; i < text.length(); i++)
+        {
+            appendEscaped(out, text.charAt(i));
+        }
+    }
+
+    private static void appendEscaped(StringBuilder out, char c)
+    {
+        switch (c)
+        {
+            case '<':
+                out.append("&lt;");
+                break;
+            case '>':
+                out.append("&gt;");
+                break;
+            case '&':
+                out.append("&amp;");
+                break;
+            case '"':
+                out.append("&quot;");
+                break;
+            default:
+                out.append(c);
+                break;
+        }
+    }
+}
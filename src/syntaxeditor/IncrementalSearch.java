@@ -0,0 +1,299 @@
+package syntaxeditor;
+
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+
+// find as you type: debounced, searched off the EDT, stale searches are cancelled
+public class IncrementalSearch implements DocumentListener
+{
+    private static final int DELAY = 40; // ms
+
+    private final FindPanel panel;
+    private final JTextField searchField;
+    private final Color foreground;
+    private final Timer timer;
+    private final DocumentListener editListener;
+    private SearchWorker worker;
+    private Document snapshotDoc; // listened to from the first search on it
+    private String snapshot; // text of snapshotDoc, dropped on edits
+    private int edits;
+    private String lastQuery = "";
+    private int lastMatch = -1;
+    private int anchor;
+
+    public IncrementalSearch(FindPanel panel, JTextField searchField)
+    {
+        this.panel = panel;
+        this.searchField = searchField;
+        this.foreground = searchField.getForeground();
+
+        timer = new Timer(DELAY, (ActionEvent e) ->
+        {
+            search();
+        });
+        timer.setRepeats(false);
+
+        editListener = new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                snapshot = null;
+                edits++;
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e)
+            {
+                snapshot = null;
+                edits++;
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e)
+            {
+            }
+        };
+
+        searchField.getDocument().addDocumentListener(this);
+        searchField.addFocusListener(new FocusAdapter()
+        {
+            @Override
+            public void focusGained(FocusEvent e)
+            {
+                anchor = panel.getTextArea().getSelectionStart();
+            }
+        });
+    }
+
+    // search field edits
+    @Override
+    public void insertUpdate(DocumentEvent e)
+    {
+        timer.restart();
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e)
+    {
+        timer.restart();
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e)
+    {
+    }
+
+    // options changed or a different tab, earlier results no longer apply
+    public void reset()
+    {
+        lastMatch = -1;
+        anchor = panel.getTextArea().getSelectionStart();
+
+        if (snapshotDoc != panel.getTextArea().getDocument())
+        {
+            dropSnapshot();
+        }
+
+        if (searchField.isFocusOwner())
+        {
+            timer.restart();
+        }
+    }
+
+    private void dropSnapshot()
+    {
+        if (snapshotDoc != null)
+        {
+            snapshotDoc.removeDocumentListener(editListener);
+        }
+
+        snapshotDoc = null;
+        snapshot = null;
+        edits++;
+    }
+
+    // listening before the worker reads the text, so an edit made meanwhile is not missed
+    private void watch(Document doc)
+    {
+        if (snapshotDoc != doc)
+        {
+            dropSnapshot();
+            snapshotDoc = doc;
+            doc.addDocumentListener(editListener);
+        }
+    }
+
+    private void search()
+    {
+        String query = searchField.getText();
+        Pattern pattern = null;
+        LiteralMatcher literal = panel.createLiteralMatcher(); // null for a regex
+
+        if (worker != null)
+        {
+            worker.cancel(true);
+        }
+
+        panel.markAll();
+
+        if (query.isEmpty())
+        {
+            lastQuery = query;
+            lastMatch = -1;
+            searchField.setForeground(foreground);
+            return;
+        }
+
+        try
+        {
+            if (literal == null)
+            {
+                pattern = panel.createPattern();
+            }
+        }
+        catch (PatternSyntaxException ex)
+        {
+            searchField.setForeground(Color.RED);
+            return;
+        }
+
+        // a longer literal can only match where the shorter one did; not so for a whole word, where "ab"
+        // may fail at a place "abc" matches, or a regex, so those start over from the caret
+        boolean isExtension = !panel.isRegex() && !panel.isWholeWord() && (lastMatch >= 0)
+                && query.startsWith(lastQuery);
+        int from = isExtension ? lastMatch : anchor;
+
+        lastQuery = query;
+        watch(panel.getTextArea().getDocument());
+        worker = new SearchWorker(panel.getTextArea(), pattern, literal, from);
+        worker.execute();
+    }
+
+    private class SearchWorker extends SwingWorker<int[], Void>
+    {
+        private final RSyntaxTextArea textArea;
+        private final Document doc;
+        private final Pattern pattern;
+        private final LiteralMatcher literal; // used instead of pattern when not null
+        private final int from;
+        private final int generation;
+        private String text;
+
+        SearchWorker(RSyntaxTextArea textArea, Pattern pattern, LiteralMatcher literal, int from)
+        {
+            this.textArea = textArea;
+            this.doc = textArea.getDocument();
+            this.pattern = pattern;
+            this.literal = literal;
+            this.from = from;
+            this.generation = edits;
+            this.text = (snapshotDoc == doc) ? snapshot : null;
+        }
+
+        @Override
+        protected int[] doInBackground() throws BadLocationException
+        {
+            if (text == null)
+            {
+                text = doc.getText(0, doc.getLength());
+            }
+
+            int start = Math.min(from, text.length());
+
+            if (literal != null)
+            {
+                int found = literal.indexOf(text, start);
+
+                if ((found < 0) && (start > 0))
+                {
+                    found = literal.indexOf(text, 0);
+                    found = (found < start) ? found : -1;
+                }
+
+                return (found < 0) ? null : new int[] { found, found + literal.length() };
+            }
+
+            GuardedCharSequence guarded = new GuardedCharSequence(text);
+            Matcher matcher = pattern.matcher(guarded);
+
+            if (matcher.find(start))
+            {
+                return new int[] { matcher.start(), matcher.end() };
+            }
+
+            guarded.reset();
+
+            if ((start > 0) && matcher.find(0) && (matcher.start() < start))
+            {
+                return new int[] { matcher.start(), matcher.end() };
+            }
+
+            return null;
+        }
+
+        @Override
+        protected void done()
+        {
+            if (isCancelled() || (generation != edits) || (textArea != panel.getTextArea()))
+            {
+                return;
+            }
+
+            try
+            {
+                int[] match = get();
+
+                if (snapshot == null)
+                {
+                    snapshot = text;
+                }
+
+                if (match != null)
+                {
+                    lastMatch = match[0];
+                    searchField.setForeground(foreground);
+                    FindPanel.select(textArea, match[0], match[1]);
+                }
+                else
+                {
+                    lastMatch = -1;
+                    searchField.setForeground(Color.RED);
+                }
+            }
+            catch (ExecutionException ex)
+            {
+                // too slow to search while typing, Next still reports it
+                if (ex.getCause() instanceof GuardedCharSequence.BudgetExceededException)
+                {
+                    lastMatch = -1;
+                    searchField.setForeground(Color.RED);
+                }
+                else
+                {
+                    Logger.getLogger(IncrementalSearch.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                Logger.getLogger(IncrementalSearch.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package syntaxeditor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import static syntaxeditor.SyntaxEditor.DIRECTORY;
+
+// first editor holds the lock and listens on loopback, later launches hand their paths over; only the
+// lock holder ever writes the port file, and a launch trusts a port only once it has answered its token
+public class Instance
+{
+    private static final String LOCK_FILE = DIRECTORY + "instance.lock";
+    private static final String PORT_FILE = DIRECTORY + "instance.port";
+    private static final int CONNECT_TIMEOUT = 500; // ms
+    private static final int FORWARD_TIMEOUT = 10000; // ms, for a first editor still starting up
+    private static final int RETRY_DELAY = 100; // ms
+    private static final String ACCEPTED = "OK";
+
+    private FileChannel channel;
+    private FileLock lock;
+    private ServerSocket server;
+    private String token;
+    private Frame frame; // edt, null until the editor is up
+    private final List<String> waiting = new ArrayList<>(); // edt, paths received before it was
+
+    public boolean acquire()
+    {
+        try
+        {
+            channel = FileChannel.open(Paths.get(LOCK_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            lock = channel.tryLock();
+        }
+        catch (IOException ex)
+        {
+            Logger.getLogger(Instance.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        return lock != null;
+    }
+
+    // true when a running editor accepted the paths
+    public boolean forward(String[] args)
+    {
+        long deadline = System.currentTimeMillis() + FORWARD_TIMEOUT;
+
+        // the owner may still be starting up and not have written its port yet, or an old one is left
+        while (true)
+        {
+            try
+            {
+                List<String> lines = Files.readAllLines(Paths.get(PORT_FILE), StandardCharsets.UTF_8);
+
+                if ((lines.size() == 2) && send(Integer.parseInt(lines.get(0)), lines.get(1), args))
+                {
+                    return true;
+                }
+            }
+            catch (IOException | NumberFormatException ex)
+            {
+            }
+
+            if (System.currentTimeMillis() > deadline)
+            {
+                return false;
+            }
+
+            try
+            {
+                Thread.sleep(RETRY_DELAY);
+            }
+            catch (InterruptedException ex)
+            {
+                return false;
+            }
+        }
+    }
+
+    // true once the editor listening on port has answered the token
+    private boolean send(int port, String token, String[] args) throws IOException
+    {
+        try (Socket socket = new Socket())
+        {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                    CONNECT_TIMEOUT);
+            socket.setSoTimeout(CONNECT_TIMEOUT);
+
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write(token + "\n");
+
+            for (String arg : args)
+            {
+                writer.write(new File(arg).getAbsolutePath() + "\n");
+            }
+
+            writer.flush();
+            socket.shutdownOutput();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.UTF_8));
+
+            return ACCEPTED.equals(reader.readLine());
+        }
+    }
+
+    // lock holder only, listens before the editor is built so launches meanwhile wait the least
+    public void listen()
+    {
+        if (lock == null)
+        {
+            return;
+        }
+
+        try
+        {
+            byte[] bytes = new byte[16];
+            StringBuilder builder = new StringBuilder();
+
+            new SecureRandom().nextBytes(bytes);
+
+            for (byte b : bytes)
+            {
+                builder.append(String.format("%02x", b));
+            }
+
+            token = builder.toString();
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Files.write(Paths.get(PORT_FILE), (server.getLocalPort() + "\n" + token + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            Runtime.getRuntime().addShutdownHook(new Thread(this::release, "Instance"));
+
+            Thread thread = new Thread(this::accept, "Instance");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        catch (IOException ex)
+        {
+            Logger.getLogger(Instance.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    // edt, opens the paths that came in while the editor was starting
+    public void attach(Frame frame)
+    {
+        this.frame = frame;
+
+        if (!waiting.isEmpty())
+        {
+            open(new ArrayList<>(waiting));
+            waiting.clear();
+        }
+    }
+
+    private void release()
+    {
+        try
+        {
+            server.close();
+            Files.deleteIfExists(Paths.get(PORT_FILE));
+            lock.release();
+            channel.close();
+        }
+        catch (IOException ex)
+        {
+            Logger.getLogger(Instance.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+
+    private void accept()
+    {
+        while (!server.isClosed())
+        {
+            try (Socket socket = server.accept())
+            {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        socket.getInputStream(), StandardCharsets.UTF_8));
+                List<String> paths = new ArrayList<>();
+                String line;
+
+                socket.setSoTimeout(CONNECT_TIMEOUT);
+
+                if (!token.equals(reader.readLine()))
+                {
+                    continue;
+                }
+
+                while ((line = reader.readLine()) != null)
+                {
+                    paths.add(line);
+                }
+
+                Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                writer.write(ACCEPTED + "\n");
+                writer.flush();
+
+                SwingUtilities.invokeLater(()
+                        -> 
+                        {
+                            if (frame == null)
+                            {
+                                waiting.addAll(paths);
+                            }
+                            else
+                            {
+                                open(paths);
+                            }
+                });
+            }
+            catch (IOException ex)
+            {
+                if (!server.isClosed())
+                {
+                    Logger.getLogger(Instance.class.getName()).log(Level.WARNING, null, ex);
+                }
+            }
+        }
+    }
+
+    private void open(List<String> paths)
+    {
+        SyntaxEditor.openArgs(frame, paths.toArray(new String[paths.size()]));
+
+        if (frame.getExtendedState() == JFrame.ICONIFIED)
+        {
+            frame.setExtendedState(JFrame.NORMAL);
+        }
+
+        frame.toFront();
+        frame.requestFocus();
+    }
+}
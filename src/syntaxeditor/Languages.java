@@ -0,0 +1,275 @@
+package syntaxeditor;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+
+/*
+ * every language the editor knows, built once from the table below and never changed
+ *
+ * a file resolves by its modeline, then its exact name, then its extension, then its shebang;
+ * adding a language is one row here plus, if it should be pickable, a Syntax menu item with the same name
+ */
+public final class Languages
+{
+    public static final int SNIFF_LENGTH = 4096; // leading chars searched for a shebang or modeline
+
+    private static final Map<String, Language> BY_NAME = new HashMap<>();
+    private static final Map<String, Language> BY_SYNTAX = new HashMap<>();
+    private static final Map<String, Language> BY_FILE_NAME = new HashMap<>();
+    private static final Map<String, Language> BY_EXTENSION = new HashMap<>();
+    private static final Map<String, Language> BY_ALIAS = new HashMap<>(); // shebang interpreters and modeline names
+
+    private static final Pattern VIM_MODELINE = Pattern.compile("(?:^|\\s)(?:vi|vim|ex):.*?[\\s:](?:ft|filetype|syntax)=([\\w+#-]+)");
+    private static final Pattern EMACS_MODELINE = Pattern.compile("-\\*-(.*?)-\\*-");
+
+    public static final Language PLAIN_TEXT = add("Plain Text", SyntaxConstants.SYNTAX_STYLE_NONE,
+            "txt text log", "", "text plaintext none");
+
+    static
+    {
+        // name, style, extensions (first one suggested on save), exact file names, aliases
+        add("ActionScript", SyntaxConstants.SYNTAX_STYLE_ACTIONSCRIPT, "as", "", "actionscript");
+        add("Assembly x86", SyntaxConstants.SYNTAX_STYLE_ASSEMBLER_X86, "asm inc", "", "asm nasm masm");
+        add("Batch File", SyntaxConstants.SYNTAX_STYLE_WINDOWS_BATCH, "bat cmd", "", "batch dosbatch bat");
+        add("C", SyntaxConstants.SYNTAX_STYLE_C, "c h", "", "c");
+        add("C#", SyntaxConstants.SYNTAX_STYLE_CSHARP, "cs", "", "csharp cs");
+        add("C++", SyntaxConstants.SYNTAX_STYLE_CPLUSPLUS, "cpp cc cxx c++ hpp hh hxx h++ inl ipp", "", "cpp c++");
+        add("CSS", SyntaxConstants.SYNTAX_STYLE_CSS, "css csserb", "", "css");
+        add("Delphi", SyntaxConstants.SYNTAX_STYLE_DELPHI, "dpr lpr pp", "", "delphi pascal");
+        add("HTML", SyntaxConstants.SYNTAX_STYLE_HTML, "html htm shtml xhtml tpml tpl", "", "html xhtml");
+        add("Java", SyntaxConstants.SYNTAX_STYLE_JAVA, "java bsh", "", "java");
+        add("JavaScript", SyntaxConstants.SYNTAX_STYLE_JAVASCRIPT, "js htc jsx", "", "javascript js node nodejs");
+        add("JSON", SyntaxConstants.SYNTAX_STYLE_JSON, "json", "", "json");
+        add("LaTex", SyntaxConstants.SYNTAX_STYLE_LATEX, "tex", "", "tex latex");
+        add("Lisp", SyntaxConstants.SYNTAX_STYLE_LISP, "lisp cl l mud el scm ss", "",
+                "lisp emacs-lisp elisp scheme sbcl clisp guile");
+        add("Lua", SyntaxConstants.SYNTAX_STYLE_LUA, "lua", "", "lua luajit");
+        add("Makefile", SyntaxConstants.SYNTAX_STYLE_MAKEFILE, "make mak mk",
+                "GNUmakefile makefile Makefile OCamlMakefile", "make makefile gmake");
+        add("Perl", SyntaxConstants.SYNTAX_STYLE_PERL, "pl pm pod t PL", "", "perl");
+        add("PHP", SyntaxConstants.SYNTAX_STYLE_PHP,
+                "php php3 php4 php5 php7 phpt phtml aw ctp install module profile php_cs", "", "php");
+        add("Python", SyntaxConstants.SYNTAX_STYLE_PYTHON, "py rpy pyw cpy gyp gypi",
+                "SConstruct Sconstruct sconstruct SConscript", "python py pypy");
+        add("Ruby", SyntaxConstants.SYNTAX_STYLE_RUBY, "rb rbx rjs rake cgi fcgi gemspec irbrc",
+                "Rakefile RakeFile Capfile capfile Gemfile Vagrantfile config.ru", "ruby rb jruby");
+        add("Scala", SyntaxConstants.SYNTAX_STYLE_SCALA, "scala", "", "scala");
+        add("SQL", SyntaxConstants.SYNTAX_STYLE_SQL, "sql ddl dml", "", "sql");
+        add("TCL", SyntaxConstants.SYNTAX_STYLE_TCL, "tcl", "", "tcl tclsh wish");
+        add("Unix Shell", SyntaxConstants.SYNTAX_STYLE_UNIX_SHELL, "sh bash zsh",
+                ".bash_aliases .bash_functions .bash_login .bash_logout .bash_profile .bash_variables .bashrc "
+                + ".profile .textmate_init .zshrc", "sh bash zsh ksh dash ash shell");
+        add("XML", SyntaxConstants.SYNTAX_STYLE_XML, "xml xsd tld dtml rss opml xslt svg", "", "xml");
+    }
+
+    private Languages()
+    {
+    }
+
+    private static Language add(String name, String syntax, String extensions, String fileNames, String aliases)
+    {
+        String[] extensionList = extensions.split(" ");
+        Language language = new Language(name, syntax, extensionList[0]);
+
+        BY_NAME.put(name, language);
+        BY_SYNTAX.put(syntax, language);
+        putAll(BY_EXTENSION, extensionList, language);
+        putAll(BY_FILE_NAME, fileNames.isEmpty() ? new String[0] : fileNames.split(" "), language);
+        putAll(BY_ALIAS, aliases.split(" "), language);
+
+        return language;
+    }
+
+    private static void putAll(Map<String, Language> map, String[] keys, Language language)
+    {
+        for (String key : keys)
+        {
+            map.putIfAbsent(key, language);
+        }
+    }
+
+    // the language shown as name in the Syntax menu and status bar, null if unknown
+    public static Language forName(String name)
+    {
+        return BY_NAME.get(name);
+    }
+
+    public static Language forSyntax(String syntax)
+    {
+        return BY_SYNTAX.getOrDefault(syntax, PLAIN_TEXT);
+    }
+
+    // a modeline or shebang style name such as python, c++ or bash, null if unknown
+    public static Language forAlias(String alias)
+    {
+        return BY_ALIAS.get(alias.toLowerCase(Locale.ROOT));
+    }
+
+    // by exact name, then extension, then lower cased extension; null if unknown
+    public static Language forFileName(String fileName)
+    {
+        Language language = BY_FILE_NAME.get(fileName);
+
+        if (language != null)
+        {
+            return language;
+        }
+
+        int dot = fileName.lastIndexOf('.');
+
+        if ((dot < 0) || (dot == fileName.length() - 1))
+        {
+            return null;
+        }
+
+        String extension = fileName.substring(dot + 1);
+        language = BY_EXTENSION.get(extension);
+
+        return (language != null) ? language : BY_EXTENSION.get(extension.toLowerCase(Locale.ROOT));
+    }
+
+    // head is the start of the file, only its first SNIFF_LENGTH chars are looked at
+    public static Language detect(String fileName, CharSequence head)
+    {
+        CharSequence sniffed = head.subSequence(0, Math.min(head.length(), SNIFF_LENGTH));
+        Language language = forModeline(sniffed);
+
+        if (language == null)
+        {
+            language = forFileName(fileName);
+        }
+
+        if (language == null)
+        {
+            language = forShebang(sniffed);
+        }
+
+        return (language != null) ? language : PLAIN_TEXT;
+    }
+
+    // vim: set ft=python : or -*- mode: python -*- in the head of the file
+    private static Language forModeline(CharSequence head)
+    {
+        Matcher vim = VIM_MODELINE.matcher(head);
+
+        if (vim.find())
+        {
+            Language language = forAlias(vim.group(1));
+
+            if (language != null)
+            {
+                return language;
+            }
+        }
+
+        Matcher emacs = EMACS_MODELINE.matcher(head);
+
+        if (emacs.find())
+        {
+            String mode = emacs.group(1).trim();
+
+            for (String variable : mode.split(";"))
+            {
+                int colon = variable.indexOf(':');
+
+                if (colon < 0)
+                {
+                    mode = variable.trim();
+                }
+                else if (variable.substring(0, colon).trim().equalsIgnoreCase("mode"))
+                {
+                    mode = variable.substring(colon + 1).trim();
+                    break;
+                }
+            }
+
+            return mode.isEmpty() ? null : forAlias(mode);
+        }
+
+        return null;
+    }
+
+    // #!/usr/bin/python3, #!/usr/bin/env -S bash -e and the like
+    private static Language forShebang(CharSequence head)
+    {
+        if ((head.length() < 2) || (head.charAt(0) != '#') || (head.charAt(1) != '!'))
+        {
+            return null;
+        }
+
+        int end = 2;
+
+        while ((end < head.length()) && (head.charAt(end) != '\n'))
+        {
+            end++;
+        }
+
+        String[] words = head.subSequence(2, end).toString().trim().split("\\s+");
+        String interpreter = baseName(words[0]);
+
+        if (interpreter.equals("env"))
+        {
+            interpreter = "";
+
+            for (int i = 1; i < words.length; i++)
+            {
+                if (!words[i].startsWith("-") && (words[i].indexOf('=') < 0))
+                {
+                    interpreter = baseName(words[i]);
+                    break;
+                }
+            }
+        }
+
+        Language language = forAlias(interpreter);
+
+        // python3.11, perl5
+        return (language != null) ? language : forAlias(interpreter.replaceFirst("[\\d.]+$", ""));
+    }
+
+    private static String baseName(String path)
+    {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    public static final class Language
+    {
+        private final String name;
+        private final String syntax;
+        private final String extension;
+
+        private Language(String name, String syntax, String extension)
+        {
+            this.name = name;
+            this.syntax = syntax;
+            this.extension = extension;
+        }
+
+        // as shown in the Syntax menu and status bar
+        public String getName()
+        {
+            return name;
+        }
+
+        public String getSyntax()
+        {
+            return syntax;
+        }
+
+        // suggested when saving a new file
+        public String getExtension()
+        {
+            return extension;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name;
+        }
+    }
+}
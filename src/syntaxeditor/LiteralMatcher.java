@@ -0,0 +1,142 @@
+package syntaxeditor;
+
+// Boyer-Moore-Horspool over any CharSequence (document Segments included), used when regex is off
+public class LiteralMatcher
+{
+    private static final char[] FOLD = new char[Character.MAX_VALUE + 1];
+
+    static
+    {
+        for (int c = 0; c <= Character.MAX_VALUE; c++)
+        {
+            FOLD[c] = Character.toLowerCase(Character.toUpperCase((char) c));
+        }
+    }
+
+    private final char[] pattern;
+    private final boolean matchCase;
+    private final boolean wholeWord;
+    private final int[] forwardShift = new int[256];
+    private final int[] backwardShift = new int[256];
+
+    public LiteralMatcher(String searchFor, boolean matchCase, boolean wholeWord)
+    {
+        this.matchCase = matchCase;
+        this.wholeWord = wholeWord;
+        this.pattern = searchFor.toCharArray();
+
+        int m = pattern.length;
+
+        if (!matchCase)
+        {
+            for (int i = 0; i < m; i++)
+            {
+                pattern[i] = FOLD[pattern[i]];
+            }
+        }
+
+        // chars are bucketed by their low byte, each bucket keeps the smallest safe shift
+        for (int i = 0; i < 256; i++)
+        {
+            forwardShift[i] = m;
+            backwardShift[i] = m;
+        }
+
+        for (int i = 0; i < m - 1; i++)
+        {
+            forwardShift[pattern[i] & 0xFF] = m - 1 - i;
+        }
+
+        for (int i = m - 1; i > 0; i--)
+        {
+            backwardShift[pattern[i] & 0xFF] = i;
+        }
+    }
+
+    public int length()
+    {
+        return pattern.length;
+    }
+
+    static char foldCase(char c)
+    {
+        return FOLD[c];
+    }
+
+    private char fold(char c)
+    {
+        return matchCase ? c : FOLD[c];
+    }
+
+    // first match starting at or after from, -1 if none
+    public int indexOf(CharSequence text, int from)
+    {
+        int m = pattern.length;
+
+        if (m == 0)
+        {
+            return -1;
+        }
+
+        int last = m - 1;
+        int end = text.length() - m;
+        char tail = pattern[last];
+
+        for (int i = Math.max(0, from); i <= end;)
+        {
+            char c = fold(text.charAt(i + last));
+
+            if ((c == tail) && matchesAt(text, i) && (!wholeWord || isWholeWord(text, i)))
+            {
+                return i;
+            }
+
+            i += forwardShift[c & 0xFF];
+        }
+
+        return -1;
+    }
+
+    // last match starting at or before from, -1 if none
+    public int lastIndexOf(CharSequence text, int from)
+    {
+        int m = pattern.length;
+
+        if (m == 0)
+        {
+            return -1;
+        }
+
+        for (int i = Math.min(from, text.length() - m); i >= 0;)
+        {
+            char c = fold(text.charAt(i));
+
+            if ((c == pattern[0]) && matchesAt(text, i) && (!wholeWord || isWholeWord(text, i)))
+            {
+                return i;
+            }
+
+            i -= backwardShift[c & 0xFF];
+        }
+
+        return -1;
+    }
+
+    private boolean matchesAt(CharSequence text, int start)
+    {
+        for (int j = 0; j < pattern.length; j++)
+        {
+            if (fold(text.charAt(start + j)) != pattern[j])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isWholeWord(CharSequence text, int start)
+    {
+        return SearchPattern.isWholeWord(text, start, start + pattern.length);
+    }
+}
@@ -0,0 +1,888 @@
+package syntaxeditor;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingConstants;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Caret;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import javax.swing.text.LayeredHighlighter;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.text.ViewFactory;
+import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.SyntaxView;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.TokenMaker;
+import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
+
+/*
+ * the view of an EditorTextArea in long line mode, wrapped or not
+ *
+ * text is laid out on a grid of character cells, so a position's place on screen is arithmetic on
+ * its column: a line knows how many columns it takes, and a line with tabs also keeps the column
+ * of every RUN'th char, leaving at most RUN chars to walk for any position. wrapping breaks rows
+ * every perRow columns, so a line's row count follows from its columns and the chars of a row are
+ * only looked up when the row is painted or hit. paint goes over the rows and columns in the clip
+ * alone, and a line too long for TokenCache is tokenized just around the part being drawn
+ */
+public class LongLineView extends SyntaxView
+{
+    private static final int RUN = 4096; // chars between column checkpoints on a line with tabs
+    private static final int RESYNC = 1000; // chars tokenized ahead of the painted part of a long line
+    private static final int LOOKAHEAD = 64; // and after it, so its last token is whole
+    private static final int MAX_SPAN = 1 << 30; // px
+
+    private RSyntaxTextArea host; // null until first used
+    private Font font;
+    private int cellWidth = 1;
+    private int lineHeight = 1;
+    private int ascent;
+    private boolean isMonospaced;
+    private boolean isWrap;
+    private int tabColumns = 4;
+    private float width;
+    private int perRow = Integer.MAX_VALUE; // columns per row when wrapping
+
+    private int lines;
+    private int length; // of the document the lines below were counted in
+    private int[] columns = new int[0]; // per line, -1 until counted
+    private int[][] runs = new int[0][]; // per line, column of every RUN'th char; null without tabs
+    private int[] rowStarts = new int[1]; // first row of each line, right up to rowsValid
+    private int rowsValid;
+    private int maxColumns = -1;
+    private float preferredWidth = -1;
+    private float preferredHeight = -1;
+
+    private final Segment segment = new Segment();
+    private final Segment window = new Segment();
+    private TokenMaker maker; // for windows of long lines
+    private String makerSyntax;
+
+    // while painting
+    private int originX; // x of column 0 of the row
+    private int baseline;
+    private int selectionStart;
+    private int selectionEnd;
+
+    public LongLineView(Element elem)
+    {
+        super(elem);
+        segment.setPartialReturn(true);
+    }
+
+    private void sync()
+    {
+        if (host == null)
+        {
+            host = (RSyntaxTextArea) getContainer();
+            isWrap = host.getLineWrap();
+            tabColumns = Math.max(1, host.getTabSize());
+            reset();
+        }
+
+        if (host.getFont() != font)
+        {
+            font = host.getFont();
+            FontMetrics metrics = host.getFontMetrics(font);
+            cellWidth = Math.max(1, metrics.charWidth('m'));
+            isMonospaced = (metrics.charWidth('i') == cellWidth) && (metrics.charWidth('W') == cellWidth);
+        }
+
+        lineHeight = Math.max(1, host.getLineHeight());
+        ascent = host.getMaxAscent();
+
+        int columnsPerRow = isWrap ? Math.max(1, (int) width / cellWidth) : Integer.MAX_VALUE;
+
+        if (columnsPerRow != perRow)
+        {
+            perRow = columnsPerRow;
+            rowsValid = 0;
+        }
+    }
+
+    private void reset()
+    {
+        lines = getElement().getElementCount();
+        length = getDocument().getLength();
+        columns = new int[lines];
+        runs = new int[lines][];
+        rowStarts = new int[lines + 1];
+        rowsValid = 0;
+        maxColumns = -1;
+        Arrays.fill(columns, -1);
+    }
+
+    // columns
+    private int nextStop(int column)
+    {
+        return (column / tabColumns + 1) * tabColumns;
+    }
+
+    private int columnsOf(int line)
+    {
+        if (columns[line] < 0)
+        {
+            count(line);
+        }
+
+        return columns[line];
+    }
+
+    // reads the line once, noting its columns at every RUN chars as soon as it turns out to have a tab
+    private void count(int line)
+    {
+        Element element = getElement().getElement(line);
+        int start = element.getStartOffset();
+        int lineLength = element.getEndOffset() - 1 - start;
+        int[] lineRuns = null;
+        int column = 0;
+
+        try
+        {
+            for (int done = 0; done < lineLength;)
+            {
+                getDocument().getText(start + done, lineLength - done, segment);
+
+                for (int i = 0; i < segment.count; i++, done++)
+                {
+                    if ((lineRuns != null) && (done % RUN == 0))
+                    {
+                        lineRuns[done / RUN] = column;
+                    }
+
+                    if (segment.array[segment.offset + i] == '\t')
+                    {
+                        if (lineRuns == null)
+                        {
+                            // no tab so far, so every column up to here is its offset
+                            lineRuns = new int[lineLength / RUN + 1];
+
+                            for (int k = 0; k <= done / RUN; k++)
+                            {
+                                lineRuns[k] = k * RUN;
+                            }
+                        }
+
+                        column = nextStop(column);
+                    }
+                    else
+                    {
+                        column++;
+                    }
+                }
+            }
+        }
+        catch (BadLocationException ex)
+        {
+            Logger.getLogger(LongLineView.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        columns[line] = column;
+        runs[line] = lineRuns;
+    }
+
+    // column reached after the chars from pos to end, starting at column
+    private int advance(int pos, int end, int column) throws BadLocationException
+    {
+        while (pos < end)
+        {
+            getDocument().getText(pos, end - pos, segment);
+
+            for (int i = 0; i < segment.count; i++)
+            {
+                column = (segment.array[segment.offset + i] == '\t') ? nextStop(column) : column + 1;
+            }
+
+            pos += segment.count;
+        }
+
+        return column;
+    }
+
+    private int columnAt(int line, int offset) throws BadLocationException
+    {
+        int start = getElement().getElement(line).getStartOffset();
+        columnsOf(line);
+
+        if (runs[line] == null)
+        {
+            return offset - start;
+        }
+
+        int run = (offset - start) / RUN;
+
+        return advance(start + run * RUN, offset, runs[line][run]);
+    }
+
+    // first char starting at or past column, or with round the nearest char boundary
+    private int offsetAt(int line, int column, boolean round) throws BadLocationException
+    {
+        Element element = getElement().getElement(line);
+        int start = element.getStartOffset();
+        int end = element.getEndOffset() - 1;
+        int[] lineRuns;
+
+        columnsOf(line);
+        lineRuns = runs[line];
+
+        if (column <= 0)
+        {
+            return start;
+        }
+
+        if (lineRuns == null)
+        {
+            return start + Math.min(column, end - start);
+        }
+
+        int run = Arrays.binarySearch(lineRuns, column);
+        run = (run >= 0) ? run : -run - 2;
+
+        int pos = start + run * RUN;
+        int c = lineRuns[run];
+
+        while (pos < end)
+        {
+            getDocument().getText(pos, end - pos, segment);
+
+            for (int i = 0; i < segment.count; i++, pos++)
+            {
+                if (c >= column)
+                {
+                    return pos;
+                }
+
+                int next = (segment.array[segment.offset + i] == '\t') ? nextStop(c) : c + 1;
+
+                // only a tab can go past the column
+                if (next > column)
+                {
+                    return (round && ((column - c) * 2 < next - c)) ? pos : pos + 1;
+                }
+
+                c = next;
+            }
+        }
+
+        return end;
+    }
+
+    // rows
+    private int rowsOf(int line)
+    {
+        return isWrap ? columnsOf(line) / perRow + 1 : 1;
+    }
+
+    private int rowOf(int line)
+    {
+        if (!isWrap)
+        {
+            return line;
+        }
+
+        while (rowsValid < line)
+        {
+            rowStarts[rowsValid + 1] = rowStarts[rowsValid] + rowsOf(rowsValid);
+            rowsValid++;
+        }
+
+        return rowStarts[line];
+    }
+
+    private int rowCount()
+    {
+        return rowOf(lines);
+    }
+
+    private int lineOfRow(int row)
+    {
+        if (!isWrap)
+        {
+            return Math.min(row, lines - 1);
+        }
+
+        rowOf(lines);
+
+        int line = Arrays.binarySearch(rowStarts, 0, lines, row);
+
+        // every line has a row of its own, so a match is the line itself
+        return (line >= 0) ? line : -line - 2;
+    }
+
+    private int x(int origin, int column)
+    {
+        return (int) Math.min(MAX_SPAN, origin + (long) column * cellWidth);
+    }
+
+    private int maxColumns()
+    {
+        if (maxColumns < 0)
+        {
+            maxColumns = 0;
+
+            for (int line = 0; line < lines; line++)
+            {
+                maxColumns = Math.max(maxColumns, columnsOf(line));
+            }
+        }
+
+        return maxColumns;
+    }
+
+    @Override
+    public float getPreferredSpan(int axis)
+    {
+        sync();
+
+        if (axis == X_AXIS)
+        {
+            preferredWidth = isWrap ? Math.max(width, cellWidth)
+                    : (float) Math.min(MAX_SPAN, (long) (maxColumns() + 1) * cellWidth);
+            return preferredWidth;
+        }
+
+        preferredHeight = (float) Math.min(MAX_SPAN, (long) rowCount() * lineHeight);
+        return preferredHeight;
+    }
+
+    @Override
+    public void setSize(float width, float height)
+    {
+        if (width == this.width)
+        {
+            return;
+        }
+
+        this.width = width;
+        sync();
+
+        // new rows with a new width
+        if (isWrap && (preferredHeight >= 0) && (preferredHeight != getPreferredSpan(Y_AXIS)))
+        {
+            preferenceChanged(null, false, true);
+        }
+    }
+
+    // painting
+    @Override
+    public void paint(Graphics g, Shape a)
+    {
+        sync();
+
+        Rectangle alloc = a.getBounds();
+        Rectangle clip = g.getClipBounds();
+        Highlighter highlighter = host.getHighlighter();
+        Element root = getElement();
+
+        if (clip == null)
+        {
+            clip = alloc;
+        }
+
+        int first = Math.max(0, (clip.y - alloc.y) / lineHeight);
+        int last = Math.min(rowCount() - 1, (clip.y + clip.height - 1 - alloc.y) / lineHeight);
+        int left = Math.max(0, (clip.x - alloc.x) / cellWidth - 1);
+        int right = (clip.x + clip.width - alloc.x) / cellWidth + 1;
+
+        selectionStart = host.getSelectionStart();
+        selectionEnd = host.getUseSelectedTextColor() ? host.getSelectionEnd() : selectionStart;
+
+        try
+        {
+            for (int row = first; row <= last; row++)
+            {
+                int line = lineOfRow(row);
+                int y = alloc.y + row * lineHeight;
+                int firstColumn = 0;
+                int s;
+                int e;
+
+                if (isWrap)
+                {
+                    firstColumn = (row - rowOf(line)) * perRow;
+                    s = offsetAt(line, firstColumn, false);
+                    e = offsetAt(line, firstColumn + perRow, false);
+                }
+                else
+                {
+                    s = offsetAt(line, left, false);
+                    e = offsetAt(line, right, false);
+                }
+
+                originX = alloc.x - firstColumn * cellWidth;
+                baseline = y + ascent;
+
+                if (highlighter instanceof LayeredHighlighter)
+                {
+                    ((LayeredHighlighter) highlighter).paintLayeredHighlights(g, s, e,
+                            new Rectangle(alloc.x, y, alloc.width, lineHeight), host, this);
+                }
+
+                if (s < e)
+                {
+                    paintText(g, line, s, e, columnAt(line, s), y);
+                }
+            }
+        }
+        catch (BadLocationException ex)
+        {
+            Logger.getLogger(LongLineView.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    private void paintText(Graphics g, int line, int s, int e, int column, int y) throws BadLocationException
+    {
+        for (Token t = tokensFor(line, s, e); (t != null) && t.isPaintable(); t = t.getNextToken())
+        {
+            if (t.getEndOffset() <= s)
+            {
+                continue;
+            }
+
+            if (t.getOffset() >= e)
+            {
+                break;
+            }
+
+            int from = Math.max(t.getOffset(), s);
+            int to = Math.min(t.getEndOffset(), e);
+            char[] text = t.getTextArray();
+            int base = t.getTextOffset() - t.getOffset();
+            Color foreground = host.getForegroundForToken(t);
+            Color background = host.getBackgroundForToken(t);
+            int runStart = from;
+            int runColumn = column;
+
+            g.setFont(host.getFontForTokenType(t.getType()));
+
+            for (int p = from; p < to; p++)
+            {
+                if (text[base + p] == '\t')
+                {
+                    drawRun(g, text, base, runStart, p, runColumn, foreground, background, y);
+                    column = nextStop(column);
+                    runStart = p + 1;
+                    runColumn = column;
+                }
+                else
+                {
+                    column++;
+                }
+            }
+
+            drawRun(g, text, base, runStart, to, runColumn, foreground, background, y);
+        }
+    }
+
+    // chars from to to of a token, none of them a tab
+    private void drawRun(Graphics g, char[] text, int base, int from, int to, int column, Color foreground,
+            Color background, int y)
+    {
+        if (from >= to)
+        {
+            return;
+        }
+
+        if (background != null)
+        {
+            g.setColor(background);
+            g.fillRect(x(originX, column), y, (to - from) * cellWidth, lineHeight);
+        }
+
+        // the selected part in the selected text color, if there is one
+        int[] cuts = { from, Math.max(from, Math.min(to, selectionStart)),
+            Math.max(from, Math.min(to, selectionEnd)), to };
+
+        for (int i = 0; i < 3; i++)
+        {
+            if (cuts[i] < cuts[i + 1])
+            {
+                g.setColor((i == 1) ? host.getSelectedTextColor() : foreground);
+                drawChars(g, text, base + cuts[i], cuts[i + 1] - cuts[i], column + cuts[i] - from);
+            }
+        }
+    }
+
+    private void drawChars(Graphics g, char[] text, int offset, int count, int column)
+    {
+        if (isMonospaced)
+        {
+            g.drawChars(text, offset, count, x(originX, column), baseline);
+            return;
+        }
+
+        // one char per cell, whatever its own width
+        for (int i = 0; i < count; i++)
+        {
+            g.drawChars(text, offset + i, 1, x(originX, column + i), baseline);
+        }
+    }
+
+    // the line's tokens from the document if it is short enough, otherwise those of a window around s to e
+    private Token tokensFor(int line, int s, int e) throws BadLocationException
+    {
+        Element element = getElement().getElement(line);
+        int start = element.getStartOffset();
+        int end = element.getEndOffset() - 1;
+
+        if (end - start <= TokenCache.MAX_LINE)
+        {
+            return host.getTokenListForLine(line);
+        }
+
+        int from = resync(start, s);
+        int to = Math.min(end, e + LOOKAHEAD);
+        int state = ((from == start) && (line > 0))
+                ? ((RSyntaxDocument) getDocument()).getLastTokenTypeOnLine(line - 1) : Token.NULL;
+
+        getDocument().getText(from, to - from, window);
+
+        String syntax = host.getSyntaxEditingStyle();
+
+        if (!syntax.equals(makerSyntax))
+        {
+            maker = TokenMakerFactory.getDefaultInstance().getTokenMaker(syntax);
+            makerSyntax = syntax;
+        }
+
+        return maker.getTokenList(window, state, from);
+    }
+
+    // where to start tokenizing for s, just past a space or separator if there is one close enough
+    private int resync(int start, int s) throws BadLocationException
+    {
+        int from = Math.max(start, s - RESYNC);
+
+        if (from == start)
+        {
+            return start;
+        }
+
+        for (int pos = from; pos < s;)
+        {
+            getDocument().getText(pos, s - pos, segment);
+
+            for (int i = 0; i < segment.count; i++, pos++)
+            {
+                char c = segment.array[segment.offset + i];
+
+                if ((c == ' ') || (c == '\t') || (c == ';') || (c == ',') || (c == '{') || (c == '}'))
+                {
+                    return pos + 1;
+                }
+            }
+        }
+
+        return from;
+    }
+
+    // positions
+    private Rectangle rect(Rectangle alloc, int pos, boolean isEnd) throws BadLocationException
+    {
+        if ((pos < 0) || (pos > getDocument().getLength()))
+        {
+            throw new BadLocationException("Invalid offset", pos);
+        }
+
+        int line = getElement().getElementIndex(pos);
+        int column = columnAt(line, pos);
+        int row = rowOf(line);
+
+        if (isWrap)
+        {
+            // the end of a full row stays on it
+            int inLine = (isEnd && (column > 0) && (column % perRow == 0)) ? column / perRow - 1 : column / perRow;
+
+            row += inLine;
+            column -= inLine * perRow;
+        }
+
+        return new Rectangle(x(alloc.x, column), alloc.y + row * lineHeight, 1, lineHeight);
+    }
+
+    @Override
+    public Shape modelToView(int pos, Shape a, Position.Bias b) throws BadLocationException
+    {
+        sync();
+        return rect(a.getBounds(), pos, false);
+    }
+
+    @Override
+    public Shape modelToView(int p0, Position.Bias b0, int p1, Position.Bias b1, Shape a) throws BadLocationException
+    {
+        sync();
+
+        Rectangle alloc = a.getBounds();
+        Rectangle r0 = rect(alloc, p0, false);
+        Rectangle r1 = rect(alloc, p1, p1 > p0);
+
+        if (r0.y == r1.y)
+        {
+            r0.width = Math.max(1, r1.x - r0.x);
+            return r0;
+        }
+
+        return new Rectangle(alloc.x, r0.y, alloc.width, r1.y + r1.height - r0.y);
+    }
+
+    @Override
+    public int viewToModel(float fx, float fy, Shape a, Position.Bias[] bias)
+    {
+        sync();
+
+        Rectangle alloc = a.getBounds();
+        bias[0] = Position.Bias.Forward;
+
+        if (fy < alloc.y)
+        {
+            return getStartOffset();
+        }
+
+        int row = (int) ((fy - alloc.y) / lineHeight);
+
+        if (row >= rowCount())
+        {
+            return getEndOffset() - 1;
+        }
+
+        int line = lineOfRow(row);
+        int column = Math.max(0, Math.round((fx - alloc.x) / cellWidth));
+
+        if (isWrap)
+        {
+            column = (row - rowOf(line)) * perRow + Math.min(column, perRow - 1);
+        }
+
+        try
+        {
+            return offsetAt(line, column, true);
+        }
+        catch (BadLocationException ex)
+        {
+            Logger.getLogger(LongLineView.class.getName()).log(Level.SEVERE, null, ex);
+            return getElement().getElement(line).getStartOffset();
+        }
+    }
+
+    // up and down by rows at the caret's remembered x, instead of walking the row a char at a time
+    @Override
+    public int getNextVisualPositionFrom(int pos, Position.Bias b, Shape a, int direction, Position.Bias[] biasRet)
+            throws BadLocationException
+    {
+        if ((pos < 0) || ((direction != SwingConstants.NORTH) && (direction != SwingConstants.SOUTH)))
+        {
+            return super.getNextVisualPositionFrom(pos, b, a, direction, biasRet);
+        }
+
+        sync();
+
+        Rectangle alloc = a.getBounds();
+        Rectangle r = rect(alloc, pos, false);
+        Caret caret = host.getCaret();
+        Point magic = (caret != null) ? caret.getMagicCaretPosition() : null;
+        int x = (magic != null) ? magic.x : r.x;
+        int y = (direction == SwingConstants.NORTH) ? r.y - lineHeight : r.y + lineHeight;
+
+        if ((y < alloc.y) || (y >= alloc.y + (long) rowCount() * lineHeight))
+        {
+            return pos;
+        }
+
+        return viewToModel(x, y, a, biasRet);
+    }
+
+    // the gutter numbers wrapped lines by their allocations
+    @Override
+    public Shape getChildAllocation(int index, Shape a)
+    {
+        sync();
+
+        Rectangle alloc = a.getBounds();
+
+        if ((index < 0) || (index >= lines))
+        {
+            return null;
+        }
+
+        return new Rectangle(alloc.x, alloc.y + rowOf(index) * lineHeight, alloc.width, rowsOf(index) * lineHeight);
+    }
+
+    @Override
+    public int yForLine(Rectangle alloc, int line) throws BadLocationException
+    {
+        sync();
+        return alloc.y + rowOf(line) * lineHeight;
+    }
+
+    @Override
+    public int yForLineContaining(Rectangle alloc, int offs) throws BadLocationException
+    {
+        return yForLine(alloc, getElement().getElementIndex(offs));
+    }
+
+    @Override
+    public Token getTokenListForPhysicalLineAbove(int offset)
+    {
+        int line = getElement().getElementIndex(offset);
+        return (line == 0) ? null : ((RSyntaxDocument) getDocument()).getTokenListForLine(line - 1);
+    }
+
+    @Override
+    public Token getTokenListForPhysicalLineBelow(int offset)
+    {
+        int line = getElement().getElementIndex(offset) + 1;
+        return (line >= getElement().getElementCount()) ? null : ((RSyntaxDocument) getDocument()).getTokenListForLine(line);
+    }
+
+    @Override
+    public float nextTabStop(float x, int tabOffset)
+    {
+        sync();
+
+        int tab = tabColumns * cellWidth;
+
+        return ((int) x / tab + 1) * tab;
+    }
+
+    // edits
+    @Override
+    public void insertUpdate(DocumentEvent e, Shape a, ViewFactory f)
+    {
+        update(e, a, true);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e, Shape a, ViewFactory f)
+    {
+        update(e, a, false);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e, Shape a, ViewFactory f)
+    {
+        if (host != null)
+        {
+            host.repaint();
+        }
+    }
+
+    private void update(DocumentEvent e, Shape a, boolean isInsert)
+    {
+        sync();
+
+        Element root = getElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+        int line = root.getElementIndex(e.getOffset());
+
+        // the view was made after the edit, when it took over from the old one
+        if (getDocument().getLength() + (isInsert ? -e.getLength() : e.getLength()) != length)
+        {
+            reset();
+            line = 0;
+        }
+        else if (change != null)
+        {
+            int index = change.getIndex();
+            int removed = change.getChildrenRemoved().length;
+            int added = change.getChildrenAdded().length;
+            int count = root.getElementCount();
+
+            ensureCapacity(count);
+            System.arraycopy(columns, index + removed, columns, index + added, lines - index - removed);
+            System.arraycopy(runs, index + removed, runs, index + added, lines - index - removed);
+            Arrays.fill(columns, index, index + added, -1);
+            Arrays.fill(runs, index, index + added, null);
+
+            if (count < lines)
+            {
+                Arrays.fill(runs, count, lines, null);
+            }
+
+            lines = count;
+            line = Math.min(line, index);
+        }
+        else if ((columns[line] >= 0) && (runs[line] == null) && (!isInsert || !hasTab(e.getOffset(), e.getLength())))
+        {
+            // still no tabs, so columns are chars
+            columns[line] += isInsert ? e.getLength() : -e.getLength();
+        }
+        else
+        {
+            columns[line] = -1;
+            runs[line] = null;
+        }
+
+        length = getDocument().getLength();
+        rowsValid = Math.min(rowsValid, line);
+        maxColumns = -1;
+
+        float oldWidth = preferredWidth;
+        float oldHeight = preferredHeight;
+
+        if ((oldWidth != getPreferredSpan(X_AXIS)) || (oldHeight != getPreferredSpan(Y_AXIS)))
+        {
+            preferenceChanged(null, oldWidth != preferredWidth, oldHeight != preferredHeight);
+        }
+
+        if (a == null)
+        {
+            host.repaint();
+            return;
+        }
+
+        int y = a.getBounds().y + rowOf(line) * lineHeight;
+        host.repaint(0, y, host.getWidth(), Math.max(0, host.getHeight() - y));
+    }
+
+    private boolean hasTab(int offset, int count)
+    {
+        try
+        {
+            for (int pos = offset; pos < offset + count;)
+            {
+                getDocument().getText(pos, offset + count - pos, segment);
+
+                for (int i = 0; i < segment.count; i++)
+                {
+                    if (segment.array[segment.offset + i] == '\t')
+                    {
+                        return true;
+                    }
+                }
+
+                pos += segment.count;
+            }
+        }
+        catch (BadLocationException ex)
+        {
+            Logger.getLogger(LongLineView.class.getName()).log(Level.SEVERE, null, ex);
+            return true;
+        }
+
+        return false;
+    }
+
+    private void ensureCapacity(int count)
+    {
+        if (count > columns.length)
+        {
+            int capacity = Math.max(count, columns.length + (columns.length >> 1));
+
+            columns = Arrays.copyOf(columns, capacity);
+            runs = Arrays.copyOf(runs, capacity);
+            rowStarts = Arrays.copyOf(rowStarts, capacity + 1);
+        }
+    }
+}
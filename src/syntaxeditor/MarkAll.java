@@ -0,0 +1,511 @@
+package syntaxeditor;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.JLabel;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.CaretEvent;
+import javax.swing.event.CaretListener;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rtextarea.SmartHighlightPainter;
+
+/*
+ * counts and marks every match of the find bar query off the edt
+ *
+ * the visible part of the document is scanned first, then all of it a slice at a time under the read lock;
+ * matches are kept as offsets and only the ones around the viewport get highlight objects
+ */
+public class MarkAll implements DocumentListener, ChangeListener, CaretListener
+{
+    private static final int SLICE = 1 << 20; // chars scanned per read lock
+    private static final int REGEX_SLACK = 4096; // chars a regex may read past the slice before it is widened
+    private static final int MAX_HIGHLIGHTS = 2000;
+    private static final int BUCKETS = 1024; // scroll bar mark resolution
+    private static final int RESTART_DELAY = 300; // ms after an edit
+    private static final ExecutorService SCANNER = Executors.newSingleThreadExecutor((Runnable r) ->
+    {
+        Thread thread = new Thread(r, "Mark All");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final JLabel countLabel;
+    private final Timer restartTimer;
+    private final List<Object> highlights = new ArrayList<>();
+    private RSyntaxTextArea textArea;
+    private Pattern pattern;
+    private LiteralMatcher literal; // used instead of pattern when not null
+    private Scan scan;
+    private volatile int edits;
+    private int[] starts = new int[0];
+    private int[] ends = new int[0];
+    private int count;
+    private int scannedFrom; // starts and ends hold every match between these offsets
+    private int scannedTo;
+    private boolean isComplete;
+    private boolean isTooSlow;
+    private int highlightFrom = -1;
+    private int highlightTo = -1;
+
+    public MarkAll(JLabel countLabel)
+    {
+        this.countLabel = countLabel;
+
+        restartTimer = new Timer(RESTART_DELAY, (ActionEvent e) ->
+        {
+            restart();
+        });
+        restartTimer.setRepeats(false);
+    }
+
+    public void start(RSyntaxTextArea textArea, Pattern pattern, LiteralMatcher literal)
+    {
+        clear();
+
+        this.textArea = textArea;
+        this.pattern = pattern;
+        this.literal = literal;
+
+        textArea.getDocument().addDocumentListener(this);
+        textArea.addCaretListener(this);
+
+        if (textArea.getParent() instanceof JViewport)
+        {
+            ((JViewport) textArea.getParent()).addChangeListener(this);
+        }
+
+        restart();
+    }
+
+    public void clear()
+    {
+        restartTimer.stop();
+
+        if (scan != null)
+        {
+            scan.isCancelled = true;
+            scan = null;
+        }
+
+        if (textArea != null)
+        {
+            textArea.getDocument().removeDocumentListener(this);
+            textArea.removeCaretListener(this);
+
+            if (textArea.getParent() instanceof JViewport)
+            {
+                ((JViewport) textArea.getParent()).removeChangeListener(this);
+            }
+
+            removeHighlights();
+            setMarks(null);
+            textArea = null;
+        }
+
+        count = 0;
+        countLabel.setText(" ");
+    }
+
+    private void restart()
+    {
+        if (scan != null)
+        {
+            scan.isCancelled = true;
+        }
+
+        removeHighlights();
+        starts = new int[0];
+        ends = new int[0];
+        count = 0;
+        scannedFrom = 0;
+        scannedTo = 0;
+        isComplete = false;
+        isTooSlow = false;
+
+        int[] visible = getVisibleRange();
+        scan = new Scan(textArea.getDocument(), visible[0], visible[1]);
+        SCANNER.execute(scan);
+    }
+
+    // edits to the marked document
+    @Override
+    public void insertUpdate(DocumentEvent e)
+    {
+        edits++;
+        restartTimer.restart();
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e)
+    {
+        edits++;
+        restartTimer.restart();
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e)
+    {
+    }
+
+    // scrolling
+    @Override
+    public void stateChanged(ChangeEvent e)
+    {
+        updateHighlights();
+    }
+
+    @Override
+    public void caretUpdate(CaretEvent e)
+    {
+        updateCount();
+    }
+
+    private int[] getVisibleRange()
+    {
+        Rectangle rect = textArea.getVisibleRect();
+        int from = textArea.viewToModel(new Point(rect.x, rect.y));
+        int to = textArea.viewToModel(new Point(rect.x + rect.width, rect.y + rect.height));
+
+        return new int[] { Math.max(0, from), Math.max(from, to) };
+    }
+
+    // highlights the matches in view, replacing those of the previous view
+    private void updateHighlights()
+    {
+        int[] visible = getVisibleRange();
+
+        if ((visible[0] < scannedFrom) || (visible[1] > scannedTo)
+                || ((visible[0] == highlightFrom) && (visible[1] == highlightTo)))
+        {
+            return;
+        }
+
+        removeHighlights();
+        highlightFrom = visible[0];
+        highlightTo = visible[1];
+
+        Highlighter highlighter = textArea.getHighlighter();
+        SmartHighlightPainter painter = new SmartHighlightPainter(textArea.getMarkAllHighlightColor());
+        int length = textArea.getDocument().getLength();
+
+        for (int i = firstEndingAfter(ends, count, visible[0]); (i < count) && (starts[i] <= visible[1])
+                && (highlights.size() < MAX_HIGHLIGHTS); i++)
+        {
+            try
+            {
+                highlights.add(highlighter.addHighlight(Math.min(starts[i], length), Math.min(ends[i], length), painter));
+            }
+            catch (BadLocationException ex)
+            {
+                Logger.getLogger(MarkAll.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
+
+    private void removeHighlights()
+    {
+        Highlighter highlighter = textArea.getHighlighter();
+
+        for (Object highlight : highlights)
+        {
+            highlighter.removeHighlight(highlight);
+        }
+
+        highlights.clear();
+        highlightFrom = -1;
+        highlightTo = -1;
+    }
+
+    private void updateCount()
+    {
+        if (isTooSlow)
+        {
+            countLabel.setText(" Pattern too slow to count ");
+            return;
+        }
+
+        if (isComplete && (count == 0))
+        {
+            countLabel.setText(" No matches ");
+            return;
+        }
+
+        // positions are only known once the full scan has passed the selection
+        int i = (scannedFrom == 0) ? Arrays.binarySearch(starts, 0, count, textArea.getSelectionStart()) : -1;
+        String index = ((i >= 0) && (ends[i] == textArea.getSelectionEnd())) ? (i + 1) + " of " : "";
+
+        countLabel.setText(" " + index + count + (isComplete ? "" : "+") + ((count == 1) ? " match " : " matches "));
+    }
+
+    private void setMarks(boolean[] marks)
+    {
+        if (textArea != null)
+        {
+            EditorScrollPane scrollPane = (EditorScrollPane) SwingUtilities.getAncestorOfClass(EditorScrollPane.class, textArea);
+
+            if (scrollPane != null)
+            {
+                scrollPane.setMarks(marks);
+            }
+        }
+    }
+
+    private static int firstEndingAfter(int[] ends, int count, int offset)
+    {
+        int low = 0;
+        int high = count;
+
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (ends[middle] <= offset)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private class Scan implements Runnable
+    {
+        private final Document doc;
+        private final Pattern pattern; // as they were when the scan started, start() replaces them on the edt
+        private final LiteralMatcher literal;
+        private final int visibleFrom;
+        private final int visibleTo;
+        private final int generation = edits;
+        private final boolean[] marks = new boolean[BUCKETS];
+        private volatile boolean isCancelled;
+        private int[] starts = new int[1024];
+        private int[] ends = new int[1024];
+        private int count;
+        private int position;
+        private boolean isDone;
+        private volatile boolean isTooSlow; // the regex ran out of time on some match
+
+        Scan(Document doc, int visibleFrom, int visibleTo)
+        {
+            this.doc = doc;
+            this.pattern = MarkAll.this.pattern;
+            this.literal = MarkAll.this.literal;
+            this.visibleFrom = visibleFrom;
+            this.visibleTo = visibleTo;
+        }
+
+        private boolean isStale()
+        {
+            return isCancelled || (generation != edits);
+        }
+
+        @Override
+        public void run()
+        {
+            // the viewport first, so what the user is looking at lights up before the count is known
+            doc.render(()
+                    -> 
+                    {
+                        if (!isStale())
+                        {
+                            position = visibleFrom;
+                            scan(visibleTo, null);
+                        }
+            });
+
+            int[] visibleStarts = Arrays.copyOf(starts, count);
+            int[] visibleEnds = Arrays.copyOf(ends, count);
+            int visibleCount = count;
+
+            publish(visibleStarts, visibleEnds, visibleCount, visibleFrom, visibleTo, false);
+
+            if (isTooSlow)
+            {
+                return;
+            }
+
+            count = 0;
+            position = 0;
+
+            while (!isDone && !isStale())
+            {
+                doc.render(()
+                        -> 
+                        {
+                            if (!isStale())
+                            {
+                                scan(position + SLICE, doc.getDefaultRootElement());
+                            }
+                });
+
+                publish(starts, ends, count, 0, isDone ? Integer.MAX_VALUE : position, isDone);
+            }
+        }
+
+        // records matches starting before end, read lock held
+        private void scan(int end, Element root)
+        {
+            try
+            {
+                CharSequence text = new DocumentCharSequence(doc);
+                int length = text.length();
+                GuardedCharSequence guarded = (literal == null) ? new GuardedCharSequence(text) : null;
+                Matcher matcher = (literal == null) ? pattern.matcher(guarded) : null;
+
+                end = Math.min(end, length);
+
+                if (matcher != null)
+                {
+                    matcher.useTransparentBounds(true);
+                    matcher.useAnchoringBounds(false);
+                }
+
+                // a literal cannot reach further than its length past the slice, so it need not look further
+                CharSequence window = (literal == null) ? text
+                        : text.subSequence(0, Math.min(length, end + literal.length()));
+
+                while (true)
+                {
+                    int start = -1;
+                    int matchEnd = -1;
+
+                    if (literal != null)
+                    {
+                        start = literal.indexOf(window, position);
+                        matchEnd = start + literal.length();
+                    }
+                    else if (position <= length)
+                    {
+                        // up to a little past the slice, so the read lock is not held for the rest of the
+                        // document; widened only when the engine ran into the limit, more text could change it
+                        int limit = Math.min(length, end + REGEX_SLACK);
+                        boolean isFound;
+
+                        while (true)
+                        {
+                            guarded.reset();
+                            matcher.region(position, limit);
+                            isFound = matcher.find();
+
+                            if (!matcher.hitEnd() || (limit == length))
+                            {
+                                break;
+                            }
+
+                            limit = (int) Math.min(length, (long) limit + Math.max(REGEX_SLACK, limit - position));
+                        }
+
+                        if (isFound)
+                        {
+                            start = matcher.start();
+                            matchEnd = matcher.end();
+                        }
+                    }
+
+                    if (((start < 0) && (end == length)) || ((start >= end) && (end == length)))
+                    {
+                        position = length;
+                        isDone = (root != null);
+                        return;
+                    }
+
+                    if ((start < 0) || (start >= end))
+                    {
+                        position = (start < 0) ? Math.max(position, end) : start;
+                        return;
+                    }
+
+                    position = (matchEnd > start) ? matchEnd : start + 1;
+
+                    if (matchEnd > start)
+                    {
+                        add(start, matchEnd, root);
+                    }
+                }
+            }
+            catch (GuardedCharSequence.BudgetExceededException ex)
+            {
+                isTooSlow = true;
+                isDone = true;
+            }
+            catch (BadLocationException ex)
+            {
+                Logger.getLogger(MarkAll.class.getName()).log(Level.SEVERE, null, ex);
+                isDone = true;
+            }
+        }
+
+        private void add(int start, int end, Element root)
+        {
+            if (count == starts.length)
+            {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+
+            if (root != null)
+            {
+                marks[(int) ((long) root.getElementIndex(start) * BUCKETS / root.getElementCount())] = true;
+            }
+        }
+
+        private void publish(int[] starts, int[] ends, int count, int scannedFrom, int scannedTo, boolean isDone)
+        {
+            boolean[] snapshot = marks.clone();
+
+            SwingUtilities.invokeLater(()
+                    -> 
+                    {
+                        if ((scan != this) || isStale())
+                        {
+                            return;
+                        }
+
+                        // the visible pass only stands in until the full scan has caught up with it
+                        if (((scannedFrom == 0) && (scannedTo >= MarkAll.this.scannedTo))
+                                || (MarkAll.this.scannedTo == 0))
+                        {
+                            MarkAll.this.starts = starts;
+                            MarkAll.this.ends = ends;
+                            MarkAll.this.count = count;
+                            MarkAll.this.scannedFrom = scannedFrom;
+                            MarkAll.this.scannedTo = scannedTo;
+                        }
+
+                        isComplete = isDone;
+                        MarkAll.this.isTooSlow = isTooSlow;
+                        updateHighlights();
+                        updateCount();
+                        setMarks(snapshot);
+            });
+        }
+    }
+}
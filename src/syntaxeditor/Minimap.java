@@ -0,0 +1,439 @@
+package syntaxeditor;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.beans.PropertyChangeEvent;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.Token;
+
+/*
+ * the document in miniature beside the text, a px per column and LINE_HEIGHT px per line
+ *
+ * the picture is cut into tiles of TILE_LINES lines, drawn on a background thread from the text and
+ * whatever tokens the tab's TokenCache has. only tiles on screen are drawn and at most MAX_TILES are
+ * kept, so a huge document costs no more than a small one; an edit marks the tile it falls in (and
+ * those below, if lines came or went) and the old picture stays up until the new one is in. when
+ * the document is taller than the map, the map scrolls through it along with the editor
+ */
+public class Minimap extends JComponent implements DocumentListener, TokenCache.Listener
+{
+    public static final int WIDTH = 100; // px, so also the columns shown
+    private static final int LINE_HEIGHT = 3; // px
+    private static final int GLYPH_HEIGHT = 2; // px
+    private static final int TILE_LINES = 128;
+    private static final int MAX_TILES = 32;
+    private static final int REDRAW_DELAY = 150; // ms after the last change before marked tiles are redrawn
+    private static final ExecutorService RENDERER = Executors.newSingleThreadExecutor((Runnable r) ->
+    {
+        Thread thread = new Thread(r, "Minimap");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final RSyntaxTextArea textArea;
+    private final Document doc;
+    private final JViewport viewport;
+    private final Timer redrawTimer;
+    private final Map<Integer, Tile> tiles = new LinkedHashMap<Integer, Tile>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Tile> eldest)
+        {
+            return size() > MAX_TILES;
+        }
+    };
+    private final Set<Integer> queued = new HashSet<>(); // tiles being drawn
+    private volatile int changes; // bumped by every edit or token update
+    private int generation; // bumped when the colors change
+    private int[] palette; // rgb per token type, null until read from the text area
+    private int background;
+    private int pressTop; // top line of the map when the mouse went down
+
+    public Minimap(RSyntaxTextArea textArea, JViewport viewport)
+    {
+        this.textArea = textArea;
+        this.doc = textArea.getDocument();
+        this.viewport = viewport;
+
+        redrawTimer = new Timer(REDRAW_DELAY, (ActionEvent e) ->
+        {
+            repaint();
+        });
+        redrawTimer.setRepeats(false);
+
+        doc.addDocumentListener(this);
+        viewport.addChangeListener((ChangeEvent e) ->
+        {
+            repaint();
+        });
+
+        textArea.addPropertyChangeListener((PropertyChangeEvent e) ->
+        {
+            switch (e.getPropertyName())
+            {
+                case RSyntaxTextArea.SYNTAX_SCHEME_PROPERTY:
+                case "background":
+                    palette = null;
+                    generation++;
+                    tiles.clear();
+                    repaint();
+                    break;
+                case RSyntaxTextArea.SYNTAX_STYLE_PROPERTY:
+                case "tabSize":
+                    changed(0, Integer.MAX_VALUE);
+                    break;
+                default:
+                    break;
+            }
+        });
+
+        TokenCache cache = (TokenCache) doc.getProperty(TokenCache.class);
+
+        if (cache != null)
+        {
+            cache.addListener(this);
+        }
+
+        MouseAdapter mouse = new MouseAdapter()
+        {
+            @Override
+            public void mousePressed(MouseEvent e)
+            {
+                pressTop = topLine();
+                centerOn(pressTop + e.getY() / LINE_HEIGHT);
+            }
+
+            // against the map as it was, or it would move under the mouse
+            @Override
+            public void mouseDragged(MouseEvent e)
+            {
+                centerOn(pressTop + e.getY() / LINE_HEIGHT);
+            }
+        };
+
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        setPreferredSize(new Dimension(WIDTH, 0));
+    }
+
+    // edits
+    @Override
+    public void insertUpdate(DocumentEvent e)
+    {
+        edited(e);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e)
+    {
+        edited(e);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e)
+    {
+    }
+
+    private void edited(DocumentEvent e)
+    {
+        Element root = doc.getDefaultRootElement();
+        int line = root.getElementIndex(e.getOffset());
+
+        // lines that came or went move every tile below
+        changed(line, (e.getChange(root) != null) ? Integer.MAX_VALUE : line);
+    }
+
+    @Override
+    public void tokensChanged(int firstLine, int lastLine)
+    {
+        changed(firstLine, lastLine);
+    }
+
+    private void changed(int firstLine, int lastLine)
+    {
+        changes++;
+
+        for (Map.Entry<Integer, Tile> entry : tiles.entrySet())
+        {
+            int first = entry.getKey() * TILE_LINES;
+
+            if ((first <= lastLine) && (first + TILE_LINES > firstLine))
+            {
+                entry.getValue().touchedAt = changes;
+            }
+        }
+
+        redrawTimer.restart();
+    }
+
+    // geometry
+    private int lineAt(int y)
+    {
+        return doc.getDefaultRootElement().getElementIndex(textArea.viewToModel(new Point(0, y)));
+    }
+
+    // first line in the map, which scrolls through a tall document as the editor does
+    private int topLine()
+    {
+        Rectangle visible = viewport.getViewRect();
+        int lines = doc.getDefaultRootElement().getElementCount();
+        int mapLines = getHeight() / LINE_HEIGHT;
+        int first = lineAt(visible.y);
+        int shown = lineAt(visible.y + visible.height - 1) - first + 1;
+
+        if (lines <= mapLines)
+        {
+            return 0;
+        }
+
+        long top = (long) first * (lines - mapLines) / Math.max(1, lines - shown);
+
+        return (int) Math.max(0, Math.min(lines - mapLines, top));
+    }
+
+    private void centerOn(int line)
+    {
+        Element root = doc.getDefaultRootElement();
+        line = Math.max(0, Math.min(root.getElementCount() - 1, line));
+
+        try
+        {
+            Rectangle r = textArea.modelToView(root.getElement(line).getStartOffset());
+
+            if (r == null)
+            {
+                return;
+            }
+
+            Point position = viewport.getViewPosition();
+            int max = Math.max(0, viewport.getViewSize().height - viewport.getExtentSize().height);
+
+            viewport.setViewPosition(new Point(position.x, Math.max(0, Math.min(max, r.y - viewport.getHeight() / 2))));
+        }
+        catch (BadLocationException ex)
+        {
+            Logger.getLogger(Minimap.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    // painting
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        Rectangle visible = viewport.getViewRect();
+        int lines = doc.getDefaultRootElement().getElementCount();
+        int top = topLine();
+        int bottom = Math.min(lines, top + getHeight() / LINE_HEIGHT + 1);
+
+        g.setColor(textArea.getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        for (int index = top / TILE_LINES; index * TILE_LINES < bottom; index++)
+        {
+            Tile tile = tiles.get(index);
+
+            // marked tiles wait until the typing stops
+            if ((tile == null) || ((tile.touchedAt > tile.drawnAt) && !redrawTimer.isRunning()))
+            {
+                request(index);
+            }
+
+            if (tile != null)
+            {
+                g.drawImage(tile.image, 0, (index * TILE_LINES - top) * LINE_HEIGHT, null);
+            }
+        }
+
+        int first = lineAt(visible.y);
+        int last = lineAt(visible.y + visible.height - 1);
+        Color foreground = textArea.getForeground();
+
+        g.setColor(new Color(foreground.getRed(), foreground.getGreen(), foreground.getBlue(), 40));
+        g.fillRect(0, (first - top) * LINE_HEIGHT, getWidth(), (last - first + 1) * LINE_HEIGHT);
+    }
+
+    private void request(int index)
+    {
+        if (!queued.add(index))
+        {
+            return;
+        }
+
+        if (palette == null)
+        {
+            Color back = textArea.getBackground();
+            palette = new int[Token.DEFAULT_NUM_TOKEN_TYPES];
+            background = back.getRGB();
+
+            for (int type = 0; type < palette.length; type++)
+            {
+                palette[type] = blend(textArea.getForegroundForTokenType(type), back);
+            }
+        }
+
+        int[] colors = palette;
+        int back = background;
+        int tabSize = Math.max(1, textArea.getTabSize());
+        int drawnFor = generation;
+
+        RENDERER.execute(()
+                ->
+                {
+                    draw(index, colors, back, tabSize, drawnFor);
+        });
+    }
+
+    // mostly the token's color, a little of the background
+    private static int blend(Color foreground, Color background)
+    {
+        int r = (foreground.getRed() * 7 + background.getRed() * 3) / 10;
+        int g = (foreground.getGreen() * 7 + background.getGreen() * 3) / 10;
+        int b = (foreground.getBlue() * 7 + background.getBlue() * 3) / 10;
+
+        return (r << 16) | (g << 8) | b;
+    }
+
+    // renderer thread
+    private void draw(int index, int[] colors, int back, int tabSize, int drawnFor)
+    {
+        BufferedImage image = new BufferedImage(WIDTH, TILE_LINES * LINE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[] drawnAt = new int[1];
+
+        Arrays.fill(pixels, back);
+        doc.render(()
+                ->
+                {
+                    drawnAt[0] = changes;
+                    drawLines(pixels, index * TILE_LINES, colors, tabSize);
+        });
+
+        SwingUtilities.invokeLater(()
+                ->
+                {
+                    drawn(index, image, drawnAt[0], drawnFor);
+        });
+    }
+
+    // read lock held; one px per char that is not white space, in its token's color
+    private void drawLines(int[] pixels, int first, int[] colors, int tabSize)
+    {
+        Element root = doc.getDefaultRootElement();
+        TokenCache cache = (TokenCache) doc.getProperty(TokenCache.class);
+        Segment text = new Segment();
+
+        for (int i = 0; (i < TILE_LINES) && (first + i < root.getElementCount()); i++)
+        {
+            Element element = root.getElement(first + i);
+            int start = element.getStartOffset();
+
+            try
+            {
+                doc.getText(start, Math.min(element.getEndOffset() - 1 - start, WIDTH), text);
+            }
+            catch (BadLocationException ex)
+            {
+                Logger.getLogger(Minimap.class.getName()).log(Level.SEVERE, null, ex);
+                return;
+            }
+
+            int[] packed = (cache != null) ? cache.getTokens(first + i) : null;
+            int token = 0;
+            int column = 0;
+
+            for (int c = 0; (c < text.count) && (column < WIDTH); c++)
+            {
+                char ch = text.array[text.offset + c];
+
+                if (ch == '\t')
+                {
+                    column = (column / tabSize + 1) * tabSize;
+                    continue;
+                }
+
+                if (!Character.isWhitespace(ch))
+                {
+                    // packed tokens are offset, length, type << 9 | flags, and end with the null token
+                    while ((packed != null) && (token < packed.length) && (packed[token] >= 0)
+                            && (c >= packed[token] + packed[token + 1]))
+                    {
+                        token += 3;
+                    }
+
+                    int type = ((packed != null) && (token < packed.length) && (packed[token] >= 0))
+                            ? packed[token + 2] >> 9 : Token.IDENTIFIER;
+                    int color = colors[((type >= 0) && (type < colors.length)) ? type : Token.IDENTIFIER];
+
+                    for (int y = 0; y < GLYPH_HEIGHT; y++)
+                    {
+                        pixels[(i * LINE_HEIGHT + y) * WIDTH + column] = color;
+                    }
+                }
+
+                column++;
+            }
+        }
+    }
+
+    // edt
+    private void drawn(int index, BufferedImage image, int drawnAt, int drawnFor)
+    {
+        queued.remove(index);
+
+        if (drawnFor != generation)
+        {
+            repaint();
+            return;
+        }
+
+        Tile tile = tiles.get(index);
+
+        if (tile == null)
+        {
+            // not there to be marked while it was drawn, so anything since then may be missing
+            tile = new Tile();
+            tile.touchedAt = changes;
+            tiles.put(index, tile);
+        }
+
+        tile.image = image;
+        tile.drawnAt = drawnAt;
+        repaint();
+    }
+
+    private static class Tile
+    {
+        private BufferedImage image;
+        private int drawnAt; // changes when the text was read
+        private int touchedAt; // changes when last marked, out of date while ahead of drawnAt
+    }
+}
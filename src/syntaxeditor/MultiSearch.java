@@ -0,0 +1,466 @@
+package syntaxeditor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import syntaxeditor.SearchResults.Result;
+
+// searches many texts concurrently and streams the matches into a SearchResults window
+public class MultiSearch
+{
+    private static final int MAX_MATCHES = 10000; // per source
+    private static final int CHECK_INTERVAL = 1024; // matches between cancellation checks
+    private static final int SMALL_FILE = 1 << 20; // bytes, larger files are memory mapped
+    private static final long REGION = 1 << 28; // bytes mapped at a time
+    private static final int CHUNK = 1 << 20; // chars searched at a time
+    private static final int BINARY_CHECK = 8192; // leading bytes checked for NUL
+    private static final int CONTEXT = 256; // chars kept before a chunk, for word boundaries and lookbehinds
+    private static final int REGEX_OVERLAP = 4096; // chars a regex match may run past the end of its chunk
+    // reused by every search, a pool of threads is made per folder search
+    private static final ConcurrentLinkedQueue<ByteBuffer> BYTES = new ConcurrentLinkedQueue<>();
+    private static final ConcurrentLinkedQueue<CharBuffer> CHARS = new ConcurrentLinkedQueue<>();
+
+    private final Pattern pattern;
+    private final LiteralMatcher literal; // used instead of pattern when not null
+    private final SearchResults results;
+    private final int generation;
+    private final String query;
+    private final AtomicInteger searched = new AtomicInteger();
+
+    public MultiSearch(Pattern pattern, LiteralMatcher literal, SearchResults results, String query)
+    {
+        this.pattern = pattern;
+        this.literal = literal;
+        this.results = results;
+        this.query = query;
+        this.generation = results.begin(query);
+    }
+
+    // edt only; each document is copied under its read lock and searched after, so typing never waits on it
+    public void searchTabs(List<Tab> tabs)
+    {
+        List<Document> docs = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        List<String> titles = new ArrayList<>();
+
+        for (Tab tab : tabs)
+        {
+            docs.add(tab.getTextArea().getDocument());
+            paths.add(tab.getPath());
+            titles.add((tab.getTitle() != null) ? tab.getTitle() : "Untitled");
+        }
+
+        ForkJoinPool.commonPool().execute(new RecursiveAction()
+        {
+            @Override
+            protected void compute()
+            {
+                new TabTask(docs, paths, titles, 0, docs.size()).invoke();
+                results.finish(generation, "of " + searched.get() + " tabs");
+            }
+        });
+    }
+
+    // files are listed on one thread and searched on a work-stealing pool, the folder's trigram index
+    // narrows them down once it has been built
+    public void searchFolder(File folder)
+    {
+        ForkJoinPool pool = new ForkJoinPool();
+        TrigramIndex index = TrigramIndex.forFolder(folder);
+        Thread walker = new Thread(()
+                -> 
+                {
+                    try
+                    {
+                        index.find(TrigramIndex.getTrigrams(query, literal == null),
+                                (Path file, Long size) -> pool.execute(() -> searchFile(file, size)), this::isCancelled);
+                        pool.shutdown();
+                        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+                    }
+                    catch (IOException | InterruptedException ex)
+                    {
+                        Logger.getLogger(MultiSearch.class.getName()).log(Level.SEVERE, null, ex);
+                        pool.shutdownNow();
+                    }
+
+                    results.finish(generation, "of " + searched.get() + " files");
+        }, "Find in Files");
+
+        walker.setDaemon(true);
+        walker.start();
+    }
+
+    // regular, non-empty files under root, hidden directories skipped
+    static void walkFolder(Path root, BiConsumer<Path, BasicFileAttributes> visitor,
+            BooleanSupplier isCancelled) throws IOException
+    {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+            {
+                if (isCancelled.getAsBoolean())
+                {
+                    return FileVisitResult.TERMINATE;
+                }
+
+                boolean isHidden = !dir.equals(root) && dir.getFileName().toString().startsWith(".");
+                return isHidden ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+            {
+                if (attrs.isRegularFile() && (attrs.size() > 0))
+                {
+                    visitor.accept(file, attrs);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException ex)
+            {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // decodes the file a chunk at a time, cutting chunks at line ends; large files are mapped a region at a time.
+    // a chunk's matches may run into the next one, which starts with the end of this one as context
+    private void searchFile(Path file, long size)
+    {
+        if (isCancelled())
+        {
+            return;
+        }
+
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CHARS.poll();
+        ByteBuffer small = (size <= SMALL_FILE) ? BYTES.poll() : null;
+        List<Result> found = new ArrayList<>();
+        String path = file.toString();
+        int overlap = (literal != null) ? literal.length() - 1 : REGEX_OVERLAP;
+        long position = 0;
+        int line = 0;
+        int offset = 0; // of the first char in chars
+        int from = 0; // chars before it are context, searched already
+
+        if (chars == null)
+        {
+            chars = CharBuffer.allocate(CHUNK);
+        }
+
+        if ((size <= SMALL_FILE) && (small == null))
+        {
+            small = ByteBuffer.allocateDirect(SMALL_FILE);
+        }
+
+        chars.clear();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            boolean isLast = false;
+
+            while (!isLast && !isCancelled())
+            {
+                ByteBuffer bytes;
+
+                if (small != null)
+                {
+                    bytes = small;
+                    bytes.clear();
+
+                    while (bytes.hasRemaining() && (channel.read(bytes) >= 0))
+                    {
+                    }
+
+                    bytes.flip();
+                    isLast = true;
+                }
+                else
+                {
+                    bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION, size - position));
+                    isLast = position + bytes.limit() >= size;
+                }
+
+                if ((position == 0) && isBinary(bytes))
+                {
+                    return;
+                }
+
+                while (true)
+                {
+                    boolean isFull = decoder.decode(bytes, chars, isLast).isOverflow();
+
+                    if (!isFull && !isLast)
+                    {
+                        break; // the rest of this chunk is in the next region
+                    }
+
+                    if (!isFull)
+                    {
+                        decoder.flush(chars);
+                    }
+
+                    chars.flip();
+
+                    int limit = chars.limit();
+                    int cut = limit;
+
+                    // matches starting before the cut are taken from this chunk, and have room to end in it
+                    if (isFull)
+                    {
+                        int lastLine = limit - 1;
+
+                        while ((lastLine > from) && (chars.get(lastLine) != '\n'))
+                        {
+                            lastLine--;
+                        }
+
+                        cut = Math.max(from + 1, Math.min((lastLine > from) ? lastLine + 1 : limit, limit - overlap));
+                    }
+
+                    int keep = Math.min(cut, CONTEXT);
+
+                    line += findAll(path, chars, from, cut, line, offset, found);
+                    offset += cut - keep;
+                    from = keep;
+                    chars.position(cut - keep);
+                    chars.compact();
+
+                    if (!isFull || isCancelled())
+                    {
+                        break;
+                    }
+                }
+
+                position += bytes.position();
+            }
+        }
+        catch (IOException ex)
+        {
+            Logger.getLogger(MultiSearch.class.getName()).log(Level.FINE, path, ex);
+        }
+        finally
+        {
+            CHARS.offer(chars);
+
+            if (small != null)
+            {
+                BYTES.offer(small);
+            }
+
+            searched.incrementAndGet();
+        }
+
+        results.addGroup(generation, path, found);
+    }
+
+    private static boolean isBinary(ByteBuffer bytes)
+    {
+        int end = Math.min(bytes.limit(), BINARY_CHECK);
+
+        for (int i = 0; i < end; i++)
+        {
+            if (bytes.get(i) == 0)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void searchTab(Document doc, String path, String title)
+    {
+        String[] text = new String[1];
+
+        doc.render(()
+                -> 
+                {
+                    try
+                    {
+                        text[0] = doc.getText(0, doc.getLength());
+                    }
+                    catch (BadLocationException ex)
+                    {
+                        Logger.getLogger(MultiSearch.class.getName()).log(Level.SEVERE, null, ex);
+                    }
+        });
+
+        if ((text[0] != null) && !isCancelled())
+        {
+            List<Result> found = new ArrayList<>();
+
+            findAll(path, text[0], 0, text[0].length(), 0, 0, found);
+            results.addGroup(generation, title, found);
+        }
+
+        searched.incrementAndGet();
+    }
+
+    // adds the matches starting between start and end of text, a part of the source at path starting at
+    // offsetBase; the chars around them are only context. returns the count of lines from start to end
+    int findAll(String path, CharSequence text, int start, int end, int lineBase, int offsetBase, List<Result> found)
+    {
+        GuardedCharSequence guarded = (literal == null) ? new GuardedCharSequence(text) : null;
+        Matcher matcher = (literal == null) ? pattern.matcher(guarded) : null;
+        int position = start;
+        int line = lineBase;
+        int lineStart = start;
+        // a match running on from the previous part is not overlapped
+        int from = found.isEmpty() ? start : Math.max(start, found.get(found.size() - 1).getEnd() - offsetBase);
+        int matchStart = -1;
+
+        while ((lineStart > 0) && (text.charAt(lineStart - 1) != '\n'))
+        {
+            lineStart--;
+        }
+
+        if (literal != null)
+        {
+            matchStart = literal.indexOf(text, from);
+        }
+        else
+        {
+            matcher.useTransparentBounds(true).useAnchoringBounds(false).region(from, text.length());
+        }
+
+        while (found.size() < MAX_MATCHES)
+        {
+            int matchEnd;
+
+            if (literal != null)
+            {
+                if (matchStart < 0)
+                    break;
+
+                matchEnd = matchStart + literal.length();
+            }
+            else
+            {
+                guarded.reset();
+
+                // a pattern that runs out of time gives up on this source only
+                try
+                {
+                    if (!matcher.find())
+                        break;
+                }
+                catch (GuardedCharSequence.BudgetExceededException ex)
+                {
+                    break;
+                }
+
+                matchStart = matcher.start();
+                matchEnd = matcher.end();
+
+                if (matchStart == matchEnd)
+                    continue;
+            }
+
+            if (matchStart >= end)
+                break;
+
+            for (; position < matchStart; position++)
+            {
+                if (text.charAt(position) == '\n')
+                {
+                    line++;
+                    lineStart = position + 1;
+                }
+            }
+
+            found.add(new Result(path, null, line, offsetBase + matchStart, offsetBase + matchEnd,
+                    SearchResults.preview(text, lineStart, matchStart)));
+
+            if (((found.size() % CHECK_INTERVAL) == 0) && isCancelled())
+                break;
+
+            if (literal != null)
+                matchStart = literal.indexOf(text, matchEnd);
+        }
+
+        for (; position < end; position++)
+        {
+            if (text.charAt(position) == '\n')
+            {
+                line++;
+            }
+        }
+
+        return line - lineBase;
+    }
+
+    boolean isCancelled()
+    {
+        return !results.isCurrent(generation);
+    }
+
+    private class TabTask extends RecursiveAction
+    {
+        private final List<Document> docs;
+        private final List<String> paths;
+        private final List<String> titles;
+        private final int start;
+        private final int end;
+
+        TabTask(List<Document> docs, List<String> paths, List<String> titles, int start, int end)
+        {
+            this.docs = docs;
+            this.paths = paths;
+            this.titles = titles;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (isCancelled())
+            {
+                return;
+            }
+
+            if (end - start == 1)
+            {
+                searchTab(docs.get(start), paths.get(start), titles.get(start));
+            }
+            else if (end > start)
+            {
+                int middle = (start + end) >>> 1;
+                invokeAll(new TabTask(docs, paths, titles, start, middle), new TabTask(docs, paths, titles, middle, end));
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package syntaxeditor;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.event.CaretEvent;
+import javax.swing.event.CaretListener;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+
+// the classes, functions and headings of the current tab, following its edits and its caret
+public class Outline extends JFrame implements TokenCache.Listener
+{
+    private static final int INDENT = 16; // px per nesting level
+
+    private final SymbolModel model = new SymbolModel();
+    private final JList<Symbols.Symbol> list = new JList<>(model);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final CaretListener caretListener;
+    private final PropertyChangeListener syntaxListener;
+    private Tab tab;
+
+    public Outline(Consumer<Symbols.Symbol> opener)
+    {
+        super("Outline");
+
+        list.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        list.setPrototypeCellValue(new Symbols.Symbol("", Symbols.FUNCTION, 0, 0)); // fixed row height
+        list.setCellRenderer(new DefaultListCellRenderer()
+        {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus)
+            {
+                Symbols.Symbol symbol = (Symbols.Symbol) value;
+                super.getListCellRendererComponent(list, symbol.getName(), index, isSelected, cellHasFocus);
+                setFont((symbol.getKind() == Symbols.FUNCTION) ? list.getFont() : list.getFont().deriveFont(Font.BOLD));
+                setBorder(BorderFactory.createEmptyBorder(0, 2 + symbol.getDepth() * INDENT, 0, 2));
+                return this;
+            }
+        });
+
+        list.addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mouseClicked(MouseEvent e)
+            {
+                if ((e.getClickCount() == 2) && (list.getSelectedValue() != null))
+                {
+                    opener.accept(list.getSelectedValue());
+                }
+            }
+        });
+
+        list.addKeyListener(new KeyAdapter()
+        {
+            @Override
+            public void keyPressed(KeyEvent e)
+            {
+                if ((e.getKeyCode() == KeyEvent.VK_ENTER) && (list.getSelectedValue() != null))
+                {
+                    opener.accept(list.getSelectedValue());
+                }
+            }
+        });
+
+        caretListener = (CaretEvent e) ->
+        {
+            follow();
+        };
+
+        syntaxListener = (PropertyChangeEvent e) ->
+        {
+            refresh();
+        };
+
+        add(new JScrollPane(list), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+        setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+        setSize(300, 600);
+    }
+
+    // the tab to outline from now on, null for none
+    public void setTab(Tab tab)
+    {
+        if (this.tab != null)
+        {
+            this.tab.getTokenCache().removeListener(this);
+            this.tab.getTextArea().removeCaretListener(caretListener);
+            this.tab.getTextArea().removePropertyChangeListener(RSyntaxTextArea.SYNTAX_STYLE_PROPERTY, syntaxListener);
+        }
+
+        this.tab = tab;
+
+        if (tab != null)
+        {
+            tab.getTokenCache().addListener(this);
+            tab.getTextArea().addCaretListener(caretListener);
+            tab.getTextArea().addPropertyChangeListener(RSyntaxTextArea.SYNTAX_STYLE_PROPERTY, syntaxListener);
+        }
+
+        refresh();
+    }
+
+    @Override
+    public void tokensChanged(int firstLine, int lastLine)
+    {
+        refresh();
+    }
+
+    private void refresh()
+    {
+        List<Symbols.Symbol> outline = (tab != null) ? tab.getTokenCache().getOutline()
+                : Collections.<Symbols.Symbol>emptyList();
+
+        if (outline != model.symbols)
+        {
+            model.set(outline);
+            statusLabel.setText(outline.size() + " symbols");
+            follow();
+        }
+    }
+
+    // selects the symbol the caret is under
+    private void follow()
+    {
+        if ((tab == null) || model.symbols.isEmpty())
+        {
+            return;
+        }
+
+        RSyntaxTextArea textArea = tab.getTextArea();
+        int line = textArea.getDocument().getDefaultRootElement().getElementIndex(textArea.getCaretPosition());
+        int index = model.indexAt(line);
+
+        if ((index >= 0) && (index != list.getSelectedIndex()))
+        {
+            list.setSelectedIndex(index);
+            list.ensureIndexIsVisible(index);
+        }
+    }
+
+    // a list of symbols replaced as a whole, never changed in place
+    static class SymbolModel extends AbstractListModel<Symbols.Symbol>
+    {
+        private List<Symbols.Symbol> symbols = Collections.emptyList();
+
+        @Override
+        public int getSize()
+        {
+            return symbols.size();
+        }
+
+        @Override
+        public Symbols.Symbol getElementAt(int index)
+        {
+            return symbols.get(index);
+        }
+
+        void set(List<Symbols.Symbol> symbols)
+        {
+            int size = this.symbols.size();
+            this.symbols = symbols;
+
+            if (size > 0)
+            {
+                fireIntervalRemoved(this, 0, size - 1);
+            }
+
+            if (!symbols.isEmpty())
+            {
+                fireIntervalAdded(this, 0, symbols.size() - 1);
+            }
+        }
+
+        // the last symbol at or above line, -1 if there is none; symbols are in line order
+        int indexAt(int line)
+        {
+            int low = 0;
+            int high = symbols.size() - 1;
+
+            while (low <= high)
+            {
+                int middle = (low + high) >>> 1;
+
+                if (symbols.get(middle).getLine() <= line)
+                {
+                    low = middle + 1;
+                }
+                else
+                {
+                    high = middle - 1;
+                }
+            }
+
+            return high;
+        }
+    }
+}
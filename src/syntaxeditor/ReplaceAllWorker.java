@@ -0,0 +1,152 @@
+package syntaxeditor;
+
+import java.awt.event.ActionEvent;
+import java.beans.PropertyChangeEvent;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rtextarea.SearchEngine;
+
+// scans a snapshot once and applies every replacement as a single undoable edit
+public class ReplaceAllWorker extends SwingWorker<String, Void>
+{
+    private static final int CHECK_INTERVAL = 100; // ms between progress updates and checks for Cancel
+
+    private final RSyntaxTextArea textArea;
+    private final Pattern pattern;
+    private final String replaceWith;
+    private final boolean isRegex;
+    private final ProgressMonitor monitor;
+    private final Timer cancelTimer;
+    private int first = -1;
+    private int last = -1;
+    private int count;
+
+    public ReplaceAllWorker(RSyntaxTextArea textArea, Pattern pattern, String replaceWith, boolean isRegex)
+    {
+        this.textArea = textArea;
+        this.pattern = pattern;
+        this.replaceWith = replaceWith;
+        this.isRegex = isRegex;
+
+        monitor = new ProgressMonitor(textArea, "Replacing...", null, 0, 100);
+        monitor.setMillisToDecideToPopup(300);
+
+        addPropertyChangeListener((PropertyChangeEvent evt) ->
+        {
+            if ("progress".equals(evt.getPropertyName()))
+            {
+                monitor.setProgress((Integer) evt.getNewValue());
+            }
+        });
+
+        // polled on its own, progress may not change for a long while; the interrupt stops a find midway
+        cancelTimer = new Timer(CHECK_INTERVAL, (ActionEvent e) ->
+        {
+            if (monitor.isCanceled())
+            {
+                cancel(true);
+            }
+        });
+    }
+
+    public void start()
+    {
+        // the snapshot must stay valid until the result is applied
+        textArea.setEditable(false);
+        cancelTimer.start();
+        execute();
+    }
+
+    @Override
+    protected String doInBackground() throws BadLocationException
+    {
+        Document doc = textArea.getDocument();
+        String text = doc.getText(0, doc.getLength());
+        // no time limit, a long document is slow to get through whatever the pattern; Cancel interrupts it
+        GuardedCharSequence guarded = new GuardedCharSequence(text, 0);
+        Matcher matcher = pattern.matcher(guarded);
+        StringBuilder result = new StringBuilder();
+        int position = 0;
+        long nextCheck = System.nanoTime();
+
+        while (matcher.find())
+        {
+            long now = System.nanoTime();
+
+            count++;
+
+            if (now >= nextCheck)
+            {
+                if (isCancelled())
+                {
+                    return null;
+                }
+
+                setProgress((int) (100L * matcher.end() / Math.max(1, text.length())));
+                nextCheck = now + CHECK_INTERVAL * 1000000L;
+            }
+
+            if (first < 0)
+            {
+                first = position = matcher.start();
+            }
+
+            result.append(text, position, matcher.start());
+            result.append(isRegex ? SearchEngine.getReplacementText(matcher, replaceWith) : replaceWith);
+            position = last = matcher.end();
+        }
+
+        return (count > 0) ? result.toString() : null;
+    }
+
+    @Override
+    protected void done()
+    {
+        cancelTimer.stop();
+        monitor.close();
+        textArea.setEditable(true);
+
+        if (isCancelled())
+        {
+            return;
+        }
+
+        try
+        {
+            String result = get();
+
+            if (result != null)
+            {
+                textArea.beginAtomicEdit();
+
+                try
+                {
+                    textArea.replaceRange(result, first, last);
+                }
+                finally
+                {
+                    textArea.endAtomicEdit();
+                }
+
+                textArea.setCaretPosition(first + result.length());
+            }
+        }
+        catch (ExecutionException ex)
+        {
+            Logger.getLogger(ReplaceAllWorker.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(ReplaceAllWorker.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package syntaxeditor;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+// the find bar options as a java.util.regex.Pattern
+public class SearchPattern
+{
+    // {1,2} so that a letter outside the BMP, two chars long, is looked behind as well
+    private static final String WORD_START = "(?<![\\p{L}\\p{N}_]{1,2})";
+    private static final String WORD_END = "(?![\\p{L}\\p{N}_])";
+
+    public static Pattern compile(String searchFor, boolean isRegex, boolean matchCase,
+            boolean wholeWord) throws PatternSyntaxException
+    {
+        String regex = isRegex ? searchFor : Pattern.quote(searchFor);
+        int flags = Pattern.MULTILINE;
+
+        if (wholeWord)
+        {
+            regex = WORD_START + "(?:" + regex + ")" + WORD_END;
+        }
+
+        if (!matchCase)
+        {
+            flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        }
+
+        return Pattern.compile(regex, flags);
+    }
+
+    // the test WORD_START and WORD_END make, for the matchers that do without a Pattern
+    static boolean isWholeWord(CharSequence text, int start, int end)
+    {
+        return ((start == 0) || !isWordChar(Character.codePointBefore(text, start)))
+                && ((end == text.length()) || !isWordChar(Character.codePointAt(text, end)));
+    }
+
+    // [\p{L}\p{N}_], by code point as the regex sees it
+    static boolean isWordChar(int c)
+    {
+        switch (Character.getType(c))
+        {
+            case Character.UPPERCASE_LETTER:
+            case Character.LOWERCASE_LETTER:
+            case Character.TITLECASE_LETTER:
+            case Character.MODIFIER_LETTER:
+            case Character.OTHER_LETTER:
+            case Character.DECIMAL_DIGIT_NUMBER:
+            case Character.LETTER_NUMBER:
+            case Character.OTHER_NUMBER:
+                return true;
+            default:
+                return c == '_';
+        }
+    }
+}
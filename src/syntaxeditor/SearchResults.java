@@ -0,0 +1,299 @@
+package syntaxeditor;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+// results of a multi-document search, streamed in from worker threads and grouped by source
+public class SearchResults extends JFrame
+{
+    private static final int FLUSH_DELAY = 100; // ms
+    private static final int PREVIEW_LENGTH = 200;
+    private static final int PREVIEW_CONTEXT = 60; // chars shown before a match far into its line
+
+    private final ResultModel model = new ResultModel();
+    private final JList<Result> list = new JList<>(model);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final ConcurrentLinkedQueue<Group> incoming = new ConcurrentLinkedQueue<>();
+    private final Timer timer;
+    private volatile int generation;
+    private String query;
+    private String summary;
+    private int sources;
+    private int matches;
+
+    public SearchResults(Consumer<Result> opener)
+    {
+        super("Find Results");
+
+        list.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        list.setPrototypeCellValue(new Result(null, "", 0, 0, 0, "")); // fixed row height, only visible rows are laid out
+        list.setCellRenderer(new DefaultListCellRenderer()
+        {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus)
+            {
+                Result result = (Result) value;
+                super.getListCellRendererComponent(list, result.toString(), index, isSelected, cellHasFocus);
+                setFont(result.isHeader() ? list.getFont().deriveFont(Font.BOLD) : list.getFont());
+                return this;
+            }
+        });
+
+        list.addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mouseClicked(MouseEvent e)
+            {
+                if ((e.getClickCount() == 2) && (list.getSelectedValue() != null))
+                {
+                    opener.accept(list.getSelectedValue());
+                }
+            }
+        });
+
+        list.addKeyListener(new KeyAdapter()
+        {
+            @Override
+            public void keyPressed(KeyEvent e)
+            {
+                if ((e.getKeyCode() == KeyEvent.VK_ENTER) && (list.getSelectedValue() != null))
+                {
+                    opener.accept(list.getSelectedValue());
+                }
+            }
+        });
+
+        timer = new Timer(FLUSH_DELAY, (ActionEvent e) ->
+        {
+            drain();
+        });
+
+        add(new JScrollPane(list), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+        setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+        setSize(700, 400);
+    }
+
+    // starts a new search, results of earlier ones are dropped; returns its generation
+    public int begin(String query)
+    {
+        generation++;
+        incoming.clear();
+        model.clear();
+        this.query = query;
+        summary = null;
+        sources = 0;
+        matches = 0;
+
+        setTitle("Find Results - '" + query + "'");
+        statusLabel.setText("Searching...");
+        timer.start();
+
+        if (!isVisible())
+        {
+            setLocationRelativeTo(getOwner());
+            setVisible(true);
+        }
+
+        return generation;
+    }
+
+    public boolean isCurrent(int generation)
+    {
+        return this.generation == generation;
+    }
+
+    // thread safe, a group arrives in one piece so rows of different sources never interleave; one that
+    // a new search overtakes on its way in is dropped when drained
+    public void addGroup(int generation, String title, List<Result> results)
+    {
+        if (isCurrent(generation) && !results.isEmpty())
+        {
+            List<Result> rows = new ArrayList<>(results.size() + 1);
+            rows.add(new Result(results.get(0).getPath(), title, -1, 0, 0, null));
+            rows.addAll(results);
+            incoming.add(new Group(generation, rows));
+        }
+    }
+
+    // thread safe, called once the search has finished
+    public void finish(int generation, String summary)
+    {
+        SwingUtilities.invokeLater(()
+                -> 
+                {
+                    if (isCurrent(generation))
+                    {
+                        this.summary = summary;
+                        drain();
+                    }
+        });
+    }
+
+    private void drain()
+    {
+        Group group;
+        int first = model.getSize();
+
+        while ((group = incoming.poll()) != null)
+        {
+            if (isCurrent(group.generation))
+            {
+                model.rows.addAll(group.rows);
+                sources++;
+                matches += group.rows.size() - 1;
+            }
+        }
+
+        if (model.getSize() > first)
+        {
+            model.added(first);
+
+            if (first == 0)
+            {
+                list.setSelectedIndex(1);
+            }
+        }
+
+        if (summary != null)
+        {
+            timer.stop();
+            statusLabel.setText(matches + " matches in " + sources + " " + summary + " for '" + query + "'");
+        }
+        else
+        {
+            statusLabel.setText("Searching... " + matches + " matches in " + sources + " so far");
+        }
+    }
+
+    private static class Group
+    {
+        private final int generation;
+        private final List<Result> rows;
+
+        private Group(int generation, List<Result> rows)
+        {
+            this.generation = generation;
+            this.rows = rows;
+        }
+    }
+
+    // a match, or the header row of the source it belongs to when line is -1; the source is the path of
+    // the file or tab searched, so results never keep a closed tab around
+    public static class Result
+    {
+        private final String path;
+        private final String text;
+        private final int line;
+        private final int start;
+        private final int end;
+
+        public Result(String path, String title, int line, int start, int end, String preview)
+        {
+            this.path = path;
+            this.line = line;
+            this.start = start;
+            this.end = end;
+            this.text = (line < 0) ? title : String.format("%6d: %s", line + 1, preview);
+        }
+
+        public String getPath()
+        {
+            return path;
+        }
+
+        public int getLine()
+        {
+            return line;
+        }
+
+        public int getStart()
+        {
+            return start;
+        }
+
+        public int getEnd()
+        {
+            return end;
+        }
+
+        public boolean isHeader()
+        {
+            return line < 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return text;
+        }
+    }
+
+    // part of the line around a match, starting a little before it
+    static String preview(CharSequence text, int lineStart, int matchStart)
+    {
+        StringBuilder preview = new StringBuilder();
+        int start = Math.max(lineStart, matchStart - PREVIEW_CONTEXT);
+        int end = Math.min(text.length(), start + PREVIEW_LENGTH);
+
+        for (int i = start; (i < end) && (text.charAt(i) != '\n'); i++)
+        {
+            char c = text.charAt(i);
+            preview.append(Character.isWhitespace(c) ? ' ' : c);
+        }
+
+        return preview.toString().trim();
+    }
+
+    private static class ResultModel extends AbstractListModel<Result>
+    {
+        private final List<Result> rows = new ArrayList<>();
+
+        @Override
+        public int getSize()
+        {
+            return rows.size();
+        }
+
+        @Override
+        public Result getElementAt(int index)
+        {
+            return rows.get(index);
+        }
+
+        void added(int first)
+        {
+            fireIntervalAdded(this, first, rows.size() - 1);
+        }
+
+        void clear()
+        {
+            int size = rows.size();
+            rows.clear();
+
+            if (size > 0)
+            {
+                fireIntervalRemoved(this, 0, size - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,982 @@
+package syntaxeditor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+import org.fife.ui.rsyntaxtextarea.Token;
+
+/*
+ * the classes, functions and headings of a document, found one line at a time in its tokens
+ *
+ * TokenCache scans every line it tokenizes and keeps the symbols found with the line's tokens, so an
+ * edit only rescans the lines it has to re-tokenize anyway; once the background pass has caught up the
+ * outline is put together from the kept lines, each symbol nested under the nearest one above it that
+ * is indented less. the rules never look past their line: a keyword such as class or def followed by
+ * a name, a name assigned a function or class, a c style "type name(...)" declaration, a label at the
+ * start of a line, or a LaTeX or HTML heading, whose level stands in for its indent
+ */
+public final class Symbols
+{
+    public static final int TYPE = 0;
+    public static final int FUNCTION = 1;
+    public static final int HEADING = 2;
+
+    private static final int TAB_WIDTH = 4; // columns a tab is counted as when comparing indents
+
+    // what a syntax looks for besides its keywords
+    private static final int DECLARATIONS = 1; // "type name(...)" as in c and java
+    private static final int LABELS = 2; // preprocessor tokens opening a line, make targets and asm or batch labels
+    private static final int LATEX = 4; // \section{...} and the like
+    private static final int HTML = 8; // <h1> to <h6>
+    private static final int LISP = 16; // (define (name ...)
+    private static final int SQL = 32; // keywords only count on a line starting with create
+    private static final int IGNORE_CASE = 64;
+    private static final int TERMINATED = 128; // statements end in ; so a line ending in name(...) declares it
+
+    private static final Map<String, Rules> RULES = new HashMap<>();
+
+    // words a declaration never starts with, they put a call where a declaration would be
+    private static final Set<String> STATEMENTS = new HashSet<>(Arrays.asList("return", "new", "else", "throw",
+            "case", "goto", "delete", "yield", "await", "sizeof", "typeof", "do", "echo", "print", "in", "of",
+            "and", "or", "not", "instanceof", "assert", "raise"));
+    private static final Set<String> DECLARATION_OPERATORS = new HashSet<>(Arrays.asList("<", ">", ">>", ">>>",
+            ",", "[", "]", "*", "&", "&&", ":", "::", "?", "~"));
+    private static final Set<String> SQL_CONDITION = new HashSet<>(Arrays.asList("if", "not", "exists"));
+    private static final List<String> LATEX_HEADINGS = Arrays.asList("\\part", "\\chapter", "\\section",
+            "\\subsection", "\\subsubsection", "\\paragraph", "\\subparagraph");
+
+    static
+    {
+        // syntax, type keywords, function keywords, type and function keywords assigned to a name, flags
+        rules(SyntaxConstants.SYNTAX_STYLE_ACTIONSCRIPT, "class interface", "function", "", "", 0);
+        rules(SyntaxConstants.SYNTAX_STYLE_ASSEMBLER_X86, "", "", "", "", LABELS);
+        rules(SyntaxConstants.SYNTAX_STYLE_WINDOWS_BATCH, "", "", "", "", LABELS);
+        rules(SyntaxConstants.SYNTAX_STYLE_C, "struct union enum", "", "", "", DECLARATIONS | TERMINATED);
+        rules(SyntaxConstants.SYNTAX_STYLE_CSHARP, "class interface struct enum namespace", "", "", "",
+                DECLARATIONS | TERMINATED);
+        rules(SyntaxConstants.SYNTAX_STYLE_CPLUSPLUS, "class struct union enum namespace", "", "", "",
+                DECLARATIONS | TERMINATED);
+        rules(SyntaxConstants.SYNTAX_STYLE_DELPHI, "", "procedure function constructor destructor",
+                "class record interface object", "", IGNORE_CASE);
+        rules(SyntaxConstants.SYNTAX_STYLE_HTML, "", "", "", "", HTML);
+        rules(SyntaxConstants.SYNTAX_STYLE_JAVA, "class interface enum @interface", "", "", "",
+                DECLARATIONS | TERMINATED);
+        rules(SyntaxConstants.SYNTAX_STYLE_JAVASCRIPT, "class", "function", "class", "function", DECLARATIONS);
+        rules(SyntaxConstants.SYNTAX_STYLE_LATEX, "", "", "", "", LATEX);
+        rules(SyntaxConstants.SYNTAX_STYLE_LISP, "defclass defstruct", "defun defmacro defgeneric defmethod define",
+                "", "", LISP | IGNORE_CASE);
+        rules(SyntaxConstants.SYNTAX_STYLE_LUA, "", "function", "", "function", 0);
+        rules(SyntaxConstants.SYNTAX_STYLE_MAKEFILE, "", "", "", "", LABELS);
+        rules(SyntaxConstants.SYNTAX_STYLE_PERL, "package", "sub", "", "", 0);
+        rules(SyntaxConstants.SYNTAX_STYLE_PHP, "class interface trait", "function", "", "", HTML);
+        rules(SyntaxConstants.SYNTAX_STYLE_PYTHON, "class", "def", "", "", 0);
+        rules(SyntaxConstants.SYNTAX_STYLE_RUBY, "class module", "def", "", "", 0);
+        rules(SyntaxConstants.SYNTAX_STYLE_SCALA, "class object trait", "def", "", "", 0);
+        rules(SyntaxConstants.SYNTAX_STYLE_SQL, "table view", "procedure function trigger", "", "", SQL | IGNORE_CASE);
+        rules(SyntaxConstants.SYNTAX_STYLE_TCL, "", "proc", "", "", 0);
+        rules(SyntaxConstants.SYNTAX_STYLE_UNIX_SHELL, "", "function", "", "", DECLARATIONS | TERMINATED);
+    }
+
+    private Symbols()
+    {
+    }
+
+    private static void rules(String syntax, String types, String functions, String assignedTypes,
+            String assignedFunctions, int flags)
+    {
+        Rules rules = new Rules(flags);
+
+        rules.put(rules.keywords, types, TYPE);
+        rules.put(rules.keywords, functions, FUNCTION);
+        rules.put(rules.assigned, assignedTypes, TYPE);
+        rules.put(rules.assigned, assignedFunctions, FUNCTION);
+
+        RULES.put(syntax, rules);
+    }
+
+    // null if the syntax has no symbols
+    static Rules forSyntax(String syntax)
+    {
+        return RULES.get(syntax);
+    }
+
+    // the symbols of one tokenized line, null if it has none
+    static Symbol[] scan(Rules rules, Token first, int start)
+    {
+        List<Token> tokens = new ArrayList<>();
+        int indent = 0;
+
+        for (Token t = first; (t != null) && t.isPaintable(); t = t.getNextToken())
+        {
+            if (t.isWhitespace())
+            {
+                if (tokens.isEmpty())
+                {
+                    indent = indent(t, indent);
+                }
+            }
+            else if (!t.isComment())
+            {
+                tokens.add(t);
+            }
+        }
+
+        if (tokens.isEmpty())
+        {
+            return null;
+        }
+
+        List<Symbol> symbols = new ArrayList<>();
+        boolean isCreate = ((rules.flags & SQL) == 0) || rules.key(tokens.get(0)).equals("create");
+
+        if ((rules.flags & LABELS) != 0)
+        {
+            label(tokens.get(0), start, symbols);
+        }
+
+        for (int i = 0; i < tokens.size(); i++)
+        {
+            Token t = tokens.get(i);
+            int end = -1;
+
+            if ((rules.flags & LATEX) != 0)
+            {
+                end = latexHeading(tokens, i, start, symbols);
+            }
+            else if (((rules.flags & HTML) != 0) && t.isSingleChar(Token.MARKUP_TAG_DELIMITER, '<'))
+            {
+                end = htmlHeading(tokens, i, start, symbols);
+            }
+
+            if ((end < 0) && isWord(t))
+            {
+                Integer kind = isCreate ? rules.keywords.get(rules.key(t)) : null;
+
+                if ((kind != null) && !isMember(tokens, i))
+                {
+                    end = keyword(rules, tokens, i, kind, start, indent, symbols);
+                }
+
+                if ((end < 0) && !rules.assigned.isEmpty())
+                {
+                    end = assigned(rules, tokens, i, start, indent, symbols);
+                }
+
+                if ((end < 0) && ((rules.flags & DECLARATIONS) != 0))
+                {
+                    end = declaration(tokens, i, (rules.flags & TERMINATED) != 0, start, indent, symbols);
+                }
+            }
+
+            if (end > i)
+            {
+                i = end - 1;
+            }
+        }
+
+        return symbols.isEmpty() ? null : symbols.toArray(new Symbol[symbols.size()]);
+    }
+
+    // class Foo, def bar, enum class Baz; the index after the name, -1 if there is none
+    private static int keyword(Rules rules, List<Token> tokens, int i, int kind, int start, int indent,
+            List<Symbol> symbols)
+    {
+        int name = i + 1;
+
+        // enum class, local function, create or replace view
+        while ((name < tokens.size()) && isWord(tokens.get(name)) && rules.keywords.containsKey(rules.key(tokens.get(name))))
+        {
+            kind = rules.keywords.get(rules.key(tokens.get(name)));
+            name++;
+        }
+
+        if (((rules.flags & LISP) != 0) && (name < tokens.size()) && tokens.get(name).isSingleChar('('))
+        {
+            name++;
+        }
+
+        // create table if not exists
+        while (((rules.flags & SQL) != 0) && (name < tokens.size())
+                && SQL_CONDITION.contains(rules.key(tokens.get(name))))
+        {
+            name++;
+        }
+
+        int end = nameEnd(tokens, name);
+
+        if (end == name)
+        {
+            return -1;
+        }
+
+        // struct foo *bar() and class Foo; are no definitions of foo
+        if ((kind == TYPE) && ((rules.flags & DECLARATIONS) != 0) && (end < tokens.size()))
+        {
+            Token next = tokens.get(end);
+
+            if ((isWord(next) && !isReserved(next)) || next.isSingleChar('*') || next.isSingleChar('&')
+                    || next.isSingleChar(';'))
+            {
+                return -1;
+            }
+        }
+
+        symbols.add(new Symbol(name(tokens, name, end), kind, tokens.get(name).getOffset() - start, indent));
+        return end;
+    }
+
+    // foo = function, Foo: class, TFoo = class(TObject), f = (a) => ... at the start of a line
+    private static int assigned(Rules rules, List<Token> tokens, int i, int start, int indent, List<Symbol> symbols)
+    {
+        for (int j = 0; j < i; j++)
+        {
+            if (!isReserved(tokens.get(j)))
+            {
+                return -1;
+            }
+        }
+
+        int end = nameEnd(tokens, i);
+
+        if ((end == i) || (end >= tokens.size() - 1) || !(tokens.get(end).isSingleChar('=')
+                || tokens.get(end).isSingleChar(':')))
+        {
+            return -1;
+        }
+
+        int value = end + 1;
+
+        if (rules.key(tokens.get(value)).equals("async") && (value < tokens.size() - 1))
+        {
+            value++;
+        }
+
+        Integer kind = isWord(tokens.get(value)) ? rules.assigned.get(rules.key(tokens.get(value))) : null;
+
+        if ((kind == null) && rules.assigned.containsKey("function") && isArrowFunction(tokens, value))
+        {
+            kind = FUNCTION;
+        }
+
+        if (kind == null)
+        {
+            return -1;
+        }
+
+        symbols.add(new Symbol(name(tokens, i, end), kind, tokens.get(i).getOffset() - start, indent));
+        return value + 1;
+    }
+
+    // (a, b) => or a => starting at i
+    private static boolean isArrowFunction(List<Token> tokens, int i)
+    {
+        int close = i;
+
+        if (tokens.get(i).isSingleChar('('))
+        {
+            close = closingParen(tokens, i);
+        }
+        else if (!isWord(tokens.get(i)))
+        {
+            return false;
+        }
+
+        if ((close < 0) || (close + 1 >= tokens.size()))
+        {
+            return false;
+        }
+
+        Token arrow = tokens.get(close + 1);
+
+        if (arrow.is("=>".toCharArray()))
+        {
+            return true;
+        }
+
+        return arrow.isSingleChar('=') && (close + 2 < tokens.size()) && tokens.get(close + 2).isSingleChar('>')
+                && (tokens.get(close + 2).getOffset() == arrow.getEndOffset());
+    }
+
+    // public static int foo(int a) {, Foo::~Foo(), List<String> names() throws X
+    private static int declaration(List<Token> tokens, int i, boolean isTerminated, int start, int indent,
+            List<Symbol> symbols)
+    {
+        Token t = tokens.get(i);
+
+        if (((t.getType() != Token.IDENTIFIER) && (t.getType() != Token.FUNCTION))
+                || STATEMENTS.contains(t.getLexeme()))
+        {
+            return -1;
+        }
+
+        int end = nameEnd(tokens, i);
+
+        if ((end >= tokens.size()) || !tokens.get(end).isSingleChar('('))
+        {
+            return -1;
+        }
+
+        // everything ahead of the name has to read as modifiers and a type
+        for (int j = 0; j < i; j++)
+        {
+            Token before = tokens.get(j);
+
+            if (isWord(before) ? STATEMENTS.contains(before.getLexeme())
+                    : !DECLARATION_OPERATORS.contains(before.getLexeme()))
+            {
+                return -1;
+            }
+        }
+
+        boolean hasType = i > 0;
+        int close = closingParen(tokens, end);
+        boolean isDeclaration;
+
+        if (close < 0)
+        {
+            // parameters going on below
+            isDeclaration = hasType;
+        }
+        else if (close == tokens.size() - 1)
+        {
+            // the brace on the next line
+            isDeclaration = hasType || isTerminated;
+        }
+        else
+        {
+            Token next = tokens.get(close + 1);
+
+            if (next.isSingleChar('{') || isReserved(next) || next.isSingleChar(':'))
+            {
+                isDeclaration = true;
+            }
+            else if (next.isSingleChar(';'))
+            {
+                // a prototype, unless it is an object built from values
+                isDeclaration = hasType && !hasLiteral(tokens, end, close);
+            }
+            else
+            {
+                isDeclaration = hasType && (next.isSingleChar('=') || next.is("->".toCharArray()));
+            }
+        }
+
+        if (!isDeclaration)
+        {
+            return -1;
+        }
+
+        String name = name(tokens, i, end);
+
+        // a destructor
+        if ((i > 0) && tokens.get(i - 1).isSingleChar('~') && (tokens.get(i - 1).getEndOffset() == t.getOffset()))
+        {
+            name = "~" + name;
+        }
+
+        symbols.add(new Symbol(name, FUNCTION, t.getOffset() - start, indent));
+        return (close < 0) ? tokens.size() : close + 1;
+    }
+
+    // all: deps, start: and :label opening a line
+    private static void label(Token t, int start, List<Symbol> symbols)
+    {
+        if ((t.getType() != Token.PREPROCESSOR) || (t.getOffset() != start))
+        {
+            return;
+        }
+
+        String lexeme = t.getLexeme();
+        String name;
+
+        if (lexeme.endsWith(":"))
+        {
+            name = lexeme.substring(0, lexeme.length() - 1);
+        }
+        else if (lexeme.startsWith(":") && !lexeme.startsWith("::"))
+        {
+            name = lexeme.substring(1);
+        }
+        else
+        {
+            return;
+        }
+
+        // .PHONY and the other special targets, or local labels
+        if (!name.trim().isEmpty() && !name.startsWith("."))
+        {
+            symbols.add(new Symbol(name.trim(), FUNCTION, 0, 0));
+        }
+    }
+
+    // \section*[short]{Title}, the level standing in for the indent
+    private static int latexHeading(List<Token> tokens, int i, int start, List<Symbol> symbols)
+    {
+        int level = LATEX_HEADINGS.indexOf(tokens.get(i).getLexeme());
+
+        if (level < 0)
+        {
+            return -1;
+        }
+
+        int open = i + 1;
+
+        if ((open < tokens.size()) && tokens.get(open).isSingleChar('*'))
+        {
+            open++;
+        }
+
+        if ((open < tokens.size()) && tokens.get(open).isSingleChar('['))
+        {
+            while ((open < tokens.size()) && !tokens.get(open).isSingleChar(']'))
+            {
+                open++;
+            }
+
+            open++;
+        }
+
+        if ((open >= tokens.size()) || !tokens.get(open).isSingleChar('{'))
+        {
+            return -1;
+        }
+
+        int close = open + 1;
+
+        for (int depth = 1; close < tokens.size(); close++)
+        {
+            depth += tokens.get(close).isSingleChar('{') ? 1 : tokens.get(close).isSingleChar('}') ? -1 : 0;
+
+            if (depth == 0)
+            {
+                break;
+            }
+        }
+
+        String title = text(tokens, open + 1, close);
+
+        if (!title.isEmpty())
+        {
+            symbols.add(new Symbol(title, HEADING, tokens.get(i).getOffset() - start, level));
+        }
+
+        return close;
+    }
+
+    // <h2 class="x">Title <b>bold</b></h2>, the text between the tags
+    private static int htmlHeading(List<Token> tokens, int i, int start, List<Symbol> symbols)
+    {
+        if ((i + 1 >= tokens.size()) || (tokens.get(i + 1).getType() != Token.MARKUP_TAG_NAME))
+        {
+            return -1;
+        }
+
+        String tag = tokens.get(i + 1).getLexeme().toLowerCase(Locale.ROOT);
+
+        if ((tag.length() != 2) || (tag.charAt(0) != 'h') || (tag.charAt(1) < '1') || (tag.charAt(1) > '6'))
+        {
+            return -1;
+        }
+
+        StringBuilder title = new StringBuilder();
+        boolean isSpaced = false; // whitespace since the last text, maybe before a tag in between
+        int j = i + 2;
+
+        // past the attributes
+        while ((j < tokens.size()) && !tokens.get(j).isSingleChar(Token.MARKUP_TAG_DELIMITER, '>'))
+        {
+            j++;
+        }
+
+        for (j++; j < tokens.size(); j++)
+        {
+            Token t = tokens.get(j);
+
+            if ((t.getType() == Token.MARKUP_TAG_DELIMITER) && t.is("</".toCharArray()) && (j + 1 < tokens.size())
+                    && tokens.get(j + 1).getLexeme().equalsIgnoreCase(tag))
+            {
+                break;
+            }
+
+            isSpaced |= Character.isWhitespace(t.getTextArray()[t.getTextOffset() - 1]);
+
+            if ((t.getType() < Token.MARKUP_TAG_DELIMITER) || (t.getType() > Token.MARKUP_CDATA))
+            {
+                if ((title.length() > 0) && isSpaced)
+                {
+                    title.append(' ');
+                }
+
+                title.append(t.getLexeme());
+                isSpaced = false;
+            }
+        }
+
+        if (title.length() > 0)
+        {
+            symbols.add(new Symbol(title.toString(), HEADING, tokens.get(i).getOffset() - start, tag.charAt(1) - '0'));
+        }
+
+        return j;
+    }
+
+    // the index just past a name starting at i: words joined by . : or :: with nothing in between,
+    // and a trailing ? or ! as in ruby; i if there is no name there
+    private static int nameEnd(List<Token> tokens, int i)
+    {
+        if ((i >= tokens.size()) || !isWord(tokens.get(i)))
+        {
+            return i;
+        }
+
+        int end = i + 1;
+
+        while (end < tokens.size())
+        {
+            Token t = tokens.get(end);
+
+            if (!isAdjacent(tokens, end))
+            {
+                break;
+            }
+
+            if (t.isSingleChar('?') || t.isSingleChar('!'))
+            {
+                return end + 1;
+            }
+
+            int word = end;
+
+            while ((word < tokens.size()) && (word - end < 2) && isAdjacent(tokens, word) && isConnector(tokens.get(word)))
+            {
+                word++;
+            }
+
+            if ((word == end) || (word >= tokens.size()) || !isAdjacent(tokens, word) || !isWord(tokens.get(word)))
+            {
+                break;
+            }
+
+            end = word + 1;
+        }
+
+        return end;
+    }
+
+    private static String name(List<Token> tokens, int from, int to)
+    {
+        StringBuilder name = new StringBuilder();
+
+        for (int i = from; i < to; i++)
+        {
+            name.append(tokens.get(i).getLexeme());
+        }
+
+        return name.toString();
+    }
+
+    // the lexemes from..to, a space wherever whitespace was left out
+    private static String text(List<Token> tokens, int from, int to)
+    {
+        StringBuilder text = new StringBuilder();
+
+        for (int i = from; (i < to) && (i < tokens.size()); i++)
+        {
+            if ((i > from) && !isAdjacent(tokens, i))
+            {
+                text.append(' ');
+            }
+
+            text.append(tokens.get(i).getLexeme());
+        }
+
+        return text.toString();
+    }
+
+    private static int closingParen(List<Token> tokens, int open)
+    {
+        int depth = 0;
+
+        for (int i = open; i < tokens.size(); i++)
+        {
+            if (tokens.get(i).isSingleChar('('))
+            {
+                depth++;
+            }
+            else if (tokens.get(i).isSingleChar(')') && (--depth == 0))
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean hasLiteral(List<Token> tokens, int from, int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            int type = tokens.get(i).getType();
+
+            if ((type >= Token.LITERAL_BOOLEAN) && (type <= Token.LITERAL_BACKQUOTE))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // obj.class, <class T>, template parameters and the like are no keywords
+    private static boolean isMember(List<Token> tokens, int i)
+    {
+        if (i == 0)
+        {
+            return false;
+        }
+
+        Token before = tokens.get(i - 1);
+
+        return before.isSingleChar('.') || before.isSingleChar('<') || before.isSingleChar(',')
+                || before.isSingleChar(':') || before.isSingleChar('$') || before.is("->".toCharArray());
+    }
+
+    private static boolean isAdjacent(List<Token> tokens, int i)
+    {
+        return tokens.get(i).getOffset() == tokens.get(i - 1).getEndOffset();
+    }
+
+    private static boolean isConnector(Token t)
+    {
+        return t.isSingleChar('.') || t.isSingleChar(':') || t.is("::".toCharArray());
+    }
+
+    private static boolean isWord(Token t)
+    {
+        int type = t.getType();
+
+        if ((type >= Token.LITERAL_BOOLEAN) && (type <= Token.LITERAL_BACKQUOTE))
+        {
+            return false;
+        }
+
+        char c = t.charAt(0);
+        return Character.isJavaIdentifierStart(c) || ((c == '@') && (t.length() > 1));
+    }
+
+    private static boolean isReserved(Token t)
+    {
+        return (t.getType() == Token.RESERVED_WORD) || (t.getType() == Token.RESERVED_WORD_2);
+    }
+
+    private static int indent(Token whitespace, int indent)
+    {
+        for (int i = 0; i < whitespace.length(); i++)
+        {
+            indent = (whitespace.charAt(i) == '\t') ? (indent / TAB_WIDTH + 1) * TAB_WIDTH : indent + 1;
+        }
+
+        return indent;
+    }
+
+    // the outline of a document from symbols[line] of its lines
+    static List<Symbol> build(Symbol[][] symbols)
+    {
+        List<Symbol> outline = new ArrayList<>();
+        int[] indents = new int[16]; // of the symbols the next one may nest under, outermost first
+        int depth = 0;
+
+        for (int line = 0; line < symbols.length; line++)
+        {
+            if (symbols[line] == null)
+            {
+                continue;
+            }
+
+            for (Symbol symbol : symbols[line])
+            {
+                while ((depth > 0) && (indents[depth - 1] >= symbol.indent))
+                {
+                    depth--;
+                }
+
+                outline.add(new Symbol(symbol, line, depth));
+
+                if (depth == indents.length)
+                {
+                    indents = Arrays.copyOf(indents, depth * 2);
+                }
+
+                indents[depth++] = symbol.indent;
+            }
+        }
+
+        return Collections.unmodifiableList(outline);
+    }
+
+    static boolean isSame(List<Symbol> a, List<Symbol> b)
+    {
+        if (a.size() != b.size())
+        {
+            return false;
+        }
+
+        for (int i = 0; i < a.size(); i++)
+        {
+            Symbol x = a.get(i);
+            Symbol y = b.get(i);
+
+            if ((x.line != y.line) || (x.column != y.column) || (x.depth != y.depth) || (x.kind != y.kind)
+                    || !x.name.equals(y.name))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // the symbols whose names hold the chars of query in order, best match first, at most limit of them
+    public static List<Symbol> match(List<Symbol> outline, String query, int limit)
+    {
+        if (query.isEmpty())
+        {
+            return outline.subList(0, Math.min(limit, outline.size()));
+        }
+
+        char[] chars = query.toLowerCase(Locale.ROOT).toCharArray();
+        List<Symbol> matches = new ArrayList<>();
+        int[] scores = new int[outline.size()];
+
+        for (int i = 0; i < outline.size(); i++)
+        {
+            int score = score(outline.get(i), chars);
+
+            if (score > Integer.MIN_VALUE)
+            {
+                scores[matches.size()] = score;
+                matches.add(outline.get(i));
+            }
+        }
+
+        Integer[] order = new Integer[matches.size()];
+
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = i;
+        }
+
+        // best score, then the shorter name, then the one further up
+        Arrays.sort(order, (Integer a, Integer b) ->
+        {
+            if (scores[a] != scores[b])
+            {
+                return Integer.compare(scores[b], scores[a]);
+            }
+
+            int lengths = Integer.compare(matches.get(a).name.length(), matches.get(b).name.length());
+            return (lengths != 0) ? lengths : Integer.compare(a, b);
+        });
+
+        List<Symbol> best = new ArrayList<>();
+
+        for (int i = 0; (i < order.length) && (i < limit); i++)
+        {
+            best.add(matches.get(order[i]));
+        }
+
+        return best;
+    }
+
+    // higher is better, Integer.MIN_VALUE if the chars are not all in the name in order
+    private static int score(Symbol symbol, char[] chars)
+    {
+        if (!isSubsequence(symbol, chars, false))
+        {
+            return Integer.MIN_VALUE;
+        }
+
+        // rather the start of a word or the char right after the last match, if that still leaves a match
+        boolean isPreferring = isSubsequence(symbol, chars, true);
+        int score = 0;
+        int last = -1;
+
+        for (char c : chars)
+        {
+            int found = find(symbol, c, last, isPreferring);
+
+            if (found == 0)
+            {
+                score += 15;
+            }
+            else if (found == last + 1)
+            {
+                score += 10;
+            }
+            else if (isWordStart(symbol.name, found))
+            {
+                score += 8;
+            }
+            else
+            {
+                score -= Math.min(found - last - 1, 5);
+            }
+
+            last = found;
+        }
+
+        if (symbol.key.length() == chars.length)
+        {
+            score += 20;
+        }
+
+        return score - symbol.key.length() / 8;
+    }
+
+    private static boolean isSubsequence(Symbol symbol, char[] chars, boolean isPreferring)
+    {
+        int last = -1;
+
+        for (char c : chars)
+        {
+            last = find(symbol, c, last, isPreferring);
+
+            if (last < 0)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // the next c after the last match; preferring one that follows it directly or starts a word
+    private static int find(Symbol symbol, char c, int last, boolean isPreferring)
+    {
+        int first = symbol.key.indexOf(c, last + 1);
+
+        for (int i = first; isPreferring && (i >= 0); i = symbol.key.indexOf(c, i + 1))
+        {
+            if ((i == last + 1) || isWordStart(symbol.name, i))
+            {
+                return i;
+            }
+        }
+
+        return first;
+    }
+
+    private static boolean isWordStart(String name, int i)
+    {
+        if (i == 0)
+        {
+            return true;
+        }
+
+        char before = name.charAt(i - 1);
+        char c = name.charAt(i);
+
+        return !Character.isLetterOrDigit(before) || (Character.isLowerCase(before) && Character.isUpperCase(c));
+    }
+
+    // keywords of a syntax and what they name
+    static class Rules
+    {
+        private final Map<String, Integer> keywords = new HashMap<>();
+        private final Map<String, Integer> assigned = new HashMap<>();
+        private final int flags;
+
+        Rules(int flags)
+        {
+            this.flags = flags;
+        }
+
+        private void put(Map<String, Integer> map, String words, int kind)
+        {
+            for (String word : words.split(" "))
+            {
+                if (!word.isEmpty())
+                {
+                    map.put(word, kind);
+                }
+            }
+        }
+
+        private String key(Token t)
+        {
+            return ((flags & IGNORE_CASE) != 0) ? t.getLexeme().toLowerCase(Locale.ROOT) : t.getLexeme();
+        }
+    }
+
+    public static class Symbol
+    {
+        private final String name;
+        private final String key; // lower cased name, for matching
+        private final int kind;
+        private final int line;
+        private final int column;
+        private final int indent;
+        private final int depth;
+
+        Symbol(String name, int kind, int column, int indent)
+        {
+            this.name = name;
+            this.key = name.toLowerCase(Locale.ROOT);
+            this.kind = kind;
+            this.line = -1;
+            this.column = column;
+            this.indent = indent;
+            this.depth = 0;
+        }
+
+        // a symbol as found in its line, placed in the outline
+        Symbol(Symbol symbol, int line, int depth)
+        {
+            this.name = symbol.name;
+            this.key = symbol.key;
+            this.kind = symbol.kind;
+            this.line = line;
+            this.column = symbol.column;
+            this.indent = symbol.indent;
+            this.depth = depth;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public int getKind()
+        {
+            return kind;
+        }
+
+        public int getLine()
+        {
+            return line;
+        }
+
+        public int getColumn()
+        {
+            return column;
+        }
+
+        public int getDepth()
+        {
+            return depth;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name;
+        }
+    }
+}
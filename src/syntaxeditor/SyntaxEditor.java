@@ -15,6 +15,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 import static javax.swing.WindowConstants.DO_NOTHING_ON_CLOSE;
@@ -46,10 +47,58 @@ public class SyntaxEditor
         return list;
     }
 
+    static void openArgs(Frame frame, String[] args)
+    {
+        File file;
+
+        for (String arg : args)
+        {
+            file = new File(arg);
+
+            if (file.exists())
+            {
+                if (file.isDirectory())
+                {
+                    frame.openFolder(file);
+                }
+                else
+                {
+                    frame.open(file);
+                }
+            }
+        }
+    }
+
     public static void main(String[] args) throws InterruptedException, ClassNotFoundException, InstantiationException, IllegalAccessException
     {
+        if ((args.length > 0) && args[0].equals("--export"))
+        {
+            System.setProperty("java.awt.headless", "true");
+            Exporter.main(args);
+            return;
+        }
+
+        if ((args.length > 0) && args[0].equals("--daemon"))
+        {
+            System.setProperty("java.awt.headless", "true");
+            HighlightServer.main(args);
+            return;
+        }
+
         try
         {
+            Instance instance = new Instance();
+
+            // hand the paths to the running editor instead of starting a second one, which does not listen
+            if (instance.acquire())
+            {
+                instance.listen();
+            }
+            else if (instance.forward(args))
+            {
+                return;
+            }
+
             SyntaxEditor textEditor = new SyntaxEditor();
             File file = new File(DIRECTORY + "history");
 
@@ -78,23 +127,10 @@ public class SyntaxEditor
 
             if (args.length > 0)
             {
-                for (String arg : args)
-                {
-                    file = new File(arg);
-
-                    if (file.exists())
-                    {
-                        if (file.isDirectory())
-                        {
-                            frame.openFolder(file);
-                        }
-                        else
-                        {
-                            frame.open(file);
-                        }
-                    }
-                }
+                openArgs(frame, args);
             }
+
+            SwingUtilities.invokeLater(() -> instance.attach(frame));
         }
         catch (UnsupportedLookAndFeelException | IOException ex)
         {
@@ -1,19 +1,39 @@
 package syntaxeditor;
 
+import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 
 public class Tab
 {
     private RSyntaxTextArea textArea = null;
+    private TokenCache tokenCache = null;
+    private DocumentWords words = null;
+    private WordCompletion completion = null;
+    private ViewportSpellingParser spellingParser = null;
     private String title = null;
     private String path = null;
     private String spelling = "";
     private boolean status = false;
 
     // constructors
-    public Tab(RSyntaxTextArea textArea)
+    public Tab(RSyntaxTextArea textArea, WordIndex wordIndex)
     {
         this.textArea = textArea;
+        this.tokenCache = new TokenCache((RSyntaxDocument) textArea.getDocument());
+        this.words = new DocumentWords((RSyntaxDocument) textArea.getDocument(), wordIndex);
+        this.completion = new WordCompletion(textArea, wordIndex);
+    }
+
+    // stops background work for a tab that is being discarded
+    public void close()
+    {
+        this.tokenCache.close();
+        this.words.close();
+
+        if (this.spellingParser != null)
+        {
+            this.spellingParser.close();
+        }
     }
 
     // setters
@@ -43,6 +63,11 @@ public class Tab
         this.spelling = spelling;
     }
     
+    public void setSpellingParser(ViewportSpellingParser spellingParser)
+    {
+        this.spellingParser = spellingParser;
+    }
+    
     public void setStatus(boolean status) 
     {
         this.status = status;
@@ -53,6 +78,16 @@ public class Tab
     {
         return this.textArea;
     }
+
+    public TokenCache getTokenCache()
+    {
+        return this.tokenCache;
+    }
+
+    public WordCompletion getCompletion()
+    {
+        return this.completion;
+    }
     
     public String getText()
     {
@@ -79,6 +114,11 @@ public class Tab
         return this.spelling;
     }
     
+    public ViewportSpellingParser getSpellingParser()
+    {
+        return this.spellingParser;
+    }
+    
     public boolean getStatus()
     {
         return this.status;
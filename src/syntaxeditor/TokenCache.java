@@ -0,0 +1,839 @@
+package syntaxeditor;
+
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.Action;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+import org.fife.ui.rsyntaxtextarea.OccurrenceMarker;
+import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.TokenImpl;
+import org.fife.ui.rsyntaxtextarea.TokenMaker;
+import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
+import org.fife.ui.rsyntaxtextarea.folding.Fold;
+import org.fife.ui.rsyntaxtextarea.folding.FoldParserManager;
+import org.fife.ui.rsyntaxtextarea.modes.AbstractMarkupTokenMaker;
+
+/*
+ * a tab's tokens, worked out in the background while the user is idle
+ *
+ * each line keeps its tokens as packed ints (offset, length, type) along with the state it was
+ * tokenized from; an edit drops the lines it touched and shifts the rest, and the background pass
+ * walks on from there, skipping every line whose start state still holds, so re-tokenizing stops
+ * as soon as the states converge. painting and fold parsing ask the document's TokenMaker for
+ * their token lists, and that is a wrapper answering from the cache whenever it can; markup
+ * syntaxes keep their own maker, the document needs it to close tags
+ *
+ * for syntaxes folded by BackgroundFoldParser each line also keeps its fold marks, and once the
+ * pass has caught up the folds are rebuilt from those on the same thread
+ *
+ * the same goes for the symbols Symbols finds in a line, from which the outline is put together at
+ * the end of every pass; listeners are told about new tokens only after that, so the outline they
+ * ask for is already up to date
+ *
+ * lines longer than MAX_LINE are never tokenized whole, the token makers slow down badly on them;
+ * they read as one plain token ending in the state they began in, so a comment or string open
+ * before one is still open after it, and LongLineView highlights the part that is on screen by itself
+ */
+public class TokenCache implements DocumentListener
+{
+    private static final int CHUNK = 2000; // lines tokenized per read lock
+    private static final int IDLE_DELAY = 400; // ms without edits before the background pass runs
+    static final int MAX_LINE = 10000; // chars, longer lines are only tokenized where they are painted
+    private static final int[] UNCACHED = new int[0]; // end state known, tokens not kept
+    private static final ExecutorService TOKENIZER = Executors.newSingleThreadExecutor((Runnable r) ->
+    {
+        Thread thread = new Thread(r, "Tokenizer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final RSyntaxDocument doc;
+    private final Timer idleTimer;
+    private volatile long lastEdit;
+    private int[][] tokens = new int[0][]; // per line, null until tokenized
+    private int[] initialStates = new int[0];
+    private int[] endStates = new int[0];
+    private int[] lengths = new int[0];
+    private int[] hashes = new int[0]; // of each line's text, so an edit that keeps the length is not missed
+    private int[][] marks = new int[0][]; // per line fold marks, good while the line's tokens are
+    private Symbols.Symbol[][] symbols = new Symbols.Symbol[0][]; // per line, the same
+    private int lines;
+    private int next; // every line before this one is cached and chained to the one above
+    private int generation; // bumped when the token maker changes
+    private String syntax = SyntaxConstants.SYNTAX_STYLE_NONE;
+    private Symbols.Rules symbolRules; // null if the syntax has no symbols
+    private TokenMaker background; // tokenizer thread only
+    private boolean isRunning;
+    private boolean isClosed;
+    private int edits; // bumped by every change, tells out of date folds from current ones
+    private boolean isFoldable; // the syntax is folded by BackgroundFoldParser
+    private RSyntaxTextArea foldArea; // null until folds are asked for
+    private boolean isJavaFolding;
+    private boolean foldsComments;
+    private List<Fold> folds = new ArrayList<>();
+    private int foldedEdits = -1; // edits when folds were built
+    private List<Symbols.Symbol> outline = Collections.emptyList();
+    private int changedFrom = Integer.MAX_VALUE; // lines given new tokens since listeners were last told
+    private int changedTo = -1;
+    private final List<Listener> listeners = new ArrayList<>(); // edt only
+
+    public TokenCache(RSyntaxDocument doc)
+    {
+        this.doc = doc;
+
+        idleTimer = new Timer(IDLE_DELAY, (ActionEvent e) ->
+        {
+            schedule();
+        });
+        idleTimer.setRepeats(false);
+
+        lines = doc.getDefaultRootElement().getElementCount();
+        ensureCapacity(lines);
+        doc.setTokenMakerFactory(new Factory());
+        doc.addDocumentListener(this);
+        doc.putProperty(TokenCache.class, this);
+    }
+
+    // edt
+    public void addListener(Listener listener)
+    {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    public void close()
+    {
+        idleTimer.stop();
+        doc.removeDocumentListener(this);
+        doc.putProperty(TokenCache.class, null);
+
+        synchronized (this)
+        {
+            isClosed = true;
+            tokens = new int[0][];
+            marks = new int[0][];
+            symbols = new Symbols.Symbol[0][];
+            folds = new ArrayList<>();
+            outline = Collections.emptyList();
+            lines = 0;
+        }
+    }
+
+    // edits
+    @Override
+    public void insertUpdate(DocumentEvent e)
+    {
+        edited(e);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e)
+    {
+        edited(e);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e)
+    {
+    }
+
+    // write lock held, so the tokenizer is not in the middle of a chunk
+    private void edited(DocumentEvent e)
+    {
+        Element root = doc.getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+        int line = root.getElementIndex(e.getOffset());
+
+        synchronized (this)
+        {
+            if (change != null)
+            {
+                int index = change.getIndex();
+                int removed = change.getChildrenRemoved().length;
+                int added = change.getChildrenAdded().length;
+                int count = root.getElementCount();
+
+                // the lines below the change move up or down, the changed ones are dropped
+                ensureCapacity(count);
+                move(index + removed, index + added, Math.max(0, lines - index - removed));
+                Arrays.fill(tokens, index, index + added, null);
+
+                if (count < lines)
+                {
+                    Arrays.fill(tokens, count, lines, null);
+                }
+
+                lines = count;
+                line = Math.min(line, index);
+            }
+
+            if (line < lines)
+            {
+                tokens[line] = null;
+            }
+
+            next = Math.min(next, line);
+            edits++;
+        }
+
+        lastEdit = System.currentTimeMillis();
+        idleTimer.restart();
+    }
+
+    private void ensureCapacity(int count)
+    {
+        if (count > tokens.length)
+        {
+            int capacity = Math.max(count, tokens.length + (tokens.length >> 1));
+
+            tokens = Arrays.copyOf(tokens, capacity);
+            initialStates = Arrays.copyOf(initialStates, capacity);
+            endStates = Arrays.copyOf(endStates, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            marks = Arrays.copyOf(marks, capacity);
+            symbols = Arrays.copyOf(symbols, capacity);
+        }
+    }
+
+    private void move(int from, int to, int count)
+    {
+        System.arraycopy(tokens, from, tokens, to, count);
+        System.arraycopy(initialStates, from, initialStates, to, count);
+        System.arraycopy(endStates, from, endStates, to, count);
+        System.arraycopy(lengths, from, lengths, to, count);
+        System.arraycopy(hashes, from, hashes, to, count);
+        System.arraycopy(marks, from, marks, to, count);
+        System.arraycopy(symbols, from, symbols, to, count);
+    }
+
+    private synchronized void reset(String syntax)
+    {
+        this.syntax = syntax;
+        generation++;
+        background = null;
+        next = 0;
+        edits++;
+        isFoldable = FoldParserManager.get().getFoldParser(syntax) instanceof BackgroundFoldParser;
+        folds = new ArrayList<>();
+        symbolRules = Symbols.forSyntax(syntax);
+        outline = Collections.emptyList();
+        Arrays.fill(tokens, null);
+        Arrays.fill(marks, null);
+        Arrays.fill(symbols, null);
+    }
+
+    // background pass
+    private void schedule()
+    {
+        synchronized (this)
+        {
+            if (isRunning || isClosed || ((next >= lines) && !isFoldingBehind())
+                    || syntax.equals(SyntaxConstants.SYNTAX_STYLE_NONE))
+            {
+                return;
+            }
+
+            isRunning = true;
+        }
+
+        TOKENIZER.execute(this::run);
+    }
+
+    private void run()
+    {
+        boolean isIdle = System.currentTimeMillis() - lastEdit >= IDLE_DELAY;
+
+        if (isIdle)
+        {
+            doc.render(this::tokenizeChunk);
+        }
+
+        boolean hasMore;
+
+        synchronized (this)
+        {
+            hasMore = !isClosed && (next < lines);
+            isRunning = hasMore && isIdle;
+        }
+
+        if (hasMore && isIdle)
+        {
+            TOKENIZER.execute(this::run);
+        }
+        else if (hasMore)
+        {
+            // typing again, the idle timer picks it up afterwards
+            SwingUtilities.invokeLater(idleTimer::restart);
+        }
+        else
+        {
+            buildOutline();
+            tokensChanged();
+            doc.render(this::buildFolds);
+        }
+    }
+
+    private void tokensChanged()
+    {
+        int from;
+        int to;
+
+        synchronized (this)
+        {
+            from = changedFrom;
+            to = changedTo;
+            changedFrom = Integer.MAX_VALUE;
+            changedTo = -1;
+        }
+
+        if (to >= 0)
+        {
+            SwingUtilities.invokeLater(()
+                    -> 
+                    {
+                        for (Listener listener : new ArrayList<>(listeners))
+                        {
+                            listener.tokensChanged(from, to);
+                        }
+            });
+        }
+    }
+
+    // read lock held
+    private void tokenizeChunk()
+    {
+        Element root = doc.getDefaultRootElement();
+        Segment segment = new Segment();
+        TokenMaker maker;
+        Symbols.Rules rules;
+        boolean isFoldable;
+        int generation;
+        int line;
+        int state;
+
+        synchronized (this)
+        {
+            if (background == null)
+            {
+                background = TokenMakerFactory.getDefaultInstance().getTokenMaker(syntax);
+            }
+
+            maker = background;
+            rules = symbolRules;
+            isFoldable = this.isFoldable;
+            generation = this.generation;
+            line = next;
+            state = (line == 0) ? Token.NULL : endStates[line - 1];
+        }
+
+        for (int done = 0; (done < CHUNK) && (line < root.getElementCount()); line++)
+        {
+            synchronized (this)
+            {
+                if ((generation != this.generation) || isClosed)
+                {
+                    return;
+                }
+
+                // still right for the state it starts in, so everything it leads to is too
+                if ((tokens[line] != null) && (initialStates[line] == state))
+                {
+                    state = endStates[line];
+                    next = line + 1;
+                    continue;
+                }
+            }
+
+            Element element = root.getElement(line);
+            int start = element.getStartOffset();
+            int length = element.getEndOffset() - 1 - start;
+            int[] packed;
+            int[] lineMarks = null;
+            Symbols.Symbol[] lineSymbols = null;
+            int endState;
+            int hash = 0;
+
+            if (length > MAX_LINE)
+            {
+                // as CachingTokenMaker answers for it
+                packed = UNCACHED;
+                endState = state;
+            }
+            else
+            {
+                try
+                {
+                    doc.getText(start, length, segment);
+                }
+                catch (BadLocationException ex)
+                {
+                    Logger.getLogger(TokenCache.class.getName()).log(Level.SEVERE, null, ex);
+                    return;
+                }
+
+                hash = hash(segment);
+
+                Token first = maker.getTokenList(segment, state, start);
+                packed = pack(first, start);
+                endState = packed[packed.length - 1] >> 9;
+
+                if (isFoldable)
+                {
+                    lineMarks = BackgroundFoldParser.mark(first, start);
+                }
+
+                if (rules != null)
+                {
+                    lineSymbols = Symbols.scan(rules, first, start);
+                }
+            }
+
+            synchronized (this)
+            {
+                if (generation != this.generation)
+                {
+                    return;
+                }
+
+                tokens[line] = packed;
+                initialStates[line] = state;
+                endStates[line] = endState;
+                lengths[line] = length;
+                hashes[line] = hash;
+                marks[line] = lineMarks;
+                symbols[line] = lineSymbols;
+                next = line + 1;
+                changedFrom = Math.min(changedFrom, line);
+                changedTo = Math.max(changedTo, line);
+            }
+
+            state = endState;
+            done++;
+        }
+    }
+
+    // once every line is tokenized, the outline from the symbols of each
+    private void buildOutline()
+    {
+        Symbols.Symbol[][] lineSymbols;
+        int generation;
+
+        synchronized (this)
+        {
+            if (isClosed || (next < lines) || (symbolRules == null))
+            {
+                return;
+            }
+
+            lineSymbols = Arrays.copyOf(symbols, lines);
+            generation = this.generation;
+        }
+
+        List<Symbols.Symbol> built = Symbols.build(lineSymbols);
+
+        synchronized (this)
+        {
+            // the same list as before if nothing moved, so nobody has to redo their view of it
+            if ((generation == this.generation) && !Symbols.isSame(built, outline))
+            {
+                outline = built;
+            }
+        }
+    }
+
+    // the outline as of the last background pass, never changed in place
+    public synchronized List<Symbols.Symbol> getOutline()
+    {
+        return outline;
+    }
+
+    private boolean isFoldingBehind()
+    {
+        return isFoldable && (foldArea != null) && (foldedEdits != edits);
+    }
+
+    // read lock held, once every line is tokenized the folds are built from their marks alone
+    private void buildFolds()
+    {
+        RSyntaxTextArea textArea;
+        int[][] lineMarks;
+        boolean isJava;
+        boolean foldsComments;
+        int edits;
+
+        synchronized (this)
+        {
+            if (isClosed || (next < lines) || !isFoldingBehind())
+            {
+                return;
+            }
+
+            textArea = foldArea;
+            lineMarks = Arrays.copyOf(marks, lines);
+            isJava = isJavaFolding;
+            foldsComments = this.foldsComments;
+            edits = this.edits;
+        }
+
+        List<BackgroundFoldParser.Node> built = BackgroundFoldParser.build(doc.getDefaultRootElement(), lineMarks,
+                isJava, foldsComments);
+
+        synchronized (this)
+        {
+            foldedEdits = edits;
+        }
+
+        // folds hold positions, so they are made on the edt; the fold manager then takes the new list,
+        // keeping what was collapsed. if the text has changed meanwhile the offsets are no good, and the
+        // edit has already asked for another build
+        SwingUtilities.invokeLater(()
+                -> 
+                {
+                    synchronized (this)
+                    {
+                        if (isClosed || (edits != this.edits) || (foldedEdits != edits) || (textArea != foldArea))
+                        {
+                            return;
+                        }
+
+                        try
+                        {
+                            folds = BackgroundFoldParser.toFolds(textArea, built);
+                        }
+                        catch (BadLocationException ex)
+                        {
+                            Logger.getLogger(TokenCache.class.getName()).log(Level.SEVERE, null, ex);
+                            return;
+                        }
+                    }
+
+                    textArea.getFoldManager().reparse();
+        });
+    }
+
+    // edt, the folds last built; if the text has changed since, a new build is on its way
+    synchronized List<Fold> getFolds(RSyntaxTextArea textArea, boolean isJava, boolean foldsComments)
+    {
+        if ((textArea != foldArea) || (isJava != isJavaFolding) || (foldsComments != this.foldsComments))
+        {
+            foldArea = textArea;
+            isJavaFolding = isJava;
+            this.foldsComments = foldsComments;
+            foldedEdits = -1;
+        }
+
+        if (isFoldingBehind())
+        {
+            idleTimer.restart();
+        }
+
+        // a copy, the fold manager clears its list when folding is turned off
+        return new ArrayList<>(folds);
+    }
+
+    // offset in the line (-1 for the closing null token), length, then type << 9 | hyperlink << 8 | language
+    private static int[] pack(Token first, int start)
+    {
+        int count = 0;
+
+        for (Token t = first; t != null; t = t.getNextToken())
+        {
+            count++;
+        }
+
+        int[] packed = new int[count * 3];
+        int i = 0;
+
+        for (Token t = first; t != null; t = t.getNextToken())
+        {
+            boolean hasText = t.getTextArray() != null;
+
+            packed[i++] = hasText ? t.getOffset() - start : -1;
+            packed[i++] = hasText ? t.length() : 0;
+            packed[i++] = (t.getType() << 9) | (t.isHyperlink() ? 256 : 0) | (t.getLanguageIndex() & 0xFF);
+        }
+
+        return packed;
+    }
+
+    // a line's tokens as pack lays them out, read lock held; null if not tokenized or too long to be
+    synchronized int[] getTokens(int line)
+    {
+        int[] packed = (line < lines) ? tokens[line] : null;
+        return (packed == UNCACHED) ? null : packed;
+    }
+
+    private static int hash(Segment text)
+    {
+        int hash = 0;
+
+        for (int i = text.offset; i < text.offset + text.count; i++)
+        {
+            hash = 31 * hash + text.array[i];
+        }
+
+        return hash;
+    }
+
+    // the cached tokens of the line starting at start, if they were made from the same state and text
+    private synchronized int[] lookup(int start, int initialTokenType, Segment text)
+    {
+        Element root = doc.getDefaultRootElement();
+        int line = root.getElementIndex(start);
+
+        if ((line >= lines) || (root.getElement(line).getStartOffset() != start))
+        {
+            return null;
+        }
+
+        int[] packed = tokens[line];
+
+        if ((packed == null) || (packed == UNCACHED) || (initialStates[line] != initialTokenType)
+                || (lengths[line] != text.count) || (hashes[line] != hash(text)))
+        {
+            return null;
+        }
+
+        return packed;
+    }
+
+    // told which lines got new tokens once a background pass is done
+    public interface Listener
+    {
+        void tokensChanged(int firstLine, int lastLine);
+    }
+
+    private class Factory extends TokenMakerFactory
+    {
+        @Override
+        protected TokenMaker getTokenMakerImpl(String key)
+        {
+            TokenMaker maker = TokenMakerFactory.getDefaultInstance().getTokenMaker(key);
+
+            reset(key);
+            idleTimer.restart();
+
+            // the document casts a markup maker to AbstractMarkupTokenMaker to close tags, so those are
+            // left as they are and only tokenized in the background; plain text is never cached, but its
+            // long lines still need cutting short
+            if (maker instanceof AbstractMarkupTokenMaker)
+            {
+                return maker;
+            }
+
+            return new CachingTokenMaker(maker);
+        }
+
+        @Override
+        public Set<String> keySet()
+        {
+            return TokenMakerFactory.getDefaultInstance().keySet();
+        }
+    }
+
+    // the document's TokenMaker, rebuilding cached lines and tokenizing the rest as usual
+    private class CachingTokenMaker implements TokenMaker
+    {
+        private final TokenMaker maker;
+        private TokenImpl[] pool = new TokenImpl[64]; // reused like TokenMakerBase reuses its tokens
+
+        CachingTokenMaker(TokenMaker maker)
+        {
+            this.maker = maker;
+        }
+
+        @Override
+        public Token getTokenList(Segment text, int initialTokenType, int startOffset)
+        {
+            if (text.count > MAX_LINE)
+            {
+                return plain(text, initialTokenType, startOffset);
+            }
+
+            int[] packed = lookup(startOffset, initialTokenType, text);
+
+            if (packed == null)
+            {
+                return maker.getTokenList(text, initialTokenType, startOffset);
+            }
+
+            if (pool.length < packed.length / 3)
+            {
+                pool = Arrays.copyOf(pool, packed.length / 3);
+            }
+
+            TokenImpl first = null;
+            TokenImpl previous = null;
+
+            for (int i = 0; i < packed.length; i += 3)
+            {
+                int offset = packed[i];
+                int info = packed[i + 2];
+                TokenImpl token;
+
+                if (offset < 0)
+                {
+                    token = new TokenImpl();
+                    token.setType(info >> 9);
+                }
+                else
+                {
+                    if (pool[i / 3] == null)
+                    {
+                        pool[i / 3] = new TokenImpl();
+                    }
+
+                    token = pool[i / 3];
+                    token.set(text.array, text.offset + offset, text.offset + offset + packed[i + 1] - 1,
+                            startOffset + offset, info >> 9);
+                }
+
+                token.setHyperlink((info & 256) != 0);
+                token.setLanguageIndex(info & 0xFF);
+                token.setNextToken(null);
+
+                if (previous == null)
+                {
+                    first = token;
+                }
+                else
+                {
+                    previous.setNextToken(token);
+                }
+
+                previous = token;
+            }
+
+            return first;
+        }
+
+        // a long line as a single token in the type of the state it starts in, which it also ends in: a
+        // comment or string goes on as its own last token, like the makers end such lines, anything else
+        // is followed by an end token of that state
+        private Token plain(Segment text, int initialTokenType, int startOffset)
+        {
+            int type = (initialTokenType < 0)
+                    ? maker.getClosestStandardTokenTypeForInternalType(initialTokenType) : initialTokenType;
+
+            if (pool[0] == null)
+            {
+                pool[0] = new TokenImpl();
+            }
+
+            pool[0].set(text.array, text.offset, text.offset + text.count - 1, startOffset,
+                    (type > Token.NULL) ? type : Token.IDENTIFIER);
+            pool[0].setHyperlink(false);
+            pool[0].setLanguageIndex(0);
+            pool[0].setNextToken(null);
+
+            if (initialTokenType <= Token.NULL)
+            {
+                TokenImpl end = new TokenImpl();
+                end.setType(initialTokenType);
+                pool[0].setNextToken(end);
+            }
+
+            return pool[0];
+        }
+
+        @Override
+        public void addNullToken()
+        {
+            maker.addNullToken();
+        }
+
+        @Override
+        public void addToken(char[] array, int start, int end, int tokenType, int startOffset)
+        {
+            maker.addToken(array, start, end, tokenType, startOffset);
+        }
+
+        @Override
+        public int getClosestStandardTokenTypeForInternalType(int type)
+        {
+            return maker.getClosestStandardTokenTypeForInternalType(type);
+        }
+
+        @Override
+        public boolean getCurlyBracesDenoteCodeBlocks(int languageIndex)
+        {
+            return maker.getCurlyBracesDenoteCodeBlocks(languageIndex);
+        }
+
+        @Override
+        public int getLastTokenTypeOnLine(Segment text, int initialTokenType)
+        {
+            if (text.count > MAX_LINE)
+            {
+                return initialTokenType;
+            }
+
+            return maker.getLastTokenTypeOnLine(text, initialTokenType);
+        }
+
+        @Override
+        public String[] getLineCommentStartAndEnd(int languageIndex)
+        {
+            return maker.getLineCommentStartAndEnd(languageIndex);
+        }
+
+        @Override
+        public Action getInsertBreakAction()
+        {
+            return maker.getInsertBreakAction();
+        }
+
+        @Override
+        public boolean getMarkOccurrencesOfTokenType(int type)
+        {
+            return maker.getMarkOccurrencesOfTokenType(type);
+        }
+
+        @Override
+        public OccurrenceMarker getOccurrenceMarker()
+        {
+            return maker.getOccurrenceMarker();
+        }
+
+        @Override
+        public boolean getShouldIndentNextLineAfter(Token token)
+        {
+            return maker.getShouldIndentNextLineAfter(token);
+        }
+
+        @Override
+        public boolean isIdentifierChar(int languageIndex, char ch)
+        {
+            return maker.isIdentifierChar(languageIndex, ch);
+        }
+
+        @Override
+        public boolean isMarkupLanguage()
+        {
+            return maker.isMarkupLanguage();
+        }
+    }
+}
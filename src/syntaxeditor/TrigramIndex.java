@@ -0,0 +1,964 @@
+package syntaxeditor;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import static syntaxeditor.SyntaxEditor.DIRECTORY;
+
+/*
+ * trigram -> files index of a folder, lets Find in Files skip files that cannot match
+ *
+ * on disk, memory mapped, one file per generation so a mapped one is never written over:
+ *   header    magic, file count, trigram count, path bytes
+ *   files     mtime (8), size (8), path end (4), flags (4) per file
+ *   keys      case-folded trigrams packed in a long, sorted
+ *   offsets   start of each posting list, plus the end of the last
+ *   paths     utf-8 paths relative to the folder
+ *   postings  ascending file ids, delta and varint encoded
+ *
+ * files changed since the mapped generation are searched anyway, then read in the background into an
+ * in-memory delta that later searches use; a new generation is written only once the delta has grown
+ * to a good part of the index. the background update gives way to searches and resumes after them
+ */
+public class TrigramIndex
+{
+    private static final int MAGIC = 0x54524931; // TRI1
+    private static final int HEADER = 16;
+    private static final int FILE_ENTRY = 24;
+    private static final int MAX_INDEXED = 32 << 20; // bytes, larger files are always searched
+    private static final int BINARY_CHECK = 8192;
+    private static final int MIN_REWRITE = 256; // changed files before a new generation is written
+    private static final int INDEXED = 0;
+    private static final int UNINDEXED = 1;
+    private static final int BINARY = 2;
+    private static final Map<String, TrigramIndex> INDEXES = new HashMap<>();
+    private static final ExecutorService BUILDER = Executors.newSingleThreadExecutor((Runnable r) ->
+    {
+        Thread thread = new Thread(r, "Trigram Index");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final Path root;
+    private final File folder; // of the generation files
+    private final String prefix;
+    private final Map<String, Entry> delta = new ConcurrentHashMap<>(); // files read since the mapped generation
+    private final AtomicBoolean isQueued = new AtomicBoolean();
+    private final AtomicInteger searches = new AtomicInteger(); // running, the update waits for them
+    private volatile Generation base; // null until loaded or when there is none
+    private volatile boolean isPending; // an update gave way to a search
+    private boolean isLoaded;
+
+    private TrigramIndex(Path root)
+    {
+        this.root = root;
+        this.folder = new File(DIRECTORY + "index/");
+        this.prefix = Integer.toHexString(root.toString().hashCode()) + "-" + root.getFileName() + ".";
+    }
+
+    public static synchronized TrigramIndex forFolder(File folder)
+    {
+        Path root = folder.toPath().toAbsolutePath().normalize();
+        return INDEXES.computeIfAbsent(root.toString(), (String key) -> new TrigramIndex(root));
+    }
+
+    public void updateLater()
+    {
+        if (!isQueued.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        BUILDER.execute(()
+                -> 
+                {
+                    isQueued.set(false);
+
+                    try
+                    {
+                        update();
+                    }
+                    catch (IOException | RuntimeException ex)
+                    {
+                        Logger.getLogger(TrigramIndex.class.getName()).log(Level.SEVERE, null, ex);
+                    }
+        });
+    }
+
+    // walks the folder and hands visitor the files that may contain all trigrams with their size; any file
+    // the index knows nothing current about is handed over, so without an index this is a plain walk
+    public void find(long[] trigrams, BiConsumer<Path, Long> visitor, BooleanSupplier isCancelled) throws IOException
+    {
+        Generation generation = null;
+        BitSet matches = null;
+        boolean[] isStale = new boolean[1];
+
+        searches.incrementAndGet();
+
+        try
+        {
+            try
+            {
+                generation = load();
+
+                if (generation != null)
+                {
+                    matches = generation.find(trigrams);
+                }
+            }
+            catch (IOException | RuntimeException ex)
+            {
+                Logger.getLogger(TrigramIndex.class.getName()).log(Level.SEVERE, null, ex);
+                generation = null;
+            }
+
+            Generation known = generation;
+            BitSet found = matches;
+
+            MultiSearch.walkFolder(root, (Path path, BasicFileAttributes attrs)
+                    -> 
+                    {
+                        String relative = root.relativize(path).toString();
+                        long modified = attrs.lastModifiedTime().toMillis();
+                        long size = attrs.size();
+                        int id = (known != null) ? known.getId(relative, modified, size) : -1;
+                        Entry entry;
+
+                        if (id >= 0)
+                        {
+                            if (found.get(id))
+                            {
+                                visitor.accept(path, size);
+                            }
+                        }
+                        else if (((entry = delta.get(relative)) != null) && entry.isCurrent(modified, size))
+                        {
+                            if (entry.contains(trigrams))
+                            {
+                                visitor.accept(path, size);
+                            }
+                        }
+                        else
+                        {
+                            isStale[0] = true;
+                            visitor.accept(path, size);
+                        }
+            }, isCancelled);
+        }
+        finally
+        {
+            searches.decrementAndGet();
+        }
+
+        if (isStale[0] || isPending)
+        {
+            updateLater();
+        }
+    }
+
+    // reads the files changed since the mapped generation into the delta, and writes a new generation
+    // once there are enough of them; stops while a search runs and is queued again for later
+    private void update() throws IOException
+    {
+        Generation generation = load();
+        List<String> paths = new ArrayList<>();
+        List<long[]> stats = new ArrayList<>();
+        Set<String> present = new HashSet<>();
+        int[] changed = new int[1];
+        boolean isCancelled;
+
+        isPending = false;
+        MultiSearch.walkFolder(root, (Path path, BasicFileAttributes attrs)
+                -> 
+                {
+                    String relative = root.relativize(path).toString();
+                    long modified = attrs.lastModifiedTime().toMillis();
+                    long size = attrs.size();
+
+                    paths.add(relative);
+                    stats.add(new long[] { modified, size });
+                    present.add(relative);
+
+                    if ((generation == null) || (generation.getId(relative, modified, size) < 0))
+                    {
+                        Entry entry = delta.get(relative);
+
+                        if (((entry == null) || !entry.isCurrent(modified, size)) && (searches.get() == 0))
+                        {
+                            delta.put(relative, readEntry(path, modified, size));
+                        }
+
+                        changed[0]++;
+                    }
+        }, () -> searches.get() > 0);
+
+        isCancelled = searches.get() > 0;
+        delta.keySet().retainAll(present);
+
+        if (isCancelled)
+        {
+            isPending = true; // the search queues it again once it ends
+            return;
+        }
+
+        int removed = (generation == null) ? 0 : generation.fileCount - (paths.size() - changed[0]);
+
+        if ((generation == null) ? (changed[0] > 0)
+                : (changed[0] + removed > Math.max(MIN_REWRITE, generation.fileCount / 8)))
+        {
+            write(generation, paths, stats);
+        }
+    }
+
+    // the newest generation, mapped the first time
+    private synchronized Generation load() throws IOException
+    {
+        if (isLoaded)
+        {
+            return base;
+        }
+
+        isLoaded = true;
+
+        File newest = null;
+        long number = -1;
+        File[] files = folder.listFiles((File dir, String name) -> name.startsWith(prefix) && name.endsWith(".tri"));
+
+        for (File candidate : (files != null) ? files : new File[0])
+        {
+            long n = getNumber(candidate);
+
+            if (n > number)
+            {
+                number = n;
+                newest = candidate;
+            }
+        }
+
+        if (newest != null)
+        {
+            base = Generation.map(newest, number);
+        }
+
+        deleteOlder();
+        return base;
+    }
+
+    // generation files are named <prefix><number>.tri, -1 for anything else
+    private long getNumber(File file)
+    {
+        String name = file.getName();
+
+        try
+        {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - ".tri".length()));
+        }
+        catch (NumberFormatException | IndexOutOfBoundsException ex)
+        {
+            return -1;
+        }
+    }
+
+    // best effort, a generation still mapped can not be deleted on windows and goes on the next write
+    private void deleteOlder()
+    {
+        File[] files = folder.listFiles((File dir, String name) -> name.startsWith(prefix));
+
+        for (File file : (files != null) ? files : new File[0])
+        {
+            if ((base == null) || !file.equals(base.file))
+            {
+                file.delete();
+            }
+        }
+    }
+
+    // the files present now, with the postings of the unchanged ones carried over from the mapped generation
+    private void write(Generation generation, List<String> paths, List<long[]> stats) throws IOException
+    {
+        int count = paths.size();
+        int[] flags = new int[count];
+        int[] remap = new int[(generation != null) ? generation.fileCount : 0];
+        Map<Long, IntList> postings = new HashMap<>();
+
+        Arrays.fill(remap, -1);
+
+        for (int i = 0; i < count; i++)
+        {
+            long[] stat = stats.get(i);
+            int id = (generation != null) ? generation.getId(paths.get(i), stat[0], stat[1]) : -1;
+
+            if (id >= 0)
+            {
+                remap[id] = i;
+                flags[i] = generation.getFlags(id);
+                continue;
+            }
+
+            Entry entry = delta.get(paths.get(i));
+
+            if ((entry == null) || !entry.isCurrent(stat[0], stat[1]))
+            {
+                flags[i] = UNINDEXED; // changed again since it was read
+                continue;
+            }
+
+            flags[i] = entry.flags;
+
+            for (long trigram : entry.trigrams)
+            {
+                postings.computeIfAbsent(trigram, (Long key) -> new IntList()).add(i);
+            }
+        }
+
+        if (generation != null)
+        {
+            generation.carryOver(remap, postings);
+        }
+
+        long number = (generation != null) ? generation.number + 1 : 0;
+        File file = new File(folder, prefix + number + ".tri");
+        File part = new File(folder, prefix + number + ".part");
+
+        folder.mkdirs();
+        writeFile(part, paths, stats, flags, postings);
+        Files.move(part.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        synchronized (this)
+        {
+            base = Generation.map(file, number);
+            delta.clear();
+            deleteOlder();
+        }
+    }
+
+    private static void writeFile(File part, List<String> paths, List<long[]> stats, int[] flags,
+            Map<Long, IntList> postings) throws IOException
+    {
+        long[] keys = new long[postings.size()];
+        ByteArrayOutputStream pathBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream postingBytes = new ByteArrayOutputStream();
+        int[] pathEnds = new int[paths.size()];
+        int[] offsets = new int[keys.length + 1];
+        int k = 0;
+
+        for (Long key : postings.keySet())
+        {
+            keys[k++] = key;
+        }
+
+        Arrays.sort(keys);
+
+        for (int i = 0; i < paths.size(); i++)
+        {
+            byte[] bytes = paths.get(i).getBytes(StandardCharsets.UTF_8);
+            pathBytes.write(bytes, 0, bytes.length);
+            pathEnds[i] = pathBytes.size();
+        }
+
+        for (int t = 0; t < keys.length; t++)
+        {
+            int[] ids = postings.get(keys[t]).toSortedArray();
+            int previous = 0;
+
+            offsets[t] = postingBytes.size();
+
+            for (int id : ids)
+            {
+                writeVarint(postingBytes, id - previous);
+                previous = id;
+            }
+        }
+
+        offsets[keys.length] = postingBytes.size();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(part.toPath()))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(paths.size());
+            out.writeInt(keys.length);
+            out.writeInt(pathBytes.size());
+
+            for (int i = 0; i < paths.size(); i++)
+            {
+                out.writeLong(stats.get(i)[0]);
+                out.writeLong(stats.get(i)[1]);
+                out.writeInt(pathEnds[i]);
+                out.writeInt(flags[i]);
+            }
+
+            for (long key : keys)
+            {
+                out.writeLong(key);
+            }
+
+            for (int offset : offsets)
+            {
+                out.writeInt(offset);
+            }
+
+            pathBytes.writeTo(out);
+            postingBytes.writeTo(out);
+        }
+    }
+
+    private static Entry readEntry(Path path, long modified, long size)
+    {
+        if (size > MAX_INDEXED)
+        {
+            return new Entry(modified, size, UNINDEXED, null);
+        }
+
+        try
+        {
+            byte[] bytes = Files.readAllBytes(path);
+
+            for (int j = 0; j < Math.min(bytes.length, BINARY_CHECK); j++)
+            {
+                if (bytes[j] == 0)
+                {
+                    return new Entry(modified, size, BINARY, null);
+                }
+            }
+
+            return new Entry(modified, size, INDEXED, getTrigrams(new String(bytes, StandardCharsets.UTF_8)));
+        }
+        catch (IOException ex)
+        {
+            return new Entry(modified, size, UNINDEXED, null);
+        }
+    }
+
+    // sorted, distinct, case-folded trigrams of text
+    private static long[] getTrigrams(CharSequence text)
+    {
+        if (text.length() < 3)
+        {
+            return new long[0];
+        }
+
+        long[] trigrams = new long[text.length() - 2];
+        int count = 0;
+
+        for (int i = 0; i < trigrams.length; i++)
+        {
+            trigrams[i] = ((long) LiteralMatcher.foldCase(text.charAt(i)) << 32)
+                    | ((long) LiteralMatcher.foldCase(text.charAt(i + 1)) << 16)
+                    | LiteralMatcher.foldCase(text.charAt(i + 2));
+        }
+
+        Arrays.sort(trigrams);
+
+        for (int i = 0; i < trigrams.length; i++)
+        {
+            if ((i == 0) || (trigrams[i] != trigrams[i - 1]))
+            {
+                trigrams[count++] = trigrams[i];
+            }
+        }
+
+        return Arrays.copyOf(trigrams, count);
+    }
+
+    // trigrams every match of the query has to contain, none when that cannot be worked out
+    public static long[] getTrigrams(String query, boolean isRegex)
+    {
+        if (!isRegex)
+        {
+            return getTrigrams(query);
+        }
+
+        List<String> runs = getRequiredLiterals(query);
+        List<Long> trigrams = new ArrayList<>();
+
+        for (String run : runs)
+        {
+            for (long trigram : getTrigrams(run))
+            {
+                trigrams.add(trigram);
+            }
+        }
+
+        return trigrams.stream().distinct().mapToLong(Long::longValue).toArray();
+    }
+
+    // literal runs outside groups, classes and optional quantifiers; gives up on alternation
+    private static List<String> getRequiredLiterals(String regex)
+    {
+        List<String> runs = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+
+        if ((regex.indexOf('|') >= 0) || regex.contains("\\Q") || regex.matches("(?s).*\\(\\?[a-zA-Z-]*x.*"))
+        {
+            return runs;
+        }
+
+        for (int i = 0; i < regex.length(); i++)
+        {
+            char c = regex.charAt(i);
+
+            if (c == '\\')
+            {
+                char escaped = (i + 1 < regex.length()) ? regex.charAt(++i) : '\\';
+
+                if (Character.isLetterOrDigit(escaped))
+                {
+                    // \d, \x41, \p{L}, \k<name>... skip whatever belongs to it
+                    while ((i + 1 < regex.length()) && (Character.isLetterOrDigit(regex.charAt(i + 1))
+                            || ("{}<>".indexOf(regex.charAt(i + 1)) >= 0)))
+                    {
+                        i++;
+                    }
+
+                    endRun(runs, run);
+                }
+                else if (depth == 0)
+                {
+                    run.append(escaped);
+                }
+
+                continue;
+            }
+
+            if (c == '[')
+            {
+                i = skipClass(regex, i);
+                endRun(runs, run);
+                continue;
+            }
+
+            if (depth > 0)
+            {
+                depth += (c == '(') ? 1 : (c == ')') ? -1 : 0;
+                continue;
+            }
+
+            switch (c)
+            {
+                case '(':
+                    depth++;
+                    endRun(runs, run);
+                    break;
+                case '?':
+                case '*':
+                case '{':
+                    // the previous atom is optional
+                    if (run.length() > 0)
+                    {
+                        run.setLength(run.length() - 1);
+                    }
+
+                    endRun(runs, run);
+
+                    if (c == '{')
+                    {
+                        while ((i < regex.length()) && (regex.charAt(i) != '}'))
+                        {
+                            i++;
+                        }
+                    }
+                    break;
+                case '+':
+                case '.':
+                case '^':
+                case '$':
+                case ')':
+                    endRun(runs, run);
+                    break;
+                default:
+                    run.append(c);
+            }
+        }
+
+        endRun(runs, run);
+        return runs;
+    }
+
+    private static void endRun(List<String> runs, StringBuilder run)
+    {
+        if (run.length() >= 3)
+        {
+            runs.add(run.toString());
+        }
+
+        run.setLength(0);
+    }
+
+    private static int skipClass(String regex, int start)
+    {
+        int i = start + 1;
+
+        if ((i < regex.length()) && (regex.charAt(i) == '^'))
+        {
+            i++;
+        }
+
+        if ((i < regex.length()) && (regex.charAt(i) == ']'))
+        {
+            i++;
+        }
+
+        for (int depth = 1; i < regex.length(); i++)
+        {
+            char c = regex.charAt(i);
+
+            if (c == '\\')
+            {
+                i++;
+            }
+            else if (c == '[')
+            {
+                depth++;
+            }
+            else if ((c == ']') && (--depth == 0))
+            {
+                break;
+            }
+        }
+
+        return i;
+    }
+
+
+    private static int[] intersect(int[] a, int[] b)
+    {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+
+        for (int i = 0, j = 0; (i < a.length) && (j < b.length);)
+        {
+            if (a[i] < b[j])
+            {
+                i++;
+            }
+            else if (a[i] > b[j])
+            {
+                j++;
+            }
+            else
+            {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.write(value);
+    }
+
+    // one mapped index file, never changed once written
+    private static class Generation
+    {
+        private final File file;
+        private final long number;
+        private final ByteBuffer data;
+        private final int fileCount;
+        private final int trigramCount;
+        private final int keysPos;
+        private final int offsetsPos;
+        private final int pathsPos;
+        private final int postingsPos;
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        private Generation(File file, long number, ByteBuffer data)
+        {
+            this.file = file;
+            this.number = number;
+            this.data = data;
+            fileCount = data.getInt(4);
+            trigramCount = data.getInt(8);
+            keysPos = HEADER + fileCount * FILE_ENTRY;
+            offsetsPos = keysPos + trigramCount * 8;
+            pathsPos = offsetsPos + (trigramCount + 1) * 4;
+            postingsPos = pathsPos + data.getInt(12);
+        }
+
+        // null if the file is not a whole index
+        private static Generation map(File file, long number) throws IOException
+        {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+            {
+                ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+                if ((map.limit() < HEADER) || (map.getInt(0) != MAGIC) || (map.getInt(4) < 0) || (map.getInt(8) < 0)
+                        || (map.getInt(12) < 0))
+                {
+                    return null;
+                }
+
+                long postings = HEADER + (long) map.getInt(4) * FILE_ENTRY + map.getInt(8) * 12L + 4 + map.getInt(12);
+
+                if ((postings > map.limit())
+                        || (postings + map.getInt((int) postings - map.getInt(12) - 4) != map.limit()))
+                {
+                    return null;
+                }
+
+                Generation generation = new Generation(file, number, map);
+
+                for (int i = 0; i < generation.fileCount; i++)
+                {
+                    generation.ids.put(generation.getPath(i), i);
+                }
+
+                return generation;
+            }
+        }
+
+        // id of the file at relative if it is unchanged since this generation, -1 otherwise
+        private int getId(String relative, long modified, long size)
+        {
+            Integer id = ids.get(relative);
+
+            if ((id == null) || (data.getLong(HEADER + id * FILE_ENTRY) != modified)
+                    || (data.getLong(HEADER + id * FILE_ENTRY + 8) != size))
+            {
+                return -1;
+            }
+
+            return id;
+        }
+
+        private int getFlags(int id)
+        {
+            return data.getInt(HEADER + id * FILE_ENTRY + 20);
+        }
+
+        // ids of the files that may contain all trigrams
+        private BitSet find(long[] trigrams)
+        {
+            BitSet matches = new BitSet(fileCount);
+            int[] ids = null;
+
+            for (long trigram : trigrams)
+            {
+                int t = indexOf(trigram);
+                int[] posting = (t < 0) ? new int[0] : getPosting(t);
+
+                ids = (ids == null) ? posting : intersect(ids, posting);
+            }
+
+            for (int i = 0; i < fileCount; i++)
+            {
+                if (getFlags(i) == UNINDEXED)
+                {
+                    matches.set(i);
+                }
+            }
+
+            if (ids == null)
+            {
+                for (int i = 0; i < fileCount; i++)
+                {
+                    if (getFlags(i) == INDEXED)
+                    {
+                        matches.set(i);
+                    }
+                }
+            }
+            else
+            {
+                for (int id : ids)
+                {
+                    matches.set(id);
+                }
+            }
+
+            return matches;
+        }
+
+        // adds the postings of the files still present under their new ids
+        private void carryOver(int[] remap, Map<Long, IntList> postings)
+        {
+            for (int t = 0; t < trigramCount; t++)
+            {
+                IntList list = null;
+
+                for (int id : getPosting(t))
+                {
+                    if (remap[id] >= 0)
+                    {
+                        if (list == null)
+                        {
+                            list = postings.computeIfAbsent(data.getLong(keysPos + t * 8), (Long key) -> new IntList());
+                        }
+
+                        list.add(remap[id]);
+                    }
+                }
+            }
+        }
+
+        private int indexOf(long trigram)
+        {
+            int low = 0;
+            int high = trigramCount - 1;
+
+            while (low <= high)
+            {
+                int middle = (low + high) >>> 1;
+                long key = data.getLong(keysPos + middle * 8);
+
+                if (key < trigram)
+                {
+                    low = middle + 1;
+                }
+                else if (key > trigram)
+                {
+                    high = middle - 1;
+                }
+                else
+                {
+                    return middle;
+                }
+            }
+
+            return -1;
+        }
+
+        private int[] getPosting(int t)
+        {
+            int position = postingsPos + data.getInt(offsetsPos + t * 4);
+            int end = postingsPos + data.getInt(offsetsPos + (t + 1) * 4);
+            IntList ids = new IntList();
+            int id = 0;
+
+            while (position < end)
+            {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+
+                do
+                {
+                    b = data.get(position++);
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                }
+                while ((b & 0x80) != 0);
+
+                id += delta;
+                ids.add(id);
+            }
+
+            return ids.toSortedArray();
+        }
+
+        private String getPath(int i)
+        {
+            int start = (i == 0) ? 0 : data.getInt(HEADER + (i - 1) * FILE_ENTRY + 16);
+            int end = data.getInt(HEADER + i * FILE_ENTRY + 16);
+            byte[] bytes = new byte[end - start];
+
+            for (int j = 0; j < bytes.length; j++)
+            {
+                bytes[j] = data.get(pathsPos + start + j);
+            }
+
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // a file read since the mapped generation
+    private static class Entry
+    {
+        private final long modified;
+        private final long size;
+        private final int flags;
+        private final long[] trigrams; // sorted, null unless indexed
+
+        private Entry(long modified, long size, int flags, long[] trigrams)
+        {
+            this.modified = modified;
+            this.size = size;
+            this.flags = flags;
+            this.trigrams = trigrams;
+        }
+
+        private boolean isCurrent(long modified, long size)
+        {
+            return (this.modified == modified) && (this.size == size);
+        }
+
+        private boolean contains(long[] wanted)
+        {
+            if (flags != INDEXED)
+            {
+                return flags == UNINDEXED;
+            }
+
+            for (long trigram : wanted)
+            {
+                if (Arrays.binarySearch(trigrams, trigram) < 0)
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private static class IntList
+    {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value)
+        {
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = value;
+        }
+
+        int[] toSortedArray()
+        {
+            int[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
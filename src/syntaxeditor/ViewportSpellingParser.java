@@ -0,0 +1,627 @@
+package syntaxeditor;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.HyperlinkEvent;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+import org.fife.com.swabunga.spell.engine.SpellDictionary;
+import org.fife.com.swabunga.spell.engine.Word;
+import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.parser.AbstractParser;
+import org.fife.ui.rsyntaxtextarea.parser.DefaultParseResult;
+import org.fife.ui.rsyntaxtextarea.parser.DefaultParserNotice;
+import org.fife.ui.rsyntaxtextarea.parser.ExtendedHyperlinkListener;
+import org.fife.ui.rsyntaxtextarea.parser.ParseResult;
+import org.fife.ui.rsyntaxtextarea.parser.ParserNotice;
+
+/*
+ * spell checks one text area, with notices for the lines in view and as many again above and below them
+ *
+ * in plain text each line keeps the hash of the text it was checked with and the misspelled words found
+ * in it, so a parse only checks the lines an edit has changed; the rest of the document is left
+ * unchecked, and without notices, until it is scrolled to
+ *
+ * in code only the comments and strings are checked, as the TokenCache has split them out: every line
+ * it gives new tokens is checked again on a background thread, and a parse just turns the words found
+ * in the lines around the view into notices. the dictionary is shared by every tab
+ */
+public class ViewportSpellingParser extends AbstractParser implements DocumentListener, ChangeListener,
+        TokenCache.Listener, ExtendedHyperlinkListener
+{
+    private static final int CHUNK = 2000; // lines of code checked per read lock
+    private static final int MIN_MARGIN = 50; // lines with notices above and below the view
+    private static final int SCROLL_DELAY = 200; // ms after scrolling out of the lines with notices
+    private static final int SUGGESTION_THRESHOLD = 140; // the default of the swabunga engine
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final int[] NONE = new int[0]; // checked, without misspelled words
+    private static final Color SQUIGGLE_COLOR = new Color(255, 0, 0);
+    private static final String REPLACE = "replace://";
+    private static final ExecutorService CHECKER = Executors.newSingleThreadExecutor((Runnable r) ->
+    {
+        Thread thread = new Thread(r, "Spelling");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final RSyntaxTextArea textArea;
+    private final AbstractDocument doc;
+    private final TokenCache tokenCache;
+    private final SpellDictionary dictionary;
+    private final Timer scrollTimer;
+    private final PropertyChangeListener syntaxListener;
+    private final Segment segment = new Segment(); // edt
+    private int[] hashes = new int[0]; // per line of plain text, of the text it was checked with
+    private int[][] errors = new int[0][]; // per line, start and end of each misspelled word, null until checked
+    private int lines;
+    private int next; // in code every line before this one is checked
+    private int generation; // bumped when the syntax changes
+    private boolean isCode; // checked by token in the background
+    private boolean isRunning;
+    private boolean isClosed;
+    private int checkedFrom; // lines with notices
+    private int checkedTo = -1;
+
+    public ViewportSpellingParser(RSyntaxTextArea textArea, TokenCache tokenCache, SpellDictionary dictionary)
+    {
+        this.textArea = textArea;
+        this.doc = (AbstractDocument) textArea.getDocument();
+        this.tokenCache = tokenCache;
+        this.dictionary = dictionary;
+
+        scrollTimer = new Timer(SCROLL_DELAY, (ActionEvent e) ->
+        {
+            textArea.forceReparsing(this);
+        });
+        scrollTimer.setRepeats(false);
+
+        syntaxListener = (PropertyChangeEvent e) ->
+        {
+            reset();
+            textArea.forceReparsing(this);
+        };
+
+        setHyperlinkListener(this);
+        lines = doc.getDefaultRootElement().getElementCount();
+        hashes = new int[lines];
+        errors = new int[lines][];
+        isCode = isCode(textArea.getSyntaxEditingStyle());
+        doc.addDocumentListener(this);
+        tokenCache.addListener(this);
+        textArea.addPropertyChangeListener(RSyntaxTextArea.SYNTAX_STYLE_PROPERTY, syntaxListener);
+
+        if (textArea.getParent() instanceof JViewport)
+        {
+            ((JViewport) textArea.getParent()).addChangeListener(this);
+        }
+
+        schedule();
+    }
+
+    // to be called once the parser is removed from its text area
+    public void close()
+    {
+        scrollTimer.stop();
+        doc.removeDocumentListener(this);
+        tokenCache.removeListener(this);
+        textArea.removePropertyChangeListener(RSyntaxTextArea.SYNTAX_STYLE_PROPERTY, syntaxListener);
+
+        if (textArea.getParent() instanceof JViewport)
+        {
+            ((JViewport) textArea.getParent()).removeChangeListener(this);
+        }
+
+        synchronized (this)
+        {
+            isClosed = true;
+        }
+    }
+
+    private static boolean isCode(String syntax)
+    {
+        return !syntax.equals(SyntaxConstants.SYNTAX_STYLE_NONE);
+    }
+
+    private synchronized void reset()
+    {
+        isCode = isCode(textArea.getSyntaxEditingStyle());
+        generation++;
+        next = 0;
+        Arrays.fill(errors, null);
+    }
+
+    // edit, the lines below move up or down with their results
+    @Override
+    public void insertUpdate(DocumentEvent e)
+    {
+        edited(e);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e)
+    {
+        edited(e);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e)
+    {
+    }
+
+    // write lock held; plain text lines tell by their hash that they need a recheck, code waits for new tokens
+    private synchronized void edited(DocumentEvent e)
+    {
+        Element root = doc.getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+
+        if (change == null)
+        {
+            if (isCode)
+            {
+                errors[root.getElementIndex(e.getOffset())] = null;
+            }
+
+            return;
+        }
+
+        int first = change.getIndex();
+        int removed = change.getChildrenRemoved().length;
+        int added = change.getChildrenAdded().length;
+        int count = root.getElementCount();
+
+        if (count > errors.length)
+        {
+            int capacity = Math.max(count, errors.length + (errors.length >> 1));
+
+            hashes = Arrays.copyOf(hashes, capacity);
+            errors = Arrays.copyOf(errors, capacity);
+        }
+
+        System.arraycopy(hashes, first + removed, hashes, first + added, Math.max(0, lines - first - removed));
+        System.arraycopy(errors, first + removed, errors, first + added, Math.max(0, lines - first - removed));
+        Arrays.fill(errors, first, Math.min(first + added, count), null);
+
+        if (count < lines)
+        {
+            Arrays.fill(errors, count, lines, null);
+        }
+
+        lines = count;
+        next = Math.min(next, first);
+    }
+
+    // new tokens, the lines are checked again
+    @Override
+    public void tokensChanged(int firstLine, int lastLine)
+    {
+        synchronized (this)
+        {
+            if (!isCode || (firstLine >= lines))
+            {
+                return;
+            }
+
+            Arrays.fill(errors, firstLine, Math.min(lastLine + 1, lines), null);
+            next = Math.min(next, firstLine);
+        }
+
+        schedule();
+    }
+
+    // scrolling
+    @Override
+    public void stateChanged(ChangeEvent e)
+    {
+        int[] visible = getVisibleLines();
+
+        if ((visible[0] < checkedFrom) || (visible[1] > checkedTo))
+        {
+            scrollTimer.restart();
+        }
+    }
+
+    // on the edt, read lock held
+    @Override
+    public synchronized ParseResult parse(RSyntaxDocument doc, String style)
+    {
+        long start = System.currentTimeMillis();
+        DefaultParseResult result = new DefaultParseResult(this);
+        Element root = doc.getDefaultRootElement();
+        int[] visible = getVisibleLines();
+        int margin = Math.max(MIN_MARGIN, visible[1] - visible[0]);
+
+        checkedFrom = Math.max(0, visible[0] - margin);
+        checkedTo = Math.min(lines - 1, visible[1] + margin);
+
+        for (int line = checkedFrom; line <= checkedTo; line++)
+        {
+            if (isCode && (errors[line] == null))
+            {
+                continue;
+            }
+
+            Element element = root.getElement(line);
+            int offset = element.getStartOffset();
+
+            try
+            {
+                doc.getText(offset, element.getEndOffset() - 1 - offset, segment);
+            }
+            catch (BadLocationException ex)
+            {
+                result.setError(ex);
+                break;
+            }
+
+            if (!isCode)
+            {
+                int hash = hash(segment);
+
+                if ((errors[line] == null) || (hashes[line] != hash))
+                {
+                    hashes[line] = hash;
+                    errors[line] = check(segment.array, segment.offset, new int[] { 0, segment.count }, 2);
+                }
+            }
+
+            for (int i = 0; i < errors[line].length; i += 2)
+            {
+                int length = errors[line][i + 1] - errors[line][i];
+                String word = new String(segment.array, segment.offset + errors[line][i], length);
+
+                result.addNotice(new SpellingNotice(word, line, offset + errors[line][i]));
+            }
+        }
+
+        // notices outside of the checked lines go too
+        result.setParsedLines(0, Math.max(0, lines - 1));
+        result.setParseTime(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    // background pass over the code lines with new tokens
+    private void schedule()
+    {
+        synchronized (this)
+        {
+            if (isRunning || isClosed || !isCode || (next >= lines))
+            {
+                return;
+            }
+
+            isRunning = true;
+        }
+
+        CHECKER.execute(this::run);
+    }
+
+    private void run()
+    {
+        doc.render(this::checkChunk);
+
+        boolean hasMore;
+
+        synchronized (this)
+        {
+            hasMore = !isClosed && isCode && (next < lines);
+            isRunning = hasMore;
+        }
+
+        if (hasMore)
+        {
+            CHECKER.execute(this::run);
+        }
+        else
+        {
+            SwingUtilities.invokeLater(()
+                    -> 
+                    {
+                        if (!isClosed)
+                        {
+                            textArea.forceReparsing(this);
+                        }
+            });
+        }
+    }
+
+    // read lock held; a line not tokenized yet is left for the pass after its tokens come in
+    private void checkChunk()
+    {
+        Element root = doc.getDefaultRootElement();
+        Segment text = new Segment();
+        int generation;
+        int line;
+
+        synchronized (this)
+        {
+            generation = this.generation;
+            line = next;
+        }
+
+        for (int done = 0; (done < CHUNK) && (line < root.getElementCount()); line++)
+        {
+            synchronized (this)
+            {
+                if ((generation != this.generation) || isClosed)
+                {
+                    return;
+                }
+
+                if (errors[line] != null)
+                {
+                    next = line + 1;
+                    continue;
+                }
+            }
+
+            int[] tokens = tokenCache.getTokens(line);
+            int[] found = null;
+
+            if (tokens != null)
+            {
+                Element element = root.getElement(line);
+                int start = element.getStartOffset();
+
+                try
+                {
+                    doc.getText(start, element.getEndOffset() - 1 - start, text);
+                }
+                catch (BadLocationException ex)
+                {
+                    Logger.getLogger(ViewportSpellingParser.class.getName()).log(Level.SEVERE, null, ex);
+                    return;
+                }
+
+                int[] ranges = new int[tokens.length];
+                int count = 0;
+
+                for (int i = 0; i < tokens.length; i += 3)
+                {
+                    if ((tokens[i] >= 0) && isChecked(tokens[i + 2]))
+                    {
+                        ranges[count++] = tokens[i];
+                        ranges[count++] = tokens[i] + tokens[i + 1];
+                    }
+                }
+
+                found = check(text.array, text.offset, ranges, count);
+                done++;
+            }
+
+            synchronized (this)
+            {
+                if (generation != this.generation)
+                {
+                    return;
+                }
+
+                errors[line] = found;
+                next = line + 1;
+            }
+        }
+    }
+
+    // comments and strings in a packed token type, but not links nor doc comment tags
+    private static boolean isChecked(int packed)
+    {
+        if ((packed & 256) != 0)
+        {
+            return false;
+        }
+
+        switch (packed >> 9)
+        {
+            case Token.COMMENT_EOL:
+            case Token.COMMENT_MULTILINE:
+            case Token.COMMENT_DOCUMENTATION:
+            case Token.MARKUP_COMMENT:
+            case Token.LITERAL_STRING_DOUBLE_QUOTE:
+            case Token.LITERAL_CHAR:
+            case Token.LITERAL_BACKQUOTE:
+            case Token.ERROR_STRING_DOUBLE:
+            case Token.ERROR_CHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // replaces a word with the suggestion clicked in its tool tip
+    @Override
+    public void linkClicked(RSyntaxTextArea textArea, HyperlinkEvent e)
+    {
+        String description = e.getDescription();
+
+        if ((description == null) || !description.startsWith(REPLACE))
+        {
+            return;
+        }
+
+        String[] parts = description.substring(REPLACE.length()).split(",", 3);
+        int offset = Integer.parseInt(parts[0]);
+        int length = Integer.parseInt(parts[1]);
+
+        textArea.select(offset, offset + length);
+        textArea.replaceSelection(parts[2]);
+    }
+
+    private int[] getVisibleLines()
+    {
+        Rectangle rect = textArea.getVisibleRect();
+        Element root = doc.getDefaultRootElement();
+        int from = textArea.viewToModel(new Point(rect.x, rect.y));
+        int to = textArea.viewToModel(new Point(rect.x + rect.width, rect.y + rect.height));
+
+        return new int[] { root.getElementIndex(Math.max(0, from)), root.getElementIndex(Math.max(from, to)) };
+    }
+
+    private static int hash(Segment text)
+    {
+        int hash = text.count;
+
+        for (int i = text.offset; i < text.offset + text.count; i++)
+        {
+            hash = 31 * hash + text.array[i];
+        }
+
+        return hash;
+    }
+
+    // start and end of each misspelled word in the ranges, start and end pairs from offset in a
+    private int[] check(char[] a, int offset, int[] ranges, int rangeCount)
+    {
+        int[] found = NONE;
+        int count = 0;
+
+        for (int r = 0; r < rangeCount; r += 2)
+        {
+            int end = offset + ranges[r + 1];
+
+            for (int i = offset + ranges[r]; i < end;)
+            {
+                if (Character.isWhitespace(a[i]))
+                {
+                    i++;
+                    continue;
+                }
+
+                // urls and mail addresses are left as they are
+                int chunk = i;
+
+                while ((i < end) && !Character.isWhitespace(a[i]))
+                {
+                    i++;
+                }
+
+                if (isAddress(a, chunk, i))
+                {
+                    continue;
+                }
+
+                for (int j = chunk; j < i;)
+                {
+                    // escapes such as \n in strings
+                    if (a[j] == '\\')
+                    {
+                        j += 2;
+                        continue;
+                    }
+
+                    if (!Character.isLetterOrDigit(a[j]))
+                    {
+                        j++;
+                        continue;
+                    }
+
+                    int wordStart = j;
+
+                    while ((j < i) && (Character.isLetterOrDigit(a[j]) || (a[j] == '_')
+                            || ((a[j] == '\'') && (j + 1 < i) && Character.isLetter(a[j + 1]))))
+                    {
+                        j++;
+                    }
+
+                    if (isCheckable(a, wordStart, j) && !dictionary.isCorrect(new String(a, wordStart, j - wordStart)))
+                    {
+                        if (count == found.length)
+                        {
+                            found = Arrays.copyOf(found, Math.max(8, count * 2));
+                        }
+
+                        found[count++] = wordStart - offset;
+                        found[count++] = j - offset;
+                    }
+                }
+            }
+        }
+
+        return (count == found.length) ? found : Arrays.copyOf(found, count);
+    }
+
+    private static boolean isAddress(char[] a, int start, int end)
+    {
+        String chunk = new String(a, start, end - start);
+        return chunk.contains("://") || chunk.startsWith("www.") || (chunk.indexOf('@') > 0);
+    }
+
+    // single letters, words with digits or underscores, acronyms and camel case are not english words
+    private static boolean isCheckable(char[] a, int start, int end)
+    {
+        if (end - start < 2)
+        {
+            return false;
+        }
+
+        for (int i = start; i < end; i++)
+        {
+            if (Character.isDigit(a[i]) || (a[i] == '_') || ((i > start) && Character.isUpperCase(a[i])))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // the suggestions are only looked up once the tool tip is shown
+    private class SpellingNotice extends DefaultParserNotice
+    {
+        private final String word;
+
+        SpellingNotice(String word, int line, int offset)
+        {
+            super(ViewportSpellingParser.this, "Incorrectly spelled word: " + word, line, offset, word.length());
+            this.word = word;
+            setLevel(ParserNotice.Level.INFO);
+            setColor(SQUIGGLE_COLOR);
+        }
+
+        @Override
+        public String getToolTipText()
+        {
+            StringBuilder html = new StringBuilder("<html>&nbsp;Incorrectly spelled word: <em>");
+            List<?> suggestions = dictionary.getSuggestions(word, SUGGESTION_THRESHOLD);
+
+            html.append(word).append("</em><br><br>&nbsp;Suggestions:<br>");
+
+            if (suggestions.isEmpty())
+            {
+                html.append("&nbsp;&nbsp;&nbsp;&nbsp;<em>None</em>");
+            }
+
+            for (int i = 0; (i < suggestions.size()) && (i < MAX_SUGGESTIONS); i++)
+            {
+                String suggestion = ((Word) suggestions.get(i)).getWord();
+
+                html.append("&nbsp;&nbsp;&nbsp;&nbsp;&#8226;&nbsp;<a href=\"").append(REPLACE).append(getOffset())
+                        .append(',').append(getLength()).append(',').append(suggestion).append("\">")
+                        .append(suggestion).append("</a><br>");
+            }
+
+            return html.toString();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package syntaxeditor;
+
+import java.awt.Rectangle;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.event.CaretEvent;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+
+// completes the word before the caret with words from every open tab, the most frequent first
+public class WordCompletion
+{
+    private static final int LIMIT = 50; // words offered
+    private static final int VISIBLE_ROWS = 10;
+
+    private final RSyntaxTextArea textArea;
+    private final WordIndex index;
+    private final JList<String> list = new JList<>();
+    private final JPopupMenu popup = new JPopupMenu();
+    private int start; // of the word being completed
+
+    public WordCompletion(RSyntaxTextArea textArea, WordIndex index)
+    {
+        this.textArea = textArea;
+        this.index = index;
+
+        list.setVisibleRowCount(VISIBLE_ROWS);
+        list.setFocusable(false);
+        list.addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mouseClicked(MouseEvent e)
+            {
+                if (e.getClickCount() == 2)
+                {
+                    insert();
+                }
+            }
+        });
+
+        popup.setFocusable(false);
+        popup.add(new JScrollPane(list));
+
+        // keys go on to the text area, the list takes the ones it needs while it is up
+        textArea.addKeyListener(new KeyAdapter()
+        {
+            @Override
+            public void keyPressed(KeyEvent e)
+            {
+                if (popup.isVisible() && handle(e.getKeyCode()))
+                {
+                    e.consume();
+                }
+            }
+        });
+
+        textArea.addCaretListener((CaretEvent e) ->
+        {
+            if (popup.isVisible())
+            {
+                update();
+            }
+        });
+
+        textArea.addFocusListener(new FocusAdapter()
+        {
+            @Override
+            public void focusLost(FocusEvent e)
+            {
+                popup.setVisible(false);
+            }
+        });
+    }
+
+    // offers the words the one before the caret could become, or completes it if there is only one
+    public void show()
+    {
+        start = wordStart();
+        List<String> words = words();
+
+        if (words.size() == 1)
+        {
+            list.setListData(words.toArray(new String[1]));
+            list.setSelectedIndex(0);
+            insert();
+        }
+        else if (!words.isEmpty())
+        {
+            show(words);
+        }
+    }
+
+    private void show(List<String> words)
+    {
+        list.setListData(words.toArray(new String[words.size()]));
+        list.setSelectedIndex(0);
+        list.ensureIndexIsVisible(0);
+
+        try
+        {
+            Rectangle rect = textArea.modelToView(start);
+
+            if (popup.isVisible())
+            {
+                popup.pack();
+            }
+            else if (rect != null)
+            {
+                popup.pack();
+                popup.show(textArea, rect.x, rect.y + rect.height);
+            }
+        }
+        catch (BadLocationException ex)
+        {
+            Logger.getLogger(WordCompletion.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    // typing on narrows the list down, leaving the word closes it
+    private void update()
+    {
+        if (wordStart() != start)
+        {
+            popup.setVisible(false);
+            return;
+        }
+
+        List<String> words = words();
+
+        if (words.isEmpty())
+        {
+            popup.setVisible(false);
+        }
+        else
+        {
+            show(words);
+        }
+    }
+
+    private boolean handle(int keyCode)
+    {
+        int index = list.getSelectedIndex();
+
+        switch (keyCode)
+        {
+            case KeyEvent.VK_ENTER:
+            case KeyEvent.VK_TAB:
+                insert();
+                return true;
+            case KeyEvent.VK_ESCAPE:
+                popup.setVisible(false);
+                return true;
+            case KeyEvent.VK_DOWN:
+                index++;
+                break;
+            case KeyEvent.VK_UP:
+                index--;
+                break;
+            case KeyEvent.VK_PAGE_DOWN:
+                index += VISIBLE_ROWS;
+                break;
+            case KeyEvent.VK_PAGE_UP:
+                index -= VISIBLE_ROWS;
+                break;
+            default:
+                return false;
+        }
+
+        index = Math.max(0, Math.min(index, list.getModel().getSize() - 1));
+        list.setSelectedIndex(index);
+        list.ensureIndexIsVisible(index);
+        return true;
+    }
+
+    private void insert()
+    {
+        String word = list.getSelectedValue();
+        popup.setVisible(false);
+
+        if (word != null)
+        {
+            textArea.select(start, textArea.getCaretPosition());
+            textArea.replaceSelection(word);
+        }
+    }
+
+    // words longer than the one typed so far, none if there is no word before the caret
+    private List<String> words()
+    {
+        int caret = textArea.getCaretPosition();
+
+        if (caret == start)
+        {
+            return Collections.emptyList();
+        }
+
+        try
+        {
+            return index.complete(textArea.getText(start, caret - start), LIMIT);
+        }
+        catch (BadLocationException ex)
+        {
+            Logger.getLogger(WordCompletion.class.getName()).log(Level.SEVERE, null, ex);
+            return Collections.emptyList();
+        }
+    }
+
+    // where the word the caret is at the end of starts, the caret itself if there is none
+    private int wordStart()
+    {
+        int caret = textArea.getCaretPosition();
+        Element root = textArea.getDocument().getDefaultRootElement();
+        Element line = root.getElement(root.getElementIndex(caret));
+        int from = Math.max(line.getStartOffset(), caret - WordIndex.MAX_LENGTH);
+
+        try
+        {
+            String before = textArea.getText(from, caret - from);
+            int i = before.length();
+
+            while ((i > 0) && WordIndex.isWordPart(before.charAt(i - 1)))
+            {
+                i--;
+            }
+
+            return from + i;
+        }
+        catch (BadLocationException ex)
+        {
+            Logger.getLogger(WordCompletion.class.getName()).log(Level.SEVERE, null, ex);
+            return caret;
+        }
+    }
+}
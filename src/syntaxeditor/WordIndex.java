@@ -0,0 +1,530 @@
+package syntaxeditor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * the words of every open tab and how often each occurs, looked up by prefix for word completion
+ *
+ * a word is kept once, its chars in a shared pool, and known by an id that stays the same for as long
+ * as the word is counted anywhere; an open addressed table finds the id of a word, and the ids are
+ * kept in word order in one large array plus a small unsorted one for words added since, merged in
+ * once it has grown to a fraction of the large one. a word counted down to zero keeps its id and
+ * place, as the word being typed comes and goes with every key; only once such words outnumber the
+ * live ones are they dropped and their ids handed out again
+ *
+ * thread safe, the tabs count their words from the edt and from their background passes
+ */
+public class WordIndex
+{
+    static final int MIN_LENGTH = 3; // chars, shorter words are not worth completing
+    static final int MAX_LENGTH = 64;
+    private static final int MIN_MERGE = 4096; // unsorted ids the sorted ones can take on before a merge
+    private static final int MIN_PURGE = 4096; // words counted down to zero that are left in place
+
+    private char[] pool = new char[1 << 16];
+    private int poolSize;
+    private int[] offsets = new int[1024];
+    private byte[] lengths = new byte[1024]; // 0 for an id that is free
+    private int[] hashes = new int[1024];
+    private int[] counts = new int[1024];
+    private long[] heads = new long[1024]; // the first four chars, enough to order most words without the pool
+    private int ids; // handed out so far
+    private int[] free = new int[64];
+    private int freeCount;
+    private int[] table = new int[2048]; // id + 1, 0 for an empty slot
+    private int[] sorted = new int[0];
+    private int[] recent = new int[256]; // added since the last merge
+    private int recentCount;
+    private int live; // words counted at least once
+    private int dead; // words counted down to zero, still in place
+
+    // counts the words of text, returning their ids or null if there are none
+    public synchronized int[] add(char[] text, int offset, int length)
+    {
+        int[] added = null;
+        int count = 0;
+        int end = offset + length;
+
+        for (int i = offset; i < end;)
+        {
+            if (!isWordPart(text[i]))
+            {
+                i++;
+                continue;
+            }
+
+            int start = i;
+
+            while ((i < end) && isWordPart(text[i]))
+            {
+                i++;
+            }
+
+            if ((i - start < MIN_LENGTH) || (i - start > MAX_LENGTH) || Character.isDigit(text[start]))
+            {
+                continue;
+            }
+
+            int id = intern(text, start, i - start);
+
+            if (counts[id]++ == 0)
+            {
+                live++;
+                dead--;
+            }
+
+            if (added == null)
+            {
+                added = new int[8];
+            }
+            else if (count == added.length)
+            {
+                added = Arrays.copyOf(added, count * 2);
+            }
+
+            added[count++] = id;
+        }
+
+        return (added == null) ? null : Arrays.copyOf(added, count);
+    }
+
+    // takes back words counted by add
+    public synchronized void remove(int[] removed)
+    {
+        for (int id : removed)
+        {
+            if (--counts[id] == 0)
+            {
+                live--;
+                dead++;
+            }
+        }
+
+        if (dead > Math.max(MIN_PURGE, live))
+        {
+            purge();
+        }
+    }
+
+    // up to limit words starting with prefix but longer than it, the most frequent first
+    public synchronized List<String> complete(String prefix, int limit)
+    {
+        char[] chars = prefix.toCharArray();
+        int[] heap = new int[limit]; // the best ids so far, the least frequent on top
+        int size = 0;
+
+        for (int i = lowerBound(chars); i < sorted.length; i++)
+        {
+            if (!startsWith(sorted[i], chars))
+            {
+                break;
+            }
+
+            size = offer(heap, size, sorted[i], chars.length);
+        }
+
+        for (int i = 0; i < recentCount; i++)
+        {
+            if (startsWith(recent[i], chars))
+            {
+                size = offer(heap, size, recent[i], chars.length);
+            }
+        }
+
+        Integer[] best = new Integer[size];
+
+        for (int i = 0; i < size; i++)
+        {
+            best[i] = heap[i];
+        }
+
+        Arrays.sort(best, (Integer a, Integer b) ->
+        {
+            return (counts[a] != counts[b]) ? Integer.compare(counts[b], counts[a]) : compare(a, b);
+        });
+
+        List<String> words = new ArrayList<>(size);
+
+        for (int id : best)
+        {
+            words.add(new String(pool, offsets[id], lengths[id]));
+        }
+
+        return words;
+    }
+
+    public synchronized int size()
+    {
+        return live;
+    }
+
+    // the id of a word, made up with a count of zero if the word is new
+    private int intern(char[] text, int start, int length)
+    {
+        int hash = 0;
+
+        for (int i = start; i < start + length; i++)
+        {
+            hash = 31 * hash + text[i];
+        }
+
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+
+        for (; table[slot] != 0; slot = (slot + 1) & mask)
+        {
+            int id = table[slot] - 1;
+
+            if ((hashes[id] == hash) && (lengths[id] == length) && equals(id, text, start))
+            {
+                return id;
+            }
+        }
+
+        int id = (freeCount > 0) ? free[--freeCount] : ids++;
+
+        if (id == offsets.length)
+        {
+            int capacity = id * 2;
+
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            heads = Arrays.copyOf(heads, capacity);
+        }
+
+        if (poolSize + length > pool.length)
+        {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+        }
+
+        System.arraycopy(text, start, pool, poolSize, length);
+        offsets[id] = poolSize;
+        lengths[id] = (byte) length;
+        hashes[id] = hash;
+        counts[id] = 0;
+        heads[id] = head(text, start, length);
+        poolSize += length;
+        dead++;
+
+        table[slot] = id + 1;
+
+        if ((live + dead) * 2 > table.length)
+        {
+            rehash(table.length * 2);
+        }
+
+        if (recentCount == recent.length)
+        {
+            recent = Arrays.copyOf(recent, recentCount * 2);
+        }
+
+        recent[recentCount++] = id;
+
+        if (recentCount > Math.max(MIN_MERGE, sorted.length / 8))
+        {
+            merge();
+        }
+
+        return id;
+    }
+
+    // chars packed high to low, those past the end of a short word left zero so it orders first
+    private static long head(char[] text, int start, int length)
+    {
+        long head = 0;
+
+        for (int i = 0; i < 4; i++)
+        {
+            head = (head << 16) | ((i < length) ? text[start + i] : 0);
+        }
+
+        return head;
+    }
+
+    private static int mix(int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void rehash(int capacity)
+    {
+        table = new int[capacity];
+        int mask = capacity - 1;
+
+        for (int id = 0; id < ids; id++)
+        {
+            if (lengths[id] != 0)
+            {
+                int slot = mix(hashes[id]) & mask;
+
+                while (table[slot] != 0)
+                {
+                    slot = (slot + 1) & mask;
+                }
+
+                table[slot] = id + 1;
+            }
+        }
+    }
+
+    // the recent ids sorted into the rest
+    private void merge()
+    {
+        Integer[] added = new Integer[recentCount];
+
+        for (int i = 0; i < recentCount; i++)
+        {
+            added[i] = recent[i];
+        }
+
+        Arrays.sort(added, this::compare);
+
+        // the runs of sorted ids between the added ones are copied whole
+        int[] merged = new int[sorted.length + added.length];
+        int from = 0;
+        int k = 0;
+
+        for (int id : added)
+        {
+            int to = lowerBound(id, from);
+
+            System.arraycopy(sorted, from, merged, k, to - from);
+            k += to - from;
+            merged[k++] = id;
+            from = to;
+        }
+
+        System.arraycopy(sorted, from, merged, k, sorted.length - from);
+        sorted = merged;
+        recentCount = 0;
+    }
+
+    // words counted down to zero are dropped, their ids freed and the pool packed
+    private void purge()
+    {
+        merge();
+
+        int kept = 0;
+
+        for (int id : sorted)
+        {
+            if (counts[id] > 0)
+            {
+                sorted[kept++] = id;
+            }
+            else
+            {
+                lengths[id] = 0;
+
+                if (freeCount == free.length)
+                {
+                    free = Arrays.copyOf(free, freeCount * 2);
+                }
+
+                free[freeCount++] = id;
+            }
+        }
+
+        sorted = Arrays.copyOf(sorted, kept);
+
+        // in pool order, so the chars only ever move down
+        Integer[] order = new Integer[kept];
+
+        for (int i = 0; i < kept; i++)
+        {
+            order[i] = sorted[i];
+        }
+
+        Arrays.sort(order, (Integer a, Integer b) ->
+        {
+            return Integer.compare(offsets[a], offsets[b]);
+        });
+
+        poolSize = 0;
+
+        for (int id : order)
+        {
+            System.arraycopy(pool, offsets[id], pool, poolSize, lengths[id]);
+            offsets[id] = poolSize;
+            poolSize += lengths[id];
+        }
+
+        pool = Arrays.copyOf(pool, Math.max(1 << 16, poolSize + (poolSize >> 1)));
+        dead = 0;
+        rehash(table.length);
+    }
+
+    // heap keeps the size most frequent ids offered so far
+    private int offer(int[] heap, int size, int id, int prefixLength)
+    {
+        if ((counts[id] == 0) || (lengths[id] == prefixLength) || (heap.length == 0))
+        {
+            return size;
+        }
+
+        int i;
+
+        if (size < heap.length)
+        {
+            i = size++;
+
+            while ((i > 0) && (counts[heap[(i - 1) / 2]] > counts[id]))
+            {
+                heap[i] = heap[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+
+            heap[i] = id;
+            return size;
+        }
+
+        if (counts[id] <= counts[heap[0]])
+        {
+            return size;
+        }
+
+        // replaces the least frequent and sifts down
+        i = 0;
+
+        while (2 * i + 1 < size)
+        {
+            int child = 2 * i + 1;
+
+            if ((child + 1 < size) && (counts[heap[child + 1]] < counts[heap[child]]))
+            {
+                child++;
+            }
+
+            if (counts[heap[child]] >= counts[id])
+            {
+                break;
+            }
+
+            heap[i] = heap[child];
+            i = child;
+        }
+
+        heap[i] = id;
+        return size;
+    }
+
+    // the first sorted index whose word is not below prefix
+    private int lowerBound(char[] prefix)
+    {
+        int low = 0;
+        int high = sorted.length;
+
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (compare(sorted[middle], prefix) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    // the first sorted index from start on whose word is not below that of id
+    private int lowerBound(int id, int start)
+    {
+        int low = start;
+        int high = sorted.length;
+
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (compare(sorted[middle], id) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private int compare(int a, int b)
+    {
+        if (heads[a] != heads[b])
+        {
+            return Long.compareUnsigned(heads[a], heads[b]);
+        }
+
+        int length = Math.min(lengths[a], lengths[b]);
+
+        for (int i = 0; i < length; i++)
+        {
+            char x = pool[offsets[a] + i];
+            char y = pool[offsets[b] + i];
+
+            if (x != y)
+            {
+                return x - y;
+            }
+        }
+
+        return lengths[a] - lengths[b];
+    }
+
+    private int compare(int id, char[] chars)
+    {
+        int length = Math.min(lengths[id], chars.length);
+
+        for (int i = 0; i < length; i++)
+        {
+            char c = pool[offsets[id] + i];
+
+            if (c != chars[i])
+            {
+                return c - chars[i];
+            }
+        }
+
+        return lengths[id] - chars.length;
+    }
+
+    private boolean startsWith(int id, char[] prefix)
+    {
+        return (lengths[id] >= prefix.length) && equals(id, prefix, 0, prefix.length);
+    }
+
+    private boolean equals(int id, char[] text, int start)
+    {
+        return equals(id, text, start, lengths[id]);
+    }
+
+    private boolean equals(int id, char[] text, int start, int length)
+    {
+        int offset = offsets[id];
+
+        for (int i = 0; i < length; i++)
+        {
+            if (pool[offset + i] != text[start + i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static boolean isWordPart(char c)
+    {
+        return Character.isLetterOrDigit(c) || (c == '_');
+    }
+}
@@ -0,0 +1,123 @@
+package syntaxeditor;
+
+import java.util.Random;
+
+// batch replace rules give the same edit as trying every rule at every position, leftmost first, then longest
+public class AhoCorasickTest
+{
+    private static final String ALPHABET = "abAB_ \u00E9\u00C9";
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(1);
+        int checked = 0;
+
+        for (int round = 0; round < 20000; round++)
+        {
+            String[] finds = new String[1 + random.nextInt(5)];
+            String[] replacements = new String[finds.length];
+
+            for (int i = 0; i < finds.length; i++)
+            {
+                finds[i] = text(random, random.nextInt(4));
+                replacements[i] = "<" + i + ">";
+            }
+
+            String text = text(random, random.nextInt(30));
+            boolean matchCase = random.nextBoolean();
+            boolean wholeWord = random.nextBoolean();
+
+            String expected = describe(naive(finds, replacements, matchCase, wholeWord, text));
+            String actual = describe(new AhoCorasick(finds, replacements, matchCase, wholeWord).replace(text));
+
+            if (!expected.equals(actual))
+            {
+                throw new AssertionError("AhoCorasick gave " + actual + " for " + String.join("|", finds) + " in '"
+                        + text + "' (match case " + matchCase + ", whole word " + wholeWord + "), expected "
+                        + expected);
+            }
+
+            checked++;
+        }
+
+        System.out.println(checked + " rule sets agree");
+    }
+
+    private static String text(Random random, int length)
+    {
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < length; i++)
+        {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+
+        return text.toString();
+    }
+
+    private static AhoCorasick.Edit naive(String[] finds, String[] replacements, boolean matchCase, boolean wholeWord,
+            String text)
+    {
+        StringBuilder result = new StringBuilder();
+        int first = -1;
+        int copied = 0;
+        int count = 0;
+
+        for (int i = 0; i < text.length();)
+        {
+            int best = -1;
+
+            for (int r = 0; r < finds.length; r++)
+            {
+                int end = i + finds[r].length();
+
+                if (!finds[r].isEmpty() && (end <= text.length()) && equals(text, i, finds[r], matchCase)
+                        && (!wholeWord || SearchPattern.isWholeWord(text, i, end))
+                        && ((best < 0) || (finds[r].length() > finds[best].length())))
+                {
+                    best = r;
+                }
+            }
+
+            if (best < 0)
+            {
+                i++;
+                continue;
+            }
+
+            if (first < 0)
+            {
+                first = copied = i;
+            }
+
+            result.append(text, copied, i).append(replacements[best]);
+            i += finds[best].length();
+            copied = i;
+            count++;
+        }
+
+        return (count == 0) ? null : new AhoCorasick.Edit(first, copied, result.toString(), count);
+    }
+
+    private static boolean equals(String text, int start, String find, boolean matchCase)
+    {
+        for (int i = 0; i < find.length(); i++)
+        {
+            char a = text.charAt(start + i);
+            char b = find.charAt(i);
+
+            if (matchCase ? (a != b) : (LiteralMatcher.foldCase(a) != LiteralMatcher.foldCase(b)))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String describe(AhoCorasick.Edit edit)
+    {
+        return (edit == null) ? "nothing" : edit.getStart() + "-" + edit.getEnd() + " '" + edit.getReplacement()
+                + "' x" + edit.getCount();
+    }
+}
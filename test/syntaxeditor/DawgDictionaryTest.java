@@ -0,0 +1,136 @@
+package syntaxeditor;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.fife.com.swabunga.spell.engine.Word;
+
+// the automaton holds exactly the words it was built from and suggests the same words as a full edit distance table
+public class DawgDictionaryTest
+{
+    private static final String ALPHABET = "abcdeA";
+    private static final int DELETE = 95; // the costs DawgDictionary searches with
+    private static final int SWAP = 90;
+    private static final int CHANGE = 100;
+    private static final int CASE = 10;
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(1);
+        TreeSet<String> words = new TreeSet<>();
+
+        while (words.size() < 3000)
+        {
+            words.add(word(random, 1 + random.nextInt(7)));
+        }
+
+        DawgDictionary dictionary = DawgDictionary.build(words);
+        int checked = 0;
+
+        for (int i = 0; i < 20000; i++)
+        {
+            String word = word(random, 1 + random.nextInt(8));
+            boolean expected = words.contains(word) || words.contains(word.toLowerCase());
+
+            if (dictionary.isCorrect(word) != expected)
+            {
+                throw new AssertionError("isCorrect('" + word + "') is " + !expected);
+            }
+
+            checked++;
+        }
+
+        for (String word : words)
+        {
+            if (!dictionary.isCorrect(word))
+            {
+                throw new AssertionError("isCorrect('" + word + "') is false for a word it was built from");
+            }
+        }
+
+        for (int i = 0; i < 500; i++)
+        {
+            String word = word(random, 1 + random.nextInt(7)).toLowerCase();
+            int threshold = 100 * (1 + random.nextInt(2));
+            Map<String, Integer> expected = new TreeMap<>();
+            Map<String, Integer> actual = new TreeMap<>();
+            int previous = 0;
+
+            for (String candidate : words)
+            {
+                int cost = distance(candidate, word);
+
+                if ((cost <= threshold) && !candidate.equals(word))
+                {
+                    expected.put(candidate, cost);
+                }
+            }
+
+            for (Word suggestion : dictionary.getSuggestions(word, threshold))
+            {
+                if (suggestion.getCost() < previous)
+                {
+                    throw new AssertionError("suggestions for '" + word + "' are not closest first");
+                }
+
+                previous = suggestion.getCost();
+                actual.put(suggestion.getWord(), suggestion.getCost());
+            }
+
+            if (!expected.equals(actual))
+            {
+                throw new AssertionError("suggestions for '" + word + "' within " + threshold + " are " + actual
+                        + ", the full table gives " + expected);
+            }
+
+            checked++;
+        }
+
+        System.out.println(checked + " lookups agree");
+    }
+
+    private static String word(Random random, int length)
+    {
+        StringBuilder word = new StringBuilder();
+
+        for (int i = 0; i < length; i++)
+        {
+            word.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+
+        return word.toString();
+    }
+
+    // candidate turned into word, which is in lower case
+    private static int distance(String candidate, String word)
+    {
+        int[][] cost = new int[candidate.length() + 1][word.length() + 1];
+
+        for (int i = 0; i <= candidate.length(); i++)
+        {
+            for (int j = 0; j <= word.length(); j++)
+            {
+                if ((i == 0) || (j == 0))
+                {
+                    cost[i][j] = (i + j) * DELETE;
+                    continue;
+                }
+
+                char c = candidate.charAt(i - 1);
+                char w = word.charAt(j - 1);
+                int change = (c == w) ? 0 : (Character.toLowerCase(c) == w) ? CASE : CHANGE;
+
+                cost[i][j] = Math.min(Math.min(cost[i - 1][j], cost[i][j - 1]) + DELETE, cost[i - 1][j - 1] + change);
+
+                if ((i > 1) && (j > 1) && (Character.toLowerCase(c) == word.charAt(j - 2))
+                        && (Character.toLowerCase(candidate.charAt(i - 2)) == w))
+                {
+                    cost[i][j] = Math.min(cost[i][j], cost[i - 2][j - 2] + SWAP);
+                }
+            }
+        }
+
+        return cost[candidate.length()][word.length()];
+    }
+}
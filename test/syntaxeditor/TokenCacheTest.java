@@ -0,0 +1,320 @@
+package syntaxeditor;
+
+import java.util.Arrays;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+import org.fife.ui.rsyntaxtextarea.Token;
+
+// a document with a token cache tokenizes like one without, right after every edit and once the cache has caught up
+public class TokenCacheTest
+{
+    private static final long TIMEOUT = 10000; // ms to wait for the background pass
+    private static RSyntaxDocument doc;
+    private static TokenCache cache;
+    private static String early; // what a listener told before the cache found, null if it read right
+
+    public static void main(String[] args) throws Exception
+    {
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < 300; i++)
+        {
+            text.append("int a").append(i).append(" = \"s\"; // line ").append(i).append('\n');
+
+            if (i % 50 == 10)
+            {
+                text.append("/* open\n");
+            }
+            else if (i % 50 == 20)
+            {
+                text.append("still open */ int b;\n");
+            }
+        }
+
+        // read as one plain token, the comment it is in goes on after it
+        char[] longLine = new char[TokenCache.MAX_LINE + 10];
+        Arrays.fill(longLine, 'x');
+        text.insert(text.indexOf("/* open\n") + 8, new String(longLine) + "\n");
+
+        SwingUtilities.invokeAndWait(()
+                ->
+                {
+                    doc = new RSyntaxDocument(SyntaxConstants.SYNTAX_STYLE_NONE);
+                    cache = new TokenCache(doc);
+                    doc.addDocumentListener(new EarlyListener());
+                    doc.setSyntaxStyle(SyntaxConstants.SYNTAX_STYLE_JAVA);
+                    insert(0, text.toString());
+        });
+
+        caughtUp("the first pass");
+
+        edit("a keyword changed in place", ()
+                ->
+                {
+                    int at = doc.getText(0, doc.getLength()).indexOf("int a5 ");
+                    doc.replace(at, 3, "for", null);
+        });
+        edit("a comment opened", ()
+                ->
+                {
+                    insert(lineStart(3), "/*");
+        });
+        edit("the comment closed again", ()
+                ->
+                {
+                    doc.remove(lineStart(3), 2);
+        });
+        edit("lines joined", ()
+                ->
+                {
+                    doc.remove(lineStart(40) - 1, lineStart(45) - lineStart(40));
+        });
+        edit("two lines added", ()
+                ->
+                {
+                    insert(lineStart(6), "int c = 11\n/*\n");
+        });
+        // read before the cache hears of the edit, the joined line has the length and state it had, only the text differs
+        edit("the two joined at the length of the first", ()
+                ->
+                {
+                    doc.remove(lineStart(6) + 8, 3);
+        });
+        edit("lines split", ()
+                ->
+                {
+                    insert(lineStart(100) + 4, "\n\"\n*/\n");
+        });
+        edit("a string left open", ()
+                ->
+                {
+                    insert(lineStart(200) + 8, "\"");
+        });
+        edit("the syntax changed", ()
+                ->
+                {
+                    doc.setSyntaxStyle(SyntaxConstants.SYNTAX_STYLE_C);
+        });
+
+        SwingUtilities.invokeAndWait(cache::close);
+        System.out.println("9 edits agree");
+    }
+
+    private interface Edit
+    {
+        void run() throws BadLocationException;
+    }
+
+    // straight after the edit every line must already read right, cached or not
+    private static void edit(String name, Edit edit) throws Exception
+    {
+        SwingUtilities.invokeAndWait(()
+                ->
+                {
+                    early = null;
+
+                    try
+                    {
+                        edit.run();
+                    }
+                    catch (BadLocationException ex)
+                    {
+                        throw new AssertionError(ex);
+                    }
+
+                    String wrong = (early != null) ? "a listener told first saw " + early : compare(false);
+
+                    if (wrong != null)
+                    {
+                        throw new AssertionError("after " + name + ", " + wrong);
+                    }
+        });
+
+        caughtUp(name);
+    }
+
+    private static void caughtUp(String name) throws Exception
+    {
+        String[] wrong = new String[1];
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        do
+        {
+            Thread.sleep(50);
+            SwingUtilities.invokeAndWait(()
+                    ->
+                    {
+                        wrong[0] = compare(true);
+            });
+        }
+        while ((wrong[0] != null) && (System.currentTimeMillis() < deadline));
+
+        if (wrong[0] != null)
+        {
+            throw new AssertionError("once " + name + " was tokenized, " + wrong[0]);
+        }
+    }
+
+    // the first line the cache doc reads differently from a fresh one, null if none; isCached also wants every line kept
+    private static String compare(boolean isCached)
+    {
+        RSyntaxDocument fresh = copy();
+
+        for (int line = 0; line < doc.getDefaultRootElement().getElementCount(); line++)
+        {
+            String wrong = compare(fresh, line, isCached);
+
+            if (wrong != null)
+            {
+                return wrong;
+            }
+        }
+
+        return null;
+    }
+
+    private static String compare(RSyntaxDocument fresh, int line, boolean isCached)
+    {
+        Element element = doc.getDefaultRootElement().getElement(line);
+        int length = element.getEndOffset() - 1 - element.getStartOffset();
+
+        if (length > TokenCache.MAX_LINE)
+        {
+            return (doc.getLastTokenTypeOnLine(line) == fresh.getLastTokenTypeOnLine(line)) ? null
+                    : "long line " + line + " ends in " + doc.getLastTokenTypeOnLine(line) + ", not "
+                    + fresh.getLastTokenTypeOnLine(line);
+        }
+
+        String expected = describe(fresh.getTokenListForLine(line));
+        String actual = describe(doc.getTokenListForLine(line));
+
+        if (!expected.equals(actual))
+        {
+            return "line " + line + " reads " + actual + ", not " + expected;
+        }
+
+        if (isCached)
+        {
+            int[] packed = cache.getTokens(line);
+
+            if ((packed == null) || !Arrays.equals(packed, pack(fresh.getTokenListForLine(line),
+                    element.getStartOffset())))
+            {
+                return "line " + line + " is not cached as " + expected;
+            }
+        }
+
+        return null;
+    }
+
+    private static RSyntaxDocument copy()
+    {
+        RSyntaxDocument fresh = new RSyntaxDocument(doc.getSyntaxStyle());
+
+        try
+        {
+            fresh.insertString(0, doc.getText(0, doc.getLength()), null);
+        }
+        catch (BadLocationException ex)
+        {
+            throw new AssertionError(ex);
+        }
+
+        return fresh;
+    }
+
+    // added after the cache, so told of every edit before it is, like the other listeners of a tab
+    private static class EarlyListener implements DocumentListener
+    {
+        @Override
+        public void insertUpdate(DocumentEvent e)
+        {
+            edited(e);
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e)
+        {
+            edited(e);
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e)
+        {
+        }
+
+        private void edited(DocumentEvent e)
+        {
+            if (early == null)
+            {
+                early = compare(copy(), doc.getDefaultRootElement().getElementIndex(e.getOffset()), false);
+            }
+        }
+    }
+
+    private static String describe(Token first)
+    {
+        StringBuilder description = new StringBuilder();
+
+        for (Token t = first; t != null; t = t.getNextToken())
+        {
+            description.append(t.getType()).append(':');
+
+            if (t.getTextArray() != null)
+            {
+                description.append(t.getOffset()).append(':').append(t.getLexeme());
+            }
+
+            description.append(' ');
+        }
+
+        return description.toString();
+    }
+
+    // as TokenCache packs a line
+    private static int[] pack(Token first, int start)
+    {
+        int count = 0;
+
+        for (Token t = first; t != null; t = t.getNextToken())
+        {
+            count++;
+        }
+
+        int[] packed = new int[count * 3];
+        int i = 0;
+
+        for (Token t = first; t != null; t = t.getNextToken())
+        {
+            boolean hasText = t.getTextArray() != null;
+
+            packed[i++] = hasText ? t.getOffset() - start : -1;
+            packed[i++] = hasText ? t.length() : 0;
+            packed[i++] = (t.getType() << 9) | (t.isHyperlink() ? 256 : 0) | (t.getLanguageIndex() & 0xFF);
+        }
+
+        return packed;
+    }
+
+    private static int lineStart(int line)
+    {
+        return doc.getDefaultRootElement().getElement(line).getStartOffset();
+    }
+
+    private static void insert(int offset, String text)
+    {
+        try
+        {
+            doc.insertString(offset, text, null);
+        }
+        catch (BadLocationException ex)
+        {
+            throw new AssertionError(ex);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package syntaxeditor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+// whole word literal search gives the same matches whether it goes through the regex or not
+public class WholeWordTest
+{
+    private static final String[] TEXTS =
+    {
+        "foo bar foo", "foo_bar foo", "_foo foo_", "foo1 1foo foo", "foo\u00B2 \u00B2foo", "\u216Bfoo foo\u216B",
+        "\u00E9foo foo\u00E9 foo-\u00E9", "\uD835\uDC00foo foo\uD835\uDC00 foo", "\uD83D\uDE00foo foo\uD83D\uDE00",
+        "\uD800foo", "foo\uDC00", "(foo)[foo]{foo}", "foofoo foo", "FOO Foo foo"
+    };
+    private static final String[] FINDS = { "foo", "o", "foo bar", "\u00E9" };
+
+    public static void main(String[] args)
+    {
+        int checked = 0;
+
+        for (String text : TEXTS)
+        {
+            for (String find : FINDS)
+            {
+                for (boolean matchCase : new boolean[] { true, false })
+                {
+                    List<Integer> expected = regex(text, find, matchCase);
+
+                    check(text, find, matchCase, "LiteralMatcher", expected, literal(text, find, matchCase));
+                    check(text, find, matchCase, "AhoCorasick", expected.size(), ahoCorasick(text, find, matchCase));
+                    checked++;
+                }
+            }
+        }
+
+        System.out.println(checked + " cases agree");
+    }
+
+    private static List<Integer> regex(String text, String find, boolean matchCase)
+    {
+        Matcher matcher = SearchPattern.compile(find, false, matchCase, true).matcher(text);
+        List<Integer> found = new ArrayList<>();
+
+        while (matcher.find())
+        {
+            found.add(matcher.start());
+        }
+
+        return found;
+    }
+
+    private static List<Integer> literal(String text, String find, boolean matchCase)
+    {
+        LiteralMatcher matcher = new LiteralMatcher(find, matchCase, true);
+        List<Integer> found = new ArrayList<>();
+
+        for (int i = matcher.indexOf(text, 0); i >= 0; i = matcher.indexOf(text, i + find.length()))
+        {
+            found.add(i);
+        }
+
+        return found;
+    }
+
+    private static int ahoCorasick(String text, String find, boolean matchCase)
+    {
+        AhoCorasick.Edit edit = new AhoCorasick(new String[] { find }, new String[] { "" }, matchCase, true)
+                .replace(text);
+
+        return (edit == null) ? 0 : edit.getCount();
+    }
+
+    private static void check(String text, String find, boolean matchCase, String matcher, Object expected,
+            Object actual)
+    {
+        if (!expected.equals(actual))
+        {
+            throw new AssertionError(matcher + " found " + actual + " for '" + find + "' in '" + text
+                    + "' (match case " + matchCase + "), the regex " + expected);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package syntaxeditor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// completions stay those of a plain word count while words come and go, through merges and purges
+public class WordIndexTest
+{
+    private static final String ALPHABET = "abcd";
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(1);
+        WordIndex index = new WordIndex();
+        Map<String, Integer> counts = new HashMap<>();
+        List<int[]> added = new ArrayList<>();
+        List<String[]> addedWords = new ArrayList<>();
+        int checked = 0;
+
+        for (int round = 0; round < 60000; round++)
+        {
+            if (added.isEmpty() || (random.nextInt(3) > 0))
+            {
+                // long words make many new ones, so the unsorted ids get merged in again and again
+                String[] words = new String[1 + random.nextInt(4)];
+                StringBuilder text = new StringBuilder();
+
+                for (int i = 0; i < words.length; i++)
+                {
+                    words[i] = word(random, WordIndex.MIN_LENGTH + random.nextInt((round < 30000) ? 9 : 3));
+                    text.append(words[i]).append((i % 2 == 0) ? " " : ".\n");
+                    counts.merge(words[i], 1, Integer::sum);
+                }
+
+                char[] chars = text.toString().toCharArray();
+
+                added.add(index.add(chars, 0, chars.length));
+                addedWords.add(words);
+            }
+            else
+            {
+                // taking most of them back leaves many words at zero, which is when they are purged
+                int i = random.nextInt(added.size());
+
+                index.remove(added.remove(i));
+
+                for (String word : addedWords.remove(i))
+                {
+                    counts.merge(word, -1, Integer::sum);
+                }
+            }
+
+            if (round % 500 == 0)
+            {
+                check(index, counts, word(random, random.nextInt(3)));
+                checked++;
+            }
+        }
+
+        while (added.size() > 50)
+        {
+            index.remove(added.remove(added.size() - 1));
+
+            for (String word : addedWords.remove(addedWords.size() - 1))
+            {
+                counts.merge(word, -1, Integer::sum);
+            }
+        }
+
+        for (String prefix : new String[] { "", "a", "ab", "abc", "d" })
+        {
+            check(index, counts, prefix);
+            checked++;
+        }
+
+        System.out.println(checked + " completions agree");
+    }
+
+    private static String word(Random random, int length)
+    {
+        StringBuilder word = new StringBuilder();
+
+        for (int i = 0; i < length; i++)
+        {
+            word.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+
+        return word.toString();
+    }
+
+    private static void check(WordIndex index, Map<String, Integer> counts, String prefix)
+    {
+        List<String> expected = new ArrayList<>();
+        int live = 0;
+
+        for (Map.Entry<String, Integer> entry : counts.entrySet())
+        {
+            if (entry.getValue() > 0)
+            {
+                live++;
+
+                if (entry.getKey().startsWith(prefix) && (entry.getKey().length() > prefix.length()))
+                {
+                    expected.add(entry.getKey());
+                }
+            }
+        }
+
+        expected.sort((String a, String b) ->
+        {
+            return !counts.get(a).equals(counts.get(b)) ? counts.get(b) - counts.get(a) : a.compareTo(b);
+        });
+
+        if (index.size() != live)
+        {
+            throw new AssertionError("WordIndex counts " + index.size() + " words, expected " + live);
+        }
+
+        List<String> all = index.complete(prefix, expected.size() + 1);
+
+        if (!all.equals(expected))
+        {
+            throw new AssertionError("completions of '" + prefix + "' are " + all + ", expected " + expected);
+        }
+
+        // a few best only, ties at the cut may go either way
+        List<String> best = index.complete(prefix, 5);
+
+        for (int i = 0; i < best.size(); i++)
+        {
+            if (!counts.get(best.get(i)).equals(counts.get(expected.get(i))))
+            {
+                throw new AssertionError("completion " + i + " of '" + prefix + "' is " + best.get(i) + ", expected "
+                        + expected.get(i));
+            }
+        }
+
+        if (best.size() != Math.min(5, expected.size()))
+        {
+            throw new AssertionError(best.size() + " completions of '" + prefix + "', expected "
+                    + Math.min(5, expected.size()));
+        }
+    }
+}